@@ -0,0 +1,88 @@
+package tetris.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares a JMH CSV result file (-rf csv) against the checked-in baseline.
+// usage: BaselineCompare <baseline.csv> <current.csv> [tolerance, default 0.10]
+// Exits with 1 when any benchmark is worse than the baseline by more than the tolerance.
+public final class BaselineCompare {
+    private BaselineCompare() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BaselineCompare <baseline.csv> <current.csv> [tolerance]");
+            System.exit(2);
+        }
+        Map<String, Row> baseline = read(Paths.get(args[0]));
+        Map<String, Row> current = read(Paths.get(args[1]));
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+
+        int regressions = 0;
+        for (Map.Entry<String, Row> e : current.entrySet()) {
+            Row now = e.getValue();
+            Row base = baseline.get(e.getKey());
+            if (base == null) {
+                System.out.printf("%-60s %12.3f %-8s (new)%n", e.getKey(), now.score, now.unit);
+                continue;
+            }
+            // > 0 means better, whatever the mode
+            double change = now.higherIsBetter()
+                    ? now.score / base.score - 1
+                    : base.score / now.score - 1;
+            boolean regressed = change < -tolerance;
+            if (regressed) regressions++;
+            System.out.printf("%-60s %12.3f -> %12.3f %-8s %+6.1f%%%s%n",
+                    e.getKey(), base.score, now.score, now.unit, change * 100, regressed ? "  REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + (int) (tolerance * 100) + "%");
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Row> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        String[] header = split(lines.get(0));
+        Map<String, Row> rows = new LinkedHashMap<>();
+        for (int i = 1; i < lines.size(); i++) {
+            if (lines.get(i).isBlank()) continue;
+            String[] cols = split(lines.get(i));
+            StringBuilder key = new StringBuilder(cols[0]);
+            for (int c = 7; c < cols.length; c++) {
+                if (!cols[c].isEmpty()) key.append(' ').append(header[c].replace("Param: ", "")).append('=').append(cols[c]);
+            }
+            rows.put(key.toString(), new Row(cols[1], Double.parseDouble(cols[4]), cols[6]));
+        }
+        return rows;
+    }
+
+    // JMH quotes every field and never embeds quotes or commas in them
+    private static String[] split(String line) {
+        String[] cols = line.split(",", -1);
+        for (int i = 0; i < cols.length; i++) cols[i] = cols[i].replace("\"", "").trim();
+        return cols;
+    }
+
+    private static final class Row {
+        final String mode;
+        final double score;
+        final String unit;
+
+        Row(String mode, double score, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+
+        boolean higherIsBetter() {
+            return mode.equals("thrpt");
+        }
+    }
+}
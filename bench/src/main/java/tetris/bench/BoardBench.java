@@ -0,0 +1,98 @@
+package tetris.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tetris.core.Board;
+import tetris.core.ShapeType;
+import tetris.core.Tetromino;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBench {
+    private static final ShapeType[] TYPES = ShapeType.values();
+    private static final int[] GARBAGE_HOLES = { 3, 6 };
+
+    @Param({"EMPTY", "HALF", "NEAR_TOP", "MULTI_CLEAR"})
+    public BoardFill fill;
+
+    private final Board board = new Board(10, 20);
+    private final Tetromino probe = new Tetromino(ShapeType.T);
+    private final Tetromino wellPiece = new Tetromino(ShapeType.I);
+
+    @Setup(Level.Trial)
+    public void fillBoard() {
+        fill.apply(board, 42);
+        probe.setPosition(3, 5);
+        wellPiece.setRotation(1);          // vertical I, blocks in box column 2
+        wellPiece.setPosition(7, 16);      // column 9, bottom four rows
+    }
+
+    // every shape/rotation across every column at every row: what a placement search does
+    @Benchmark
+    public int canPlaceSweep() {
+        int fits = 0;
+        for (ShapeType t : TYPES) {
+            for (int r = 0; r < 4; r++) {
+                for (int x = -2; x < 10; x++) {
+                    for (int y = -2; y < 20; y++) {
+                        if (board.canPlace(t, r, x, y)) fits++;
+                    }
+                }
+            }
+        }
+        return fits;
+    }
+
+    @Benchmark
+    public boolean canPlaceTetromino() {
+        return board.canPlace(probe);
+    }
+
+    @Benchmark
+    public int dropY() {
+        int sum = 0;
+        for (int x = 0; x < 8; x++) sum += board.dropY(ShapeType.T, 0, x, -2);
+        return sum;
+    }
+
+    @Benchmark
+    public void lockAndClear(ClearState s, Blackhole bh) {
+        s.board.lock(wellPiece);
+        bh.consume(s.board.clearLines());
+    }
+
+    // versus mode: two garbage rows pushed under the fill, then the clear check after a lock
+    @Benchmark
+    public void garbageAndClear(ClearState s, Blackhole bh) {
+        bh.consume(s.board.addGarbage(2, GARBAGE_HOLES));
+        bh.consume(s.board.clearLines());
+    }
+
+    // clearLines mutates the board, so it gets a fresh copy of the fill per invocation
+    @State(Scope.Thread)
+    public static class ClearState {
+        final Board board = new Board(10, 20);
+
+        @Setup(Level.Invocation)
+        public void refill(BoardBench bench) {
+            bench.fill.apply(board, 42);
+        }
+    }
+}
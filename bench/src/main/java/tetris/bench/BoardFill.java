@@ -0,0 +1,47 @@
+package tetris.bench;
+
+import tetris.core.Board;
+import tetris.core.ShapeType;
+import tetris.core.Tetromino;
+
+import java.util.SplittableRandom;
+
+// Realistic board states for the benches. Rows are built out of horizontal I pieces;
+// Board.lock drops blocks outside the walls, so a bar can fill a row up to any column.
+public enum BoardFill {
+    EMPTY(0, false),
+    HALF(10, false),
+    NEAR_TOP(17, false),
+    MULTI_CLEAR(4, true);
+
+    private final int rows;
+    private final boolean sharedWell;
+
+    BoardFill(int rows, boolean sharedWell) {
+        this.rows = rows;
+        this.sharedWell = sharedWell;
+    }
+
+    // MULTI_CLEAR leaves one well in the last column: a vertical I there clears 4 lines
+    public void apply(Board board, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        board.clear();
+        int w = board.getWidth();
+        for (int i = 0; i < rows; i++) {
+            int y = board.getHeight() - 1 - i;
+            fillRow(board, y, sharedWell ? w - 1 : rng.nextInt(w));
+        }
+    }
+
+    // fill row y completely except the hole column (-1 = no hole)
+    public static void fillRow(Board board, int y, int hole) {
+        Tetromino bar = new Tetromino(ShapeType.I); // rotation 0 sits in box row 1
+        for (int x = hole - 4; x > -4; x -= 4) lockBar(board, bar, x, y);
+        for (int x = hole + 1; x < board.getWidth(); x += 4) lockBar(board, bar, x, y);
+    }
+
+    private static void lockBar(Board board, Tetromino bar, int x, int y) {
+        bar.setPosition(x, y - 1);
+        board.lock(bar);
+    }
+}
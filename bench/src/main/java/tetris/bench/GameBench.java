@@ -0,0 +1,52 @@
+package tetris.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tetris.core.Command;
+import tetris.core.Game;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBench {
+    private Game game;
+    private int turn;
+
+    @Setup
+    public void newGame() {
+        game = new Game(10, 20, 42);
+    }
+
+    // shift the piece to a rotating column, then hard drop; restart on top-out
+    @Benchmark
+    public int hardDrop() {
+        if (game.isGameOver()) game.onCommand(Command.RESTART);
+        int shift = (turn++ % 9) - 4;
+        Command side = shift < 0 ? Command.LEFT : Command.RIGHT;
+        for (int i = Math.abs(shift); i > 0; i--) game.onCommand(side);
+        game.onCommand(Command.HARD_DROP);
+        return game.getPiecesPlaced();
+    }
+
+    @Benchmark
+    public int moveAndRotate() {
+        if (game.isGameOver()) game.onCommand(Command.RESTART);
+        game.onCommand(Command.LEFT);
+        game.onCommand(Command.ROTATE);
+        game.onCommand(Command.RIGHT);
+        return game.getActive().getX();
+    }
+}
@@ -0,0 +1,90 @@
+package tetris.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tetris.core.Game;
+import tetris.sim.Action;
+import tetris.sim.GameResult;
+import tetris.sim.Policy;
+import tetris.sim.SimRunner;
+import tetris.sim.Simulator;
+
+import java.util.concurrent.TimeUnit;
+
+// End to end: whole headless games through Simulator, reported per placed piece.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementsBench {
+    private static final int GAMES = 16;
+
+    private long seed;
+
+    // spreads pieces over the columns and hard drops each one on its first frame
+    static final class SpreadPolicy implements Policy {
+        private int lastPiece = -1;
+        private int target;
+        private int count;
+
+        @Override
+        public Action nextAction(Game game) {
+            if (game.getPiecesPlaced() != lastPiece) {
+                lastPiece = game.getPiecesPlaced();
+                target = (count++ * 3) % 8;
+            }
+            int x = game.getActive().getX();
+            if (x > target) return Action.LEFT;
+            if (x < target) return Action.RIGHT;
+            return Action.HARD;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public long games() {
+        long pieces = 0;
+        for (int i = 0; i < GAMES; i++) {
+            GameResult r = SimRunner.play(new Simulator(new Game(10, 20, seed++)), new SpreadPolicy(), 1_000_000);
+            pieces += r.getPieces();
+        }
+        return pieces;
+    }
+
+    // placements per second: frames are stepped until the next piece locks
+    @Benchmark
+    public int placement(PlacementState s) {
+        return s.place();
+    }
+
+    @State(Scope.Thread)
+    public static class PlacementState {
+        private Simulator sim = new Simulator(new Game(10, 20, 1));
+        private SpreadPolicy policy = new SpreadPolicy();
+        private long nextSeed = 2;
+
+        int place() {
+            Game game = sim.getGame();
+            if (game.isGameOver()) {
+                sim = new Simulator(new Game(10, 20, nextSeed++));
+                policy = new SpreadPolicy();
+                game = sim.getGame();
+            }
+            int before = game.getPiecesPlaced();
+            while (game.getPiecesPlaced() == before && !game.isGameOver()) {
+                sim.step(policy.nextAction(game));
+            }
+            return game.getPiecesPlaced();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package tetris.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tetris.core.Command;
+import tetris.core.Game;
+import tetris.core.GameSnapshot;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBench {
+    private Game game;
+    private Game target;
+    private GameSnapshot snapshot;
+    private long[] words;
+    private ByteBuffer direct;
+
+    // a mid-game position: a stack of pieces dropped across the board
+    @Setup
+    public void setUp() {
+        game = new Game(10, 20, 42);
+        for (int turn = 0; turn < 24 && !game.isGameOver(); turn++) {
+            int shift = (turn % 9) - 4;
+            Command side = shift < 0 ? Command.LEFT : Command.RIGHT;
+            for (int i = Math.abs(shift); i > 0; i--) game.onCommand(side);
+            game.onCommand(Command.HARD_DROP);
+        }
+        target = new Game(10, 20, 7);
+        snapshot = GameSnapshot.forGame(game);
+        words = new long[snapshot.words()];
+        direct = ByteBuffer.allocateDirect(snapshot.bytes());
+        snapshot.save(game, words, 0);
+        snapshot.save(game, direct, 0);
+    }
+
+    @Benchmark
+    public long[] saveArray() {
+        snapshot.save(game, words, 0);
+        return words;
+    }
+
+    @Benchmark
+    public Game restoreArray() {
+        snapshot.restore(target, words, 0);
+        return target;
+    }
+
+    @Benchmark
+    public ByteBuffer saveDirect() {
+        snapshot.save(game, direct, 0);
+        return direct;
+    }
+
+    @Benchmark
+    public Game restoreDirect() {
+        snapshot.restore(target, direct, 0);
+        return target;
+    }
+}
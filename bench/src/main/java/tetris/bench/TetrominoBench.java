@@ -0,0 +1,66 @@
+package tetris.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tetris.core.ShapeTable;
+import tetris.core.ShapeType;
+import tetris.core.Tetromino;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TetrominoBench {
+    private final Tetromino[] pieces = new Tetromino[ShapeType.values().length * 4];
+
+    public TetrominoBench() {
+        int i = 0;
+        for (ShapeType t : ShapeType.values()) {
+            for (int r = 0; r < 4; r++) {
+                Tetromino p = new Tetromino(t);
+                p.setRotation(r);
+                p.setPosition(3, 7);
+                pieces[i++] = p;
+            }
+        }
+    }
+
+    // all 28 (shape, rotation) pairs, summing block coordinates
+    @Benchmark
+    public int forEachBlock() {
+        int[] acc = new int[1];
+        for (Tetromino p : pieces) {
+            p.forEachBlock((x, y, c) -> acc[0] += x * 31 + y);
+        }
+        return acc[0];
+    }
+
+    // same walk through the primitive accessors, no lambda
+    @Benchmark
+    public int blockAccessors() {
+        int acc = 0;
+        for (Tetromino p : pieces) {
+            for (int i = 0; i < ShapeTable.BLOCKS; i++) acc += p.blockX(i) * 31 + p.blockY(i);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public void forEachBlockBlackhole(Blackhole bh) {
+        for (Tetromino p : pieces) {
+            p.forEachBlock((x, y, c) -> bh.consume(x + y));
+        }
+    }
+}
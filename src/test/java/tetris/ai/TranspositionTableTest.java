@@ -0,0 +1,71 @@
+package tetris.ai;
+
+import org.junit.jupiter.api.Test;
+import tetris.core.Board;
+import tetris.core.ShapeType;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Stored results come back for their own key and for no other, the deeper result keeps
+// its slot, and Zobrist keys follow the board hash and the two pieces.
+class TranspositionTableTest {
+    private static final ShapeType[] TYPES = ShapeType.values();
+
+    @Test
+    void storeThenProbe() {
+        TranspositionTable table = new TranspositionTable(16);
+        SplittableRandom rng = new SplittableRandom(1);
+        long[] keys = new long[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = rng.nextLong();
+            table.store(keys[i], i * 0.5f, 1 + i % 100, i);
+        }
+        int found = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long d = table.probe(keys[i]);
+            if (d == TranspositionTable.MISS) continue; // replaced by a deeper key in its bucket
+            found++;
+            assertEquals(i * 0.5f, TranspositionTable.score(d));
+            assertEquals(1 + i % 100, TranspositionTable.depth(d));
+            assertEquals(i, TranspositionTable.stamp(d));
+        }
+        assertTrue(found > keys.length * 97 / 100, "a 64k-entry table kept only " + found + " of 1000 entries");
+
+        for (int i = 0; i < 1000; i++) assertEquals(TranspositionTable.MISS, table.probe(rng.nextLong()));
+        table.clear();
+        assertEquals(TranspositionTable.MISS, table.probe(keys[0]));
+    }
+
+    @Test
+    void deeperResultKeepsItsSlot() {
+        TranspositionTable table = new TranspositionTable(4);
+        long deep = 5L << 33;
+        long other = deep ^ 1; // same bucket
+        table.store(deep, 1f, 9, 0);
+        table.store(other, 2f, 1, 0);
+        table.store(other ^ 2, 3f, 1, 0); // newest replaces the shallow one only
+        assertEquals(9, TranspositionTable.depth(table.probe(deep)));
+        assertEquals(TranspositionTable.MISS, table.probe(other));
+        assertEquals(3f, TranspositionTable.score(table.probe(other ^ 2)));
+    }
+
+    @Test
+    void zobristKeysTrackBoardAndPieces() {
+        Board a = new Board(10, 20);
+        Board b = new Board(10, 20);
+        a.lock(TYPES[0], 0, 2, 17);
+        b.lock(TYPES[0], 0, 2, 17);
+        assertEquals(Zobrist.key(a, TYPES[1], TYPES[2]), Zobrist.key(b, TYPES[1], TYPES[2]));
+        assertNotEquals(Zobrist.key(a, TYPES[1], TYPES[2]), Zobrist.key(a, TYPES[2], TYPES[1]));
+
+        long k = Zobrist.key(a, TYPES[1], TYPES[2]);
+        b.lock(TYPES[1], 0, 6, 17);
+        assertNotEquals(k, Zobrist.key(b, TYPES[1], TYPES[2]));
+        assertNotEquals(k, Zobrist.withLines(k, 1));
+        assertEquals(k, Zobrist.withLines(k, 0));
+    }
+}
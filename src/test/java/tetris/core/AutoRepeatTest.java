@@ -0,0 +1,109 @@
+package tetris.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Held keys repeat on fixed frames: a shift moves at once, waits DAS_FRAMES, then repeats
+// every ARR_FRAMES; the key pressed last wins and hands back to the other one (charging
+// DAS again) when released; soft drop repeats every SOFT_DROP_FRAMES.
+class AutoRepeatTest {
+    @Test
+    void shiftWaitsForDasThenRepeatsAtArr() {
+        Recorder r = new Recorder(Command.LEFT);
+        r.game.press(Command.LEFT);
+        r.run(30);
+        r.game.release(Command.LEFT);
+        r.run(20);
+
+        List<Long> expected = new ArrayList<>();
+        expected.add(0L);
+        for (long f = Game.DAS_FRAMES; f <= 30; f += Game.ARR_FRAMES) expected.add(f);
+        assertEquals(expected, r.frames);
+    }
+
+    @Test
+    void lastShiftWinsAndHandsBack() {
+        Recorder r = new Recorder(Command.LEFT, Command.RIGHT);
+        r.game.press(Command.LEFT);
+        r.run(12);
+        r.game.press(Command.RIGHT);
+        r.run(13);
+        r.game.release(Command.RIGHT);
+        r.run(14);
+        r.game.release(Command.LEFT);
+        r.run(10);
+
+        // LEFT: 0, 10, 12 | RIGHT at 12 (press), 22, 24 | LEFT again from 25: 35, 37, 39
+        assertEquals(List.of(0L, 10L, 12L, 12L, 22L, 24L, 35L, 37L, 39L), r.frames);
+        assertEquals(List.of(Command.LEFT, Command.LEFT, Command.LEFT, Command.RIGHT, Command.RIGHT,
+                Command.RIGHT, Command.LEFT, Command.LEFT, Command.LEFT), r.commands);
+    }
+
+    @Test
+    void releasingTheOlderKeyKeepsTheNewer() {
+        Recorder r = new Recorder(Command.LEFT, Command.RIGHT);
+        r.game.press(Command.LEFT);
+        r.game.press(Command.RIGHT);
+        r.run(5);
+        r.game.release(Command.LEFT);
+        r.run(9);
+
+        // RIGHT keeps its DAS charge: pressed at 0, repeats from 10
+        assertEquals(List.of(0L, 0L, 10L, 12L, 14L), r.frames);
+        assertEquals(Command.RIGHT, r.commands.get(4));
+    }
+
+    @Test
+    void softDropRepeats() {
+        Recorder r = new Recorder(Command.SOFT_DROP);
+        r.game.press(Command.SOFT_DROP);
+        r.run(9);
+        r.game.release(Command.SOFT_DROP);
+        r.run(9);
+
+        List<Long> expected = new ArrayList<>();
+        for (long f = 0; f <= 9; f += Game.SOFT_DROP_FRAMES) expected.add(f);
+        assertEquals(expected, r.frames);
+    }
+
+    @Test
+    void restartDropsHeldKeys() {
+        Recorder r = new Recorder(Command.LEFT, Command.SOFT_DROP);
+        r.game.press(Command.LEFT);
+        r.game.press(Command.SOFT_DROP);
+        r.run(4);
+        r.game.onCommand(Command.RESTART);
+        r.frames.clear();
+        r.run(40);
+        assertEquals(List.of(), r.frames);
+    }
+
+    // frames on which the watched commands reached the game, on a board wide enough that
+    // shifts never reach a wall
+    private static final class Recorder implements GameListener {
+        final Game game = new Game(64, 40, 1L);
+        final List<Command> watched;
+        final List<Long> frames = new ArrayList<>();
+        final List<Command> commands = new ArrayList<>();
+
+        Recorder(Command... watched) {
+            this.watched = List.of(watched);
+            game.addListener(this);
+        }
+
+        void run(int frames) {
+            for (int i = 0; i < frames; i++) game.advanceFrame();
+        }
+
+        @Override
+        public void onCommand(Game g, Command command) {
+            if (!watched.contains(command)) return;
+            frames.add(g.getFrame());
+            commands.add(command);
+        }
+    }
+}
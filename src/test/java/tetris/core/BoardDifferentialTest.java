@@ -0,0 +1,98 @@
+package tetris.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Plays random placement sequences on the bitboard and on the original int[][] board
+// side by side: every canPlace() probe, every clearLines() count and every cell after
+// each lock must agree.
+class BoardDifferentialTest {
+    private static final ShapeType[] TYPES = ShapeType.values();
+
+    @Test
+    void standardBoard() {
+        run(10, 20, 1L, 400);
+    }
+
+    @Test
+    void oddSizes() {
+        run(4, 8, 2L, 200);
+        run(7, 30, 3L, 200);
+        run(13, 9, 4L, 200);
+    }
+
+    @Test
+    void fullWidth() {
+        run(64, 24, 5L, 100);
+    }
+
+    private static void run(int width, int height, long seed, int games) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        Board board = new Board(width, height);
+        ArrayBoard ref = new ArrayBoard(width, height);
+
+        for (int g = 0; g < games; g++) {
+            board.clear();
+            ref.clear();
+            for (int move = 0; move < 500; move++) {
+                Tetromino t = new Tetromino(TYPES[rng.nextInt(TYPES.length)]);
+                for (int r = rng.nextInt(4); r > 0; r--) t.rotateCW();
+
+                // random probes, in and out of bounds, above and inside the board
+                for (int probe = 0; probe < 8; probe++) {
+                    t.setPosition(rng.nextInt(-ShapeTable.BOX, width + 1), rng.nextInt(0, height + 1));
+                    assertEquals(ref.canPlace(t), board.canPlace(t), () -> where(t, board));
+                }
+
+                // drop from the top at a random column, as a game would
+                t.setPosition(rng.nextInt(-ShapeTable.BOX, width + 1), Tetromino.SPAWN_Y);
+                if (!board.canPlace(t)) {
+                    assertEquals(ref.canPlace(t), false, () -> where(t, board));
+                    continue;
+                }
+                int y = t.getY();
+                while (ref.canPlace(shifted(t, y + 1))) {
+                    assertEquals(true, board.canPlace(shifted(t, y + 1)), () -> where(t, board));
+                    y++;
+                }
+                t.setPosition(t.getX(), y);
+                assertEquals(false, board.canPlace(shifted(t, y + 1)), () -> where(t, board));
+                if (aboveTop(t)) break; // the game would be over
+
+                board.lock(t);
+                ref.lock(t);
+                assertEquals(ref.clearLines(), board.clearLines(), () -> where(t, board));
+                for (int row = 0; row < height; row++) {
+                    assertArrayEquals(ref.getGrid()[row], board.getGrid()[row], "row " + row + " after " + where(t, board));
+                    long mask = 0;
+                    for (int x = 0; x < width; x++) {
+                        if (ref.getGrid()[row][x] != 0) mask |= 1L << x;
+                    }
+                    assertEquals(mask, board.getRowMask(row), "mask of row " + row);
+                }
+            }
+        }
+    }
+
+    private static Tetromino shifted(Tetromino t, int y) {
+        Tetromino c = t.copy();
+        c.setPosition(t.getX(), y);
+        return c;
+    }
+
+    private static boolean aboveTop(Tetromino t) {
+        for (int i = 0; i < ShapeTable.BLOCKS; i++) {
+            if (t.blockY(i) < 0) return true;
+        }
+        return false;
+    }
+
+    private static String where(Tetromino t, Board b) {
+        return t.getType() + " rotation " + t.getRotation() + " at " + t.getX() + "," + t.getY()
+                + " on " + b.getWidth() + "x" + b.getHeight();
+    }
+}
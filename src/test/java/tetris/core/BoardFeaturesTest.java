@@ -0,0 +1,118 @@
+package tetris.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The column heights, holes and aggregates Board keeps up to date incrementally must
+// match a from-scratch count over the ArrayBoard reference after every lock, line clear,
+// copy and row rewrite.
+class BoardFeaturesTest {
+    private static final ShapeType[] TYPES = ShapeType.values();
+
+    @Test
+    void lockAndClear() {
+        run(10, 20, 1L, 300);
+        run(6, 12, 2L, 200);
+        run(64, 30, 3L, 50);
+    }
+
+    @Test
+    void copyAndSetRow() {
+        SplittableRandom rng = new SplittableRandom(4);
+        Board board = new Board(10, 20);
+        Board copy = new Board(10, 20);
+        Board search = Board.occupancyOnly(10, 20);
+        ArrayBoard ref = new ArrayBoard(10, 20);
+        for (int step = 0; step < 5000; step++) {
+            int y = rng.nextInt(20);
+            int[] cells = new int[10];
+            for (int x = 0; x < 10; x++) cells[x] = rng.nextInt(3) == 0 ? 1 + rng.nextInt(7) : 0;
+            board.setRow(y, cells);
+            System.arraycopy(cells, 0, ref.getGrid()[y], 0, 10);
+            assertFeatures(ref, board, "setRow " + y);
+
+            if (step % 7 == 0) {
+                copy.copyFrom(board);
+                search.copyFrom(board);
+                assertFeatures(ref, copy, "copy");
+                assertFeatures(ref, search, "occupancy-only copy");
+            }
+        }
+    }
+
+    private static void run(int width, int height, long seed, int games) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        Board board = new Board(width, height);
+        ArrayBoard ref = new ArrayBoard(width, height);
+        for (int g = 0; g < games; g++) {
+            board.clear();
+            ref.clear();
+            assertFeatures(ref, board, "cleared board");
+            for (int move = 0; move < 400; move++) {
+                Tetromino t = new Tetromino(TYPES[rng.nextInt(TYPES.length)]);
+                for (int r = rng.nextInt(4); r > 0; r--) t.rotateCW();
+                t.setPosition(rng.nextInt(-ShapeTable.BOX, width + 1), Tetromino.SPAWN_Y);
+                if (!board.canPlace(t)) continue;
+                int y = board.dropY(t.getType(), t.getRotation(), t.getX(), t.getY());
+                t.setPosition(t.getX(), y);
+                if (y + topBlock(t) < 0) break; // the game would be over
+
+                board.lock(t);
+                ref.lock(t);
+                assertFeatures(ref, board, "after locking " + t.getType() + " at " + t.getX() + "," + y);
+                assertEquals(ref.clearLines(), board.clearLines());
+                assertFeatures(ref, board, "after clearing");
+            }
+        }
+    }
+
+    private static int topBlock(Tetromino t) {
+        int top = Integer.MAX_VALUE;
+        for (int i = 0; i < ShapeTable.BLOCKS; i++) top = Math.min(top, t.blockY(i) - t.getY());
+        return top;
+    }
+
+    // recomputes every feature from the reference grid
+    static void assertFeatures(ArrayBoard ref, Board board, String where) {
+        int[][] grid = ref.getGrid();
+        int height = grid.length;
+        int width = board.getWidth();
+        BoardFeatures f = board.getFeatures();
+
+        int[] heights = new int[width];
+        int aggregate = 0, holes = 0, max = 0, bumpiness = 0;
+        for (int x = 0; x < width; x++) {
+            int y = 0;
+            while (y < height && grid[y][x] == 0) y++;
+            heights[x] = height - y;
+            int empty = 0;
+            for (; y < height; y++) {
+                if (grid[y][x] == 0) empty++;
+            }
+            assertEquals(heights[x], f.columnHeight(x), "height of column " + x + " " + where);
+            assertEquals(heights[x], board.getColumnHeight(x), "height of column " + x + " " + where);
+            assertEquals(empty, f.columnHoles(x), "holes in column " + x + " " + where);
+            aggregate += heights[x];
+            holes += empty;
+            max = Math.max(max, heights[x]);
+            if (x > 0) bumpiness += Math.abs(heights[x] - heights[x - 1]);
+        }
+        assertEquals(aggregate, f.aggregateHeight(), "aggregate height " + where);
+        assertEquals(holes, f.holes(), "holes " + where);
+        assertEquals(max, f.maxHeight(), "max height " + where);
+        assertEquals(bumpiness, f.bumpiness(), "bumpiness " + where);
+
+        int maxWell = 0;
+        for (int x = 0; x < width; x++) {
+            int left = (x > 0) ? heights[x - 1] : height;
+            int right = (x < width - 1) ? heights[x + 1] : height;
+            int well = Math.max(0, Math.min(left, right) - heights[x]);
+            assertEquals(well, f.wellDepth(x), "well at column " + x + " " + where);
+            maxWell = Math.max(maxWell, well);
+        }
+        assertEquals(maxWell, f.maxWellDepth(), "max well depth " + where);
+    }
+}
@@ -0,0 +1,123 @@
+package tetris.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// addGarbage() and clearLines() on the bitboard against the ArrayBoard reference, with
+// garbage rising by moving rows one at a time: cells, masks, features and hash agree
+// after random mixes of locks, garbage and clears, including stacks pushed off the top.
+class BoardGarbageTest {
+    private static final ShapeType[] TYPES = ShapeType.values();
+
+    @Test
+    void randomGarbageAndClears() {
+        run(10, 20, 1L);
+        run(4, 10, 2L);
+        run(33, 16, 3L);
+        run(64, 40, 4L);
+    }
+
+    @Test
+    void scatteredFullRows() {
+        SplittableRandom rng = new SplittableRandom(5);
+        for (int width : new int[] { 1, 7, 10, 32, 63, 64 }) {
+            for (int round = 0; round < 200; round++) {
+                Board board = new Board(width, 24);
+                ArrayBoard ref = new ArrayBoard(width, 24);
+                int[] row = new int[width];
+                for (int y = 0; y < 24; y++) {
+                    int kind = rng.nextInt(4); // empty, full, or ragged
+                    for (int x = 0; x < width; x++) {
+                        row[x] = kind == 0 ? 0 : kind == 1 ? 1 + rng.nextInt(7) : rng.nextInt(2) * (1 + rng.nextInt(7));
+                    }
+                    board.setRow(y, row);
+                    System.arraycopy(row, 0, ref.getGrid()[y], 0, width);
+                }
+                assertEquals(ref.clearLines(), board.clearLines(), "width " + width);
+                assertSameBoard(ref, board, "width " + width + " round " + round);
+            }
+        }
+    }
+
+    @Test
+    void rejectsBadArguments() {
+        Board board = new Board(10, 20);
+        assertThrows(IllegalArgumentException.class, () -> board.addGarbage(-1, new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> board.addGarbage(21, new int[21]));
+        assertThrows(IllegalArgumentException.class, () -> board.addGarbage(2, new int[1]));
+        assertThrows(IllegalArgumentException.class, () -> board.addGarbage(1, new int[] { 10 }));
+        assertEquals(false, board.addGarbage(0, new int[0]));
+    }
+
+    private static void run(int width, int height, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        Board board = new Board(width, height);
+        ArrayBoard ref = new ArrayBoard(width, height);
+        int[] holes = new int[height];
+        for (int g = 0; g < 200; g++) {
+            board.clear();
+            ref.clear();
+            for (int move = 0; move < 200; move++) {
+                if (rng.nextInt(4) == 0) {
+                    int count = rng.nextInt(0, Math.min(height, 6) + 1);
+                    for (int i = 0; i < count; i++) holes[i] = rng.nextInt(width);
+                    boolean overflow = addGarbage(ref, count, holes);
+                    assertEquals(overflow, board.addGarbage(count, holes), "overflow of " + count + " rows");
+                    assertSameBoard(ref, board, "after " + count + " garbage rows");
+                    if (overflow) break;
+                    continue;
+                }
+
+                Tetromino t = new Tetromino(TYPES[rng.nextInt(TYPES.length)]);
+                for (int r = rng.nextInt(4); r > 0; r--) t.rotateCW();
+                t.setPosition(rng.nextInt(-ShapeTable.BOX, width + 1), 0);
+                if (!ref.canPlace(t)) continue;
+                int y = board.dropY(t.getType(), t.getRotation(), t.getX(), 0);
+                t.setPosition(t.getX(), y);
+                board.lock(t);
+                ref.lock(t);
+                assertEquals(ref.clearLines(), board.clearLines());
+                assertSameBoard(ref, board, "after locking and clearing");
+            }
+        }
+    }
+
+    // the reference: every row moves up count rows (the top count fall off), then the
+    // bottom rows fill with garbage; true if any block fell off
+    private static boolean addGarbage(ArrayBoard ref, int count, int[] holes) {
+        int[][] grid = ref.getGrid();
+        int height = grid.length;
+        int width = grid[0].length;
+        boolean overflow = false;
+        for (int y = 0; y < count; y++) {
+            for (int x = 0; x < width; x++) overflow |= grid[y][x] != 0;
+        }
+        for (int y = 0; y + count < height; y++) System.arraycopy(grid[y + count], 0, grid[y], 0, width);
+        for (int i = 0; i < count; i++) {
+            int[] row = grid[height - 1 - i];
+            for (int x = 0; x < width; x++) row[x] = (x == holes[i]) ? 0 : Board.GARBAGE_COLOR;
+        }
+        return overflow;
+    }
+
+    private static void assertSameBoard(ArrayBoard ref, Board board, String where) {
+        Board rebuilt = new Board(board.getWidth(), board.getHeight());
+        for (int y = 0; y < board.getHeight(); y++) {
+            int[] row = ref.getGrid()[y];
+            assertArrayEquals(row, board.getGrid()[y], "row " + y + " " + where);
+            long mask = 0;
+            for (int x = 0; x < row.length; x++) {
+                if (row[x] != 0) mask |= 1L << x;
+            }
+            assertEquals(mask, board.getRowMask(y), "mask of row " + y + " " + where);
+            rebuilt.setRow(y, row);
+        }
+        assertEquals(rebuilt.getHash(), board.getHash(), "hash " + where);
+        BoardFeaturesTest.assertFeatures(ref, board, where);
+    }
+}
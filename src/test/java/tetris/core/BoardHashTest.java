@@ -0,0 +1,106 @@
+package tetris.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// The hash Board updates incrementally through locks, line clears, garbage and copies
+// must equal the hash of the same cells written into an empty board row by row, and
+// must not depend on colors.
+class BoardHashTest {
+    private static final ShapeType[] TYPES = ShapeType.values();
+
+    @Test
+    void incrementalHashMatchesRebuild() {
+        run(10, 20, 1L);
+        run(5, 9, 2L);
+        run(64, 24, 3L);
+    }
+
+    @Test
+    void emptyBoardsHashToZero() {
+        Board board = new Board(10, 20);
+        assertEquals(0, board.getHash());
+        board.lock(TYPES[0], 0, 3, 10);
+        assertNotEquals(0, board.getHash());
+        board.clear();
+        assertEquals(0, board.getHash());
+    }
+
+    @Test
+    void colorsDoNotMatter() {
+        Board a = new Board(8, 8);
+        Board b = Board.occupancyOnly(8, 8);
+        int[] red = { 1, 1, 0, 0, 1, 0, 0, 0 };
+        int[] mixed = { 3, 7, 0, 0, Board.GARBAGE_COLOR, 0, 0, 0 };
+        a.setRow(5, red);
+        b.setRow(5, mixed);
+        assertEquals(a.getHash(), b.getHash());
+    }
+
+    @Test
+    void differentBoardsRarelyCollide() {
+        SplittableRandom rng = new SplittableRandom(4);
+        Board board = new Board(10, 20);
+        Map<Long, String> seen = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            board.clear();
+            StringBuilder cells = new StringBuilder();
+            for (int y = 16; y < 20; y++) {
+                int[] row = new int[10];
+                for (int x = 0; x < 10; x++) {
+                    row[x] = rng.nextInt(2);
+                    cells.append(row[x]);
+                }
+                board.setRow(y, row);
+            }
+            String before = seen.putIfAbsent(board.getHash(), cells.toString());
+            if (before != null) assertEquals(before, cells.toString(), "two boards share hash " + board.getHash());
+        }
+    }
+
+    private static void run(int width, int height, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        Board board = new Board(width, height);
+        Board rebuilt = new Board(width, height);
+        Board copy = Board.occupancyOnly(width, height);
+        int[] holes = new int[height];
+        for (int g = 0; g < 100; g++) {
+            board.clear();
+            for (int move = 0; move < 300; move++) {
+                if (rng.nextInt(10) == 0) {
+                    int count = rng.nextInt(1, 4);
+                    for (int i = 0; i < count; i++) holes[i] = rng.nextInt(width);
+                    if (board.addGarbage(count, holes)) break;
+                    assertRebuilds(board, rebuilt, "after " + count + " garbage rows");
+                    continue;
+                }
+
+                ShapeType type = TYPES[rng.nextInt(TYPES.length)];
+                int rotation = rng.nextInt(4);
+                int x = rng.nextInt(-ShapeTable.BOX, width + 1);
+                if (!board.canPlace(type, rotation, x, 0)) continue;
+                board.lock(type, rotation, x, board.dropY(type, rotation, x, 0));
+                assertRebuilds(board, rebuilt, "after a lock");
+                board.clearLines();
+                assertRebuilds(board, rebuilt, "after clearing");
+
+                if (move % 10 == 0) {
+                    copy.copyFrom(board);
+                    assertEquals(board.getHash(), copy.getHash(), "copy");
+                }
+            }
+        }
+    }
+
+    private static void assertRebuilds(Board board, Board rebuilt, String where) {
+        rebuilt.clear();
+        for (int y = 0; y < board.getHeight(); y++) rebuilt.setRow(y, board.getGrid()[y]);
+        assertEquals(rebuilt.getHash(), board.getHash(), where);
+    }
+}
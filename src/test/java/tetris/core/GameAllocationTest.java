@@ -0,0 +1,43 @@
+package tetris.core;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Moves, rotations and hard drops (and the spawns and restarts they lead to) must not
+// allocate once the game is warmed up: the thread's allocated-bytes counter has to stay put.
+class GameAllocationTest {
+    private static final Command[] PATTERN = {
+        Command.ROTATE, Command.LEFT, Command.LEFT, Command.ROTATE, Command.RIGHT,
+        Command.SOFT_DROP, Command.RIGHT, Command.RIGHT, Command.ROTATE, Command.LEFT,
+        Command.HARD_DROP
+    };
+
+    @Test
+    void movesRotationsAndHardDropsDoNotAllocate() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "allocation counting not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        Game game = new Game(10, 20, 42L);
+        play(game, 200_000); // warm up until the paths are compiled
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        int steps = play(game, 100_000);
+        long after = threads.getThreadAllocatedBytes(thread);
+
+        assertEquals(0, after - before, "bytes allocated over " + steps + " commands");
+    }
+
+    private static int play(Game game, int commands) {
+        for (int i = 0; i < commands; i++) {
+            game.onCommand(game.isGameOver() ? Command.RESTART : PATTERN[i % PATTERN.length]);
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,79 @@
+package tetris.core;
+
+import org.junit.jupiter.api.Test;
+import tetris.replay.Replay;
+import tetris.replay.ReplayPlayer;
+import tetris.replay.ReplayRecorder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A restart deals a new game whose getSeed() reproduces it: a fresh Game built from that
+// seed sees the same pieces, and a replay that restarts midway still plays back.
+class GameRestartTest {
+    @Test
+    void restartedGameMatchesAFreshGameWithItsSeed() {
+        Game game = new Game(10, 20, 42L);
+        for (int restart = 0; restart < 5; restart++) {
+            long before = game.getSeed();
+            topOut(game);
+            game.onCommand(Command.RESTART);
+            assertNotEquals(before, game.getSeed(), "restart " + restart + " kept the seed");
+
+            Game fresh = new Game(10, 20, game.getSeed());
+            assertSamePieces(fresh, game, 200);
+        }
+    }
+
+    @Test
+    void restartFromARunningGameIsReproducibleToo() {
+        Game a = new Game(10, 20, 7L);
+        Game b = new Game(10, 20, 7L);
+        for (int i = 0; i < 30; i++) a.onCommand(Command.HARD_DROP);
+        a.onCommand(Command.RESTART);
+        b.onCommand(Command.RESTART);
+        assertEquals(b.getSeed(), a.getSeed(), "the next seed depends only on the last one");
+        assertSamePieces(new Game(10, 20, a.getSeed()), a, 200);
+    }
+
+    @Test
+    void replayWithARestartValidates() {
+        Game game = new Game(10, 20, 3L);
+        ReplayRecorder recorder = new ReplayRecorder(game);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 400 && !game.isGameOver(); i++) {
+                game.onCommand((i % 3 == 0) ? Command.LEFT : Command.HARD_DROP);
+                game.tick();
+            }
+            game.onCommand(Command.RESTART);
+        }
+        for (int i = 0; i < 100; i++) {
+            game.onCommand(Command.HARD_DROP);
+            game.tick();
+        }
+        Replay replay = recorder.finish();
+
+        assertEquals(3L, replay.getSeed(), "a replay starts from the first game's seed");
+        assertTrue(new ReplayPlayer(replay).validate());
+    }
+
+    private static void topOut(Game game) {
+        for (int i = 0; i < 1000 && !game.isGameOver(); i++) game.onCommand(Command.HARD_DROP);
+        assertTrue(game.isGameOver());
+    }
+
+    // the same active piece, preview and queue, and the same pieces as both keep playing
+    private static void assertSamePieces(Game expected, Game actual, int drops) {
+        for (int i = 0; i < drops && !expected.isGameOver(); i++) {
+            assertEquals(expected.getActive().getType(), actual.getActive().getType(), "active piece " + i);
+            assertEquals(expected.getNext().getType(), actual.getNext().getType(), "next piece " + i);
+            for (int n = 0; n < 14; n++) {
+                assertEquals(expected.peekQueue(n), actual.peekQueue(n), "queue[" + n + "] at piece " + i);
+            }
+            expected.onCommand(Command.HARD_DROP);
+            actual.onCommand(Command.HARD_DROP);
+            assertEquals(expected.isGameOver(), actual.isGameOver());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package tetris.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// A restored game is indistinguishable from the one that was saved: same snapshot words,
+// same board, features and hash, and it goes on to play exactly the same game.
+class GameSnapshotTest {
+    private static final Command[] MOVES = {
+        Command.LEFT, Command.RIGHT, Command.ROTATE, Command.SOFT_DROP, Command.HARD_DROP
+    };
+
+    @Test
+    void restoreThenPlayOnMatchesTheOriginal() {
+        for (long seed = 0; seed < 10; seed++) {
+            Game original = new Game(10, 20, seed);
+            SplittableRandom rng = new SplittableRandom(seed);
+            play(original, rng, 3000);
+
+            GameSnapshot snapshot = GameSnapshot.forGame(original);
+            long[] saved = new long[snapshot.words() + 5];
+            snapshot.save(original, saved, 5);
+
+            // a different game, mid-play, takes on the saved state
+            Game copy = new Game(10, 20, seed + 1000);
+            play(copy, new SplittableRandom(7), 500);
+            copy.press(Command.LEFT);
+            snapshot.restore(copy, saved, 5);
+            assertSameGame(original, copy, "after restore, seed " + seed);
+
+            SplittableRandom a = new SplittableRandom(seed * 31);
+            SplittableRandom b = new SplittableRandom(seed * 31);
+            for (int step = 0; step < 20; step++) {
+                play(original, a, 200);
+                play(copy, b, 200);
+                assertSameGame(original, copy, "after " + (step + 1) * 200 + " more ticks, seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void heldKeysSurviveARoundTrip() {
+        Game game = new Game(10, 20, 3L);
+        game.press(Command.RIGHT);
+        game.press(Command.SOFT_DROP);
+        for (int i = 0; i < 4; i++) game.tick();
+
+        GameSnapshot snapshot = GameSnapshot.forGame(game);
+        long[] saved = new long[snapshot.words()];
+        snapshot.save(game, saved, 0);
+        Game copy = new Game(10, 20, 3L);
+        snapshot.restore(copy, saved, 0);
+
+        for (int i = 0; i < 40; i++) {
+            game.tick();
+            copy.tick();
+            assertSameGame(game, copy, "tick " + i);
+        }
+    }
+
+    @Test
+    void byteBuffersOfEitherOrder() {
+        Game game = new Game(64, 30, 5L);
+        play(game, new SplittableRandom(5), 2000);
+        GameSnapshot snapshot = GameSnapshot.forGame(game);
+
+        for (ByteBuffer buf : new ByteBuffer[] {
+                ByteBuffer.allocate(snapshot.bytes() * 3),
+                ByteBuffer.allocateDirect(snapshot.bytes() * 3).order(ByteOrder.LITTLE_ENDIAN) }) {
+            int index = snapshot.bytes() * 2;
+            snapshot.save(game, buf, index);
+            assertEquals(0, buf.position());
+            Game copy = new Game(64, 30, 0L);
+            snapshot.restore(copy, buf, index);
+            assertSameGame(game, copy, buf.toString());
+        }
+    }
+
+    @Test
+    void rejectsOtherSizesAndEmptySlots() {
+        Game game = new Game(10, 20, 1L);
+        GameSnapshot snapshot = GameSnapshot.forGame(game);
+        long[] saved = new long[snapshot.words() * 2];
+        snapshot.save(game, saved, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> snapshot.restore(new Game(10, 21, 1L), saved, 0));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.save(new Game(12, 20, 1L), saved, 0));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.restore(game, saved, snapshot.words()));
+    }
+
+    private static void play(Game game, SplittableRandom rng, int ticks) {
+        for (int t = 0; t < ticks; t++) {
+            if (game.isGameOver()) game.onCommand(Command.RESTART);
+            else if (rng.nextInt(3) == 0) game.onCommand(MOVES[rng.nextInt(MOVES.length)]);
+            game.tick();
+        }
+    }
+
+    private static void assertSameGame(Game expected, Game actual, String where) {
+        GameSnapshot snapshot = GameSnapshot.forGame(expected);
+        long[] e = new long[snapshot.words()];
+        long[] a = new long[snapshot.words()];
+        snapshot.save(expected, e, 0);
+        snapshot.save(actual, a, 0);
+        assertArrayEquals(e, a, "snapshot words " + where);
+
+        Board eb = expected.getBoard();
+        Board ab = actual.getBoard();
+        for (int y = 0; y < eb.getHeight(); y++) {
+            assertArrayEquals(eb.getGrid()[y], ab.getGrid()[y], "row " + y + " " + where);
+            assertEquals(eb.getRowMask(y), ab.getRowMask(y), "mask of row " + y + " " + where);
+        }
+        assertEquals(eb.getHash(), ab.getHash(), "hash " + where);
+        assertEquals(eb.getFeatures().holes(), ab.getFeatures().holes(), "holes " + where);
+        assertEquals(eb.getFeatures().aggregateHeight(), ab.getFeatures().aggregateHeight(), "aggregate height " + where);
+        assertEquals(expected.getActive().getType(), actual.getActive().getType(), where);
+        assertEquals(expected.getNext().getType(), actual.getNext().getType(), where);
+        assertEquals(expected.getScore().getScore(), actual.getScore().getScore(), where);
+        assertEquals(expected.getFrame(), actual.getFrame(), where);
+        assertEquals(expected.getSeed(), actual.getSeed(), where);
+        assertEquals(expected.getStateName(), actual.getStateName(), where);
+    }
+}
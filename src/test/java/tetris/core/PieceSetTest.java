@@ -0,0 +1,129 @@
+package tetris.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Piece files parse into the same cells the hand-written standard set has, rotations
+// follow the documented clockwise turn, and malformed files are refused with the line
+// or piece at fault.
+class PieceSetTest {
+    private static final List<String> STANDARD_TEXT = List.of(
+            "// the standard seven, as a piece file",
+            "box 4",
+            "piece I", "....", "####", "....", "....",
+            "piece O", "##", "##",
+            "piece T 0 1", ".#.", "###", "...",
+            "piece S 0 1", ".##", "##.", "...",
+            "piece Z 0 1", "##.", ".##", "...",
+            "piece J 0 1", "#..", "###", "...",
+            "piece L 0 1", "..#", "###", "...");
+
+    @Test
+    void textVersionOfTheStandardSetHasTheSameCells() throws IOException {
+        PieceSet text = PieceSet.parse(STANDARD_TEXT, "standard.txt");
+        PieceSet std = PieceSet.standard();
+        assertEquals(std.size(), text.size());
+        assertEquals(std.getBox(), text.getBox());
+        assertEquals(std.getBlocks(), text.getBlocks());
+        for (int p = 0; p < std.size(); p++) {
+            assertEquals(std.name(p), text.name(p));
+            for (int r = 0; r < 4; r++) {
+                assertArrayEquals(sortedCells(std.cells(p, r)), sortedCells(text.cells(p, r)), std.name(p) + " rotation " + r);
+            }
+        }
+    }
+
+    @Test
+    void pentominoesWithDefaultBoxAndCentering() throws IOException {
+        PieceSet ok = PieceSet.parse(List.of(
+                "piece F", ".##", "##.", ".#.",
+                "",
+                "piece I5", ".....", ".....", "#####", ".....", ".....",
+                "piece P", "##.", "##.", "#.."), "penta.txt");
+        assertEquals(5, ok.getBox(), "box defaults to the largest grid");
+        assertEquals(5, ok.getBlocks());
+        assertEquals(3, ok.size());
+        // F's 3x3 grid is centered in the 5x5 box: offset (1, 1)
+        assertArrayEquals(sortedCells(new int[] { 2,1, 3,1, 1,2, 2,2, 2,3 }), sortedCells(ok.cells(0, 0)));
+        // four clockwise turns come back to the start, and the I turns upright
+        assertArrayEquals(ok.cells(1, 0), ok.cells(1, 4));
+        assertArrayEquals(sortedCells(new int[] { 2,0, 2,1, 2,2, 2,3, 2,4 }), sortedCells(ok.cells(1, 1)));
+    }
+
+    @Test
+    void loadsFromAFileAndFingerprintsByContent() throws IOException {
+        Path file = Files.createTempFile("pieces", ".txt");
+        try {
+            Files.write(file, STANDARD_TEXT);
+            PieceSet loaded = PieceSet.load(file);
+            PieceSet parsed = PieceSet.parse(STANDARD_TEXT, "elsewhere");
+            assertEquals(file.toString(), loaded.getSource());
+            assertEquals(parsed.fingerprint(), loaded.fingerprint(), "the source doesn't matter");
+
+            List<String> renamed = new ArrayList<>(STANDARD_TEXT);
+            renamed.set(renamed.indexOf("piece O"), "piece Q");
+            assertNotEquals(parsed.fingerprint(), PieceSet.parse(renamed, "q").fingerprint());
+
+            List<String> bigger = new ArrayList<>(STANDARD_TEXT);
+            bigger.set(1, "box 5");
+            assertNotEquals(parsed.fingerprint(), PieceSet.parse(bigger, "b").fingerprint());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void cellsAreCopies() {
+        PieceSet std = PieceSet.standard();
+        int[] cells = std.cells(0, 0);
+        cells[0] = 99;
+        assertNotEquals(99, std.cells(0, 0)[0]);
+    }
+
+    @Test
+    void rejectsMalformedFiles() {
+        rejects("no pieces", List.of("// nothing here", ""));
+        rejects("no pieces", List.of("box 4"));
+        rejects("box must be", List.of("box 9", "piece A", "#"));
+        rejects("box must be", List.of("piece A", "#"));
+        rejects("grid must be square", List.of("piece A", "##", "#"));
+        rejects("blocks", List.of("piece A", "##", "#.", "piece B", "##", "##"));
+        rejects("grid row before any 'piece' line", List.of("##", "piece A", "##", "##"));
+        rejects("unknown line", List.of("piece A", "##", "#x"));
+        rejects("has no blocks", List.of("piece A", "..", ".."));
+        rejects("has no grid", List.of("piece A", "piece B", "##", "##"));
+        rejects("doesn't fit the box", List.of("box 3", "piece A 2 2", "##", "##"));
+        rejects("expected a number", List.of("box four"));
+        rejects("expected 'piece NAME [x y]'", List.of("piece A 1", "##", "##"));
+
+        List<String> many = new ArrayList<>(List.of("box 2"));
+        for (int p = 0; p <= PieceSet.MAX_PIECES; p++) many.addAll(List.of("piece P" + p, "#.", ".."));
+        rejects("more than " + PieceSet.MAX_PIECES, many);
+    }
+
+    private static void rejects(String message, List<String> lines) {
+        IOException e = assertThrows(IOException.class, () -> PieceSet.parse(lines, "test.txt"), lines.toString());
+        assertTrue(e.getMessage().contains(message), "'" + e.getMessage() + "' should mention '" + message + "'");
+        assertTrue(e.getMessage().startsWith("test.txt"), e.getMessage());
+    }
+
+    // cells as sorted (y, x) keys, so block order doesn't matter
+    private static int[] sortedCells(int[] xy) {
+        int[] keys = new int[xy.length / 2];
+        for (int i = 0; i < keys.length; i++) keys[i] = xy[2 * i + 1] * 64 + xy[2 * i];
+        Arrays.sort(keys);
+        return keys;
+    }
+}
@@ -0,0 +1,100 @@
+package tetris.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// A bag's sequence is a function of its seed alone: the same seed deals the same pieces
+// whatever was peeked on the way, splits and streams are reproducible and independent,
+// and every run of BAG_SIZE pieces is a permutation of the set.
+class RandomBagTest {
+    private static final ShapeType[] TYPES = ShapeType.values();
+
+    @Test
+    void sameSeedSameSequence() {
+        for (long seed = -3; seed < 50; seed++) {
+            assertArrayEquals(deal(new RandomBag(seed), 500), deal(new RandomBag(seed), 500), "seed " + seed);
+        }
+        assertFalse(Arrays.equals(deal(new RandomBag(1), 100), deal(new RandomBag(2), 100)));
+    }
+
+    @Test
+    void everyBagIsAPermutation() {
+        RandomBag bag = new RandomBag(11);
+        for (int b = 0; b < 1000; b++) {
+            long seen = 0;
+            for (int i = 0; i < TYPES.length; i++) {
+                assertEquals(seen == 0 ? RandomBag.allPieces() : RandomBag.allPieces() & ~seen, bag.remaining());
+                seen |= 1L << bag.next().ordinal();
+            }
+            assertEquals(RandomBag.allPieces(), seen, "bag " + b);
+        }
+    }
+
+    @Test
+    void peekingDoesNotChangeTheSequence() {
+        SplittableRandom rng = new SplittableRandom(5);
+        for (long seed = 0; seed < 20; seed++) {
+            ShapeType[] expected = deal(new RandomBag(seed), 300);
+            RandomBag bag = new RandomBag(seed);
+            for (int i = 0; i < expected.length; i++) {
+                int ahead = rng.nextInt(16);
+                if (i + ahead < expected.length) assertEquals(expected[i + ahead], bag.peek(ahead), "peek " + ahead + " at " + i);
+                assertEquals(expected[i], bag.peek(0));
+                assertEquals(expected[i], bag.next(), "piece " + i + " of seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void splitsAreReproducibleAndIndependent() {
+        RandomBag a = new RandomBag(99);
+        RandomBag b = new RandomBag(99);
+        RandomBag childA = a.split();
+        RandomBag childB = b.split();
+        assertArrayEquals(deal(childA, 300), deal(childB, 300));
+        assertArrayEquals(deal(a, 300), deal(b, 300), "splitting moves both parents alike");
+
+        RandomBag parent = new RandomBag(99);
+        ShapeType[] first = deal(parent.split(), 300);
+        ShapeType[] second = deal(parent.split(), 300);
+        assertFalse(Arrays.equals(first, second), "consecutive splits share a sequence");
+    }
+
+    @Test
+    void streamsAreReproducible() {
+        RandomBag[] x = RandomBag.streams(7, 8);
+        RandomBag[] y = RandomBag.streams(7, 8);
+        ShapeType[][] dealt = new ShapeType[x.length][];
+        for (int i = 0; i < x.length; i++) {
+            dealt[i] = deal(x[i], 200);
+            assertArrayEquals(dealt[i], deal(y[i], 200), "stream " + i);
+        }
+        for (int i = 1; i < dealt.length; i++) {
+            assertFalse(Arrays.equals(dealt[0], dealt[i]), "streams 0 and " + i + " agree");
+        }
+    }
+
+    @Test
+    void reseedStartsOver() {
+        RandomBag bag = new RandomBag(1);
+        deal(bag, 10);
+        bag.peek(12);
+        bag.reseed(1234);
+        assertArrayEquals(deal(new RandomBag(1234), 300), deal(bag, 300));
+        assertNotEquals(RandomBag.successor(1234), 1234);
+        assertEquals(RandomBag.successor(1234), RandomBag.successor(1234));
+    }
+
+    private static ShapeType[] deal(RandomBag bag, int n) {
+        ShapeType[] out = new ShapeType[n];
+        for (int i = 0; i < n; i++) out[i] = bag.next();
+        return out;
+    }
+}
@@ -0,0 +1,59 @@
+package tetris.loop;
+
+import org.junit.jupiter.api.Test;
+import tetris.core.Command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The key-event ring keeps FIFO order, refuses events when full instead of overwriting,
+// and loses nothing between one producer and one consumer thread.
+class InputQueueTest {
+    @Test
+    void encoding() {
+        for (Command c : Command.values()) {
+            assertEquals(c, InputQueue.command(InputQueue.press(c)));
+            assertEquals(c, InputQueue.command(InputQueue.release(c)));
+            assertTrue(InputQueue.isPress(InputQueue.press(c)));
+            assertFalse(InputQueue.isPress(InputQueue.release(c)));
+        }
+    }
+
+    @Test
+    void fifoAndFull() {
+        InputQueue q = new InputQueue(8);
+        assertEquals(InputQueue.EMPTY, q.poll());
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 8; i++) assertTrue(q.offer(round * 8 + i));
+            assertFalse(q.offer(99), "offer to a full ring");
+            for (int i = 0; i < 8; i++) assertEquals(round * 8 + i, q.poll());
+            assertEquals(InputQueue.EMPTY, q.poll());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new InputQueue(12));
+    }
+
+    @Test
+    void oneProducerOneConsumer() throws InterruptedException {
+        InputQueue q = new InputQueue(16);
+        int n = 1_000_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < n; i++) {
+                while (!q.offer(i)) Thread.yield();
+            }
+        }, "producer");
+        producer.start();
+
+        for (int expected = 0; expected < n; ) {
+            int e = q.poll();
+            if (e == InputQueue.EMPTY) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(expected++, e);
+        }
+        producer.join();
+        assertEquals(InputQueue.EMPTY, q.poll());
+    }
+}
@@ -0,0 +1,135 @@
+package tetris.replay;
+
+import org.junit.jupiter.api.Test;
+import tetris.core.Command;
+import tetris.core.Game;
+import tetris.core.GameSnapshot;
+import tetris.core.PieceSet;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Recorded games survive a write/read round trip, play back to the recorded result, and
+// seeking anywhere (backwards, forwards, over keyframes) lands on the same state as
+// playing straight there from the start.
+class ReplayTest {
+    private static final Command[] MOVES = {
+        Command.LEFT, Command.RIGHT, Command.ROTATE, Command.SOFT_DROP, Command.HARD_DROP
+    };
+
+    @Test
+    void roundTripAndValidate() throws IOException {
+        for (long seed = 0; seed < 5; seed++) {
+            Replay replay = record(10, 20, seed, 20_000);
+            Replay loaded = reload(replay);
+            assertEquals(replay.getWidth(), loaded.getWidth());
+            assertEquals(replay.getHeight(), loaded.getHeight());
+            assertEquals(replay.getSeed(), loaded.getSeed());
+            assertEquals(PieceSet.active().fingerprint(), loaded.getPieceSet());
+            assertArrayEquals(replay.events(), loaded.events());
+            assertEquals(replay.getScore(), loaded.getScore());
+            assertEquals(replay.getLines(), loaded.getLines());
+            assertEquals(replay.getLevel(), loaded.getLevel());
+            assertEquals(replay.getPieces(), loaded.getPieces());
+            assertTrue(new ReplayPlayer(loaded).validate(), "seed " + seed);
+        }
+    }
+
+    @Test
+    void tallAndWideBoards() throws IOException {
+        Replay replay = reload(record(64, 300, 9L, 5_000));
+        assertEquals(64, replay.getWidth());
+        assertEquals(300, replay.getHeight());
+        assertTrue(new ReplayPlayer(replay).validate());
+    }
+
+    @Test
+    void wrongResultFailsValidation() {
+        Replay r = record(10, 20, 1L, 5_000);
+        Replay forged = new Replay(r.getWidth(), r.getHeight(), r.getSeed(), r.getPieceSet(), r.events(),
+                r.getScore() + 1, r.getLines(), r.getLevel(), r.getPieces());
+        assertFalse(new ReplayPlayer(forged).validate());
+    }
+
+    @Test
+    void seekMatchesPlayingFromTheStart() {
+        Replay replay = record(10, 20, 4L, 30_000);
+        ReplayPlayer seeker = new ReplayPlayer(replay, 100);
+        GameSnapshot snapshot = GameSnapshot.forGame(seeker.getGame());
+        long[] expected = new long[snapshot.words()];
+        long[] actual = new long[snapshot.words()];
+
+        SplittableRandom rng = new SplittableRandom(2);
+        for (int i = 0; i < 60; i++) {
+            long target = rng.nextLong(30_000);
+            seeker.seek(target);
+            ReplayPlayer straight = new ReplayPlayer(replay, 1_000_000);
+            straight.seek(target);
+
+            assertEquals(straight.getTick(), seeker.getTick());
+            snapshot.save(straight.getGame(), expected, 0);
+            snapshot.save(seeker.getGame(), actual, 0);
+            assertArrayEquals(expected, actual, "state after seeking to tick " + target);
+        }
+
+        seeker.seek(0);
+        assertEquals(0, seeker.getTick());
+        assertTrue(seeker.validate(), "validate after seeking around");
+    }
+
+    @Test
+    void rejectsOtherFilesAndPieceSets() throws IOException {
+        byte[] bytes = bytes(record(10, 20, 1L, 2_000));
+
+        byte[] magic = bytes.clone();
+        magic[0] = 'X';
+        assertThrows(IOException.class, () -> read(magic));
+
+        // "TRPL" | version | width | height | seed i64 | piece set i64
+        byte[] otherSet = bytes.clone();
+        ByteBuffer.wrap(otherSet).putLong(15, PieceSet.active().fingerprint() ^ 1);
+        IOException e = assertThrows(IOException.class, () -> read(otherSet));
+        assertTrue(e.getMessage().contains("piece set"), e.getMessage());
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+        assertThrows(IOException.class, () -> read(truncated));
+    }
+
+    // plays random input, a command on about one tick in four, restarting after a top-out
+    private static Replay record(int width, int height, long seed, int ticks) {
+        Game game = new Game(width, height, seed);
+        ReplayRecorder recorder = new ReplayRecorder(game);
+        SplittableRandom rng = new SplittableRandom(seed);
+        for (int t = 0; t < ticks; t++) {
+            if (game.isGameOver()) game.onCommand(Command.RESTART);
+            else if (rng.nextInt(4) == 0) game.onCommand(MOVES[rng.nextInt(MOVES.length)]);
+            game.tick();
+        }
+        return recorder.finish();
+    }
+
+    private static Replay reload(Replay replay) throws IOException {
+        return read(bytes(replay));
+    }
+
+    private static byte[] bytes(Replay replay) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        replay.writeTo(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private static Replay read(byte[] bytes) throws IOException {
+        return Replay.readFrom(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+}
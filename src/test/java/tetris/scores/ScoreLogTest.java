@@ -0,0 +1,161 @@
+package tetris.scores;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tetris.sim.GameResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Recovery after a crash keeps exactly the records that made it: a count ahead of its
+// records falls back to the valid prefix, records written after the last count update
+// are picked up, a torn record and everything after it is dropped for good, and the
+// index catches up with whatever the log kept.
+class ScoreLogTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopenKeepsEverything() throws IOException {
+        Path file = dir.resolve("scores");
+        try (ScoreLog log = ScoreLog.open(file)) {
+            for (int i = 0; i < 1000; i++) assertEquals(i, log.append(result(i)));
+        }
+        try (ScoreLog log = ScoreLog.open(file)) {
+            assertEquals(1000, log.size());
+            assertEquals(0, log.getRecovered());
+            for (int i = 0; i < 1000; i++) assertSameResult(result(i), log.get(i));
+        }
+    }
+
+    @Test
+    void countAheadOfItsRecords() throws IOException {
+        Path file = dir.resolve("ahead");
+        write(file, 500);
+        // the header page reached the disk, the last 40 record pages didn't
+        zeroRecords(file, 460, 500);
+
+        try (ScoreLog log = ScoreLog.open(file)) {
+            assertEquals(460, log.size());
+            assertEquals(-40, log.getRecovered());
+            assertSameResult(result(459), log.get(459));
+        }
+    }
+
+    @Test
+    void recordsPastTheCount() throws IOException {
+        Path file = dir.resolve("past");
+        write(file, 300);
+        setCount(file, 297); // killed after writing records, before the count moved
+
+        try (ScoreLog log = ScoreLog.open(file)) {
+            assertEquals(300, log.size());
+            assertEquals(3, log.getRecovered());
+            assertSameResult(result(299), log.get(299));
+        }
+    }
+
+    @Test
+    void tornRecordIsDroppedForGood() throws IOException {
+        Path file = dir.resolve("torn");
+        write(file, 200);
+        corrupt(file, 190);
+
+        try (ScoreLog log = ScoreLog.open(file)) {
+            assertEquals(190, log.size());
+            assertEquals(-10, log.getRecovered());
+            // the next append takes the torn slot; the dropped records after it must not return
+            assertEquals(190, log.append(result(1000)));
+        }
+        setCount(file, 190); // as if that append's count update was lost
+        try (ScoreLog log = ScoreLog.open(file)) {
+            assertEquals(191, log.size());
+            assertSameResult(result(1000), log.get(190));
+        }
+    }
+
+    @Test
+    void killedProcessLosesNothing() throws IOException {
+        // a log that was never closed (its process killed, the page cache intact) opens
+        // with every record, well past the RECHECK window
+        Path file = dir.resolve("live");
+        ScoreLog live = ScoreLog.open(file);
+        for (int i = 0; i < 5000; i++) live.append(result(i));
+        try (ScoreLog other = ScoreLog.open(file)) {
+            assertEquals(5000, other.size());
+            assertEquals(0, other.getRecovered());
+        } finally {
+            live.close();
+        }
+    }
+
+    @Test
+    void storeIndexFollowsRecovery() throws IOException {
+        Path file = dir.resolve("store");
+        try (ScoreStore store = ScoreStore.open(file, 10)) {
+            for (int i = 0; i < 100; i++) store.record(result(i));
+            assertEquals(List.of(99, 98, 97), scores(store.top(3)));
+            assertEquals(1, store.rankOf(10_000));
+            assertEquals(0, store.rankOf(0), "a zero score doesn't make a full top 10");
+        }
+        // the best games never reached the disk
+        zeroRecords(file, 95, 100);
+        try (ScoreStore store = ScoreStore.open(file, 10)) {
+            assertEquals(95, store.size());
+            assertEquals(List.of(94, 93, 92), scores(store.top(3)));
+        }
+    }
+
+    private static GameResult result(int i) {
+        return new GameResult(i * 31L, i, i / 2, 1 + i / 10, i * 100L, i * 3);
+    }
+
+    private static void assertSameResult(GameResult expected, GameResult actual) {
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getLines(), actual.getLines());
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getFrames(), actual.getFrames());
+        assertEquals(expected.getPieces(), actual.getPieces());
+    }
+
+    private static List<Integer> scores(List<GameResult> results) {
+        return results.stream().map(GameResult::getScore).toList();
+    }
+
+    private static void write(Path file, int n) throws IOException {
+        try (ScoreLog log = ScoreLog.open(file)) {
+            for (int i = 0; i < n; i++) log.append(result(i));
+        }
+    }
+
+    // raw edits to a closed log, standing in for what a crash leaves behind
+
+    private static void zeroRecords(Path file, long from, long to) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate((int) (to - from) * ScoreLog.RECORD), ScoreLog.HEADER + from * ScoreLog.RECORD);
+        }
+    }
+
+    private static void corrupt(Path file, long record) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            long at = ScoreLog.HEADER + record * ScoreLog.RECORD + 17;
+            ch.read(b, at);
+            b.put(0, (byte) (b.get(0) ^ 0x40)).rewind();
+            ch.write(b, at);
+        }
+    }
+
+    private static void setCount(Path file, long count) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(8).putLong(0, count), 16);
+        }
+    }
+}
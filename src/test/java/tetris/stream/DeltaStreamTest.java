@@ -0,0 +1,118 @@
+package tetris.stream;
+
+import org.junit.jupiter.api.Test;
+import tetris.core.Board;
+import tetris.core.Command;
+import tetris.core.Game;
+import tetris.core.Tetromino;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A decoder fed DeltaEncoder frames rebuilds a Board identical to the game's (cells, row
+// masks, hash and features) plus the same pieces, score and state, whether it gets every
+// frame or loses some and recovers through keyframes.
+class DeltaStreamTest {
+    private static final Command[] MOVES = {
+        Command.LEFT, Command.RIGHT, Command.ROTATE, Command.SOFT_DROP, Command.HARD_DROP
+    };
+
+    @Test
+    void receiverThatGetsEveryFrame() throws IOException {
+        run(10, 20, 1L, 0, 0);
+        run(13, 40, 2L, 0, 0);
+        run(64, 64, 3L, 0, 0);
+    }
+
+    @Test
+    void lossyReceiverRecovers() throws IOException {
+        run(10, 20, 4L, 0, 30);
+        run(10, 20, 5L, 50, 30);
+        run(7, 25, 6L, 10, 60);
+    }
+
+    @Test
+    void fanOutSharesBytesAndRefusesStaleDeltas() throws IOException {
+        Game game = new Game(10, 20, 7L);
+        DeltaEncoder enc = new DeltaEncoder(10, 20, 0);
+        DeltaDecoder dec = new DeltaDecoder(10, 20);
+        ByteBuffer a = ByteBuffer.allocate(enc.maxFrameBytes());
+        ByteBuffer b = ByteBuffer.allocate(enc.maxFrameBytes());
+
+        enc.capture(game);
+        a.clear();
+        assertTrue(enc.writeTo(0, a));
+        assertTrue(dec.apply(a.flip()));
+        long first = dec.getSeq();
+
+        game.onCommand(Command.HARD_DROP);
+        enc.capture(game);
+        a.clear();
+        b.clear();
+        assertTrue(enc.writeTo(first, a));
+        assertTrue(enc.writeTo(first, b));
+        assertEquals(a.flip(), b.flip(), "two receivers at the same ack got different bytes");
+        ByteBuffer stale = ByteBuffer.allocate(a.remaining()).put(a.duplicate()).flip();
+        assertTrue(dec.apply(a));
+        assertMirrors(game, dec, "after the delta");
+
+        // the same delta again is older than what the decoder has
+        assertFalse(dec.apply(stale));
+        assertFalse(enc.writeTo(dec.getSeq(), b.clear()), "a current receiver needs nothing");
+    }
+
+    // dropPercent of frames never arrive; the receiver acks the last frame it applied
+    private static void run(int width, int height, long seed, int keyframeInterval, int dropPercent) throws IOException {
+        SplittableRandom rng = new SplittableRandom(seed);
+        Game game = new Game(width, height, seed);
+        DeltaEncoder enc = new DeltaEncoder(width, height, keyframeInterval);
+        DeltaDecoder dec = new DeltaDecoder(width, height);
+        ByteBuffer wire = ByteBuffer.allocate(enc.maxFrameBytes());
+
+        for (int frame = 0; frame < 20_000; frame++) {
+            if (game.isGameOver()) game.onCommand(Command.RESTART);
+            else if (rng.nextInt(3) == 0) game.onCommand(MOVES[rng.nextInt(MOVES.length)]);
+            game.tick();
+
+            enc.capture(game);
+            wire.clear();
+            if (!enc.encode(dec.getSeq(), wire)) continue;
+            if (rng.nextInt(100) < dropPercent) continue;
+            wire.flip();
+            assertTrue(dec.apply(wire), "frame " + frame);
+            assertEquals(wire.limit(), wire.position());
+            assertMirrors(game, dec, "frame " + frame);
+        }
+    }
+
+    private static void assertMirrors(Game game, DeltaDecoder dec, String where) {
+        Board expected = game.getBoard();
+        Board actual = dec.getBoard();
+        for (int y = 0; y < expected.getHeight(); y++) {
+            assertArrayEquals(expected.getGrid()[y], actual.getGrid()[y], "row " + y + " at " + where);
+            assertEquals(expected.getRowMask(y), actual.getRowMask(y), "mask of row " + y + " at " + where);
+        }
+        assertEquals(expected.getHash(), actual.getHash(), "hash at " + where);
+        for (int x = 0; x < expected.getWidth(); x++) {
+            assertEquals(expected.getColumnHeight(x), actual.getColumnHeight(x), "column " + x + " at " + where);
+            assertEquals(expected.getFeatures().columnHoles(x), actual.getFeatures().columnHoles(x), "holes " + x + " at " + where);
+        }
+
+        Tetromino a = game.getActive();
+        assertEquals(a.getType(), dec.getActiveType(), where);
+        assertEquals(a.getRotation(), dec.getActiveRotation(), where);
+        assertEquals(a.getX(), dec.getActiveX(), where);
+        assertEquals(a.getY(), dec.getActiveY(), where);
+        assertEquals(game.getNext().getType(), dec.getNextType(), where);
+        assertEquals(game.getScore().getScore(), dec.getScore(), where);
+        assertEquals(game.getScore().getLines(), dec.getLines(), where);
+        assertEquals(game.getScore().getLevel(), dec.getLevel(), where);
+        assertEquals(DeltaEncoder.stateCode(game), dec.getState(), where);
+    }
+}
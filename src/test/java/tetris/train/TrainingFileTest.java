@@ -0,0 +1,231 @@
+package tetris.train;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tetris.core.Board;
+import tetris.core.BoardFeatures;
+import tetris.core.Command;
+import tetris.core.Game;
+import tetris.core.ShapeType;
+import tetris.core.Tetromino;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// What TrainingWriter appends, TrainingReader maps back unchanged: every column of every
+// position, across appends that straddle chunk boundaries and a short final chunk that
+// takes no more room than its rows. A file cut off mid-chunk keeps its whole chunks.
+class TrainingFileTest {
+    private static final Command[] MOVES = {
+        Command.LEFT, Command.RIGHT, Command.ROTATE, Command.SOFT_DROP, Command.HARD_DROP
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripWithShortFinalChunk() throws IOException {
+        roundTrip(10, 20, 64, 1000, 1L);  // 15 full chunks and one of 40
+        roundTrip(13, 11, 7, 100, 2L);    // boards straddle long boundaries; last chunk of 2
+        roundTrip(4, 6, 1000, 5, 3L);     // a single short chunk
+    }
+
+    @Test
+    void cutOffChunkIsIgnored() throws IOException {
+        Path file = dir.resolve("cut.bin");
+        List<Position> expected = write(file, 10, 20, 50, 170, 4L);
+        long whole = Files.size(file);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(whole - 100);
+        }
+        try (TrainingReader r = TrainingReader.open(file)) {
+            assertEquals(3, r.getChunkCount());
+            assertEquals(150, r.getRows());
+            assertEquals(whole - 100 - chunkStart(10, 20, 50, 3), r.getIgnoredBytes());
+            assertPositions(r, expected.subList(0, 150));
+        }
+    }
+
+    @Test
+    void recorderLabelsFinishedGames() throws IOException {
+        Path file = dir.resolve("games.bin");
+        SplittableRandom rng = new SplittableRandom(5);
+        List<int[]> games = new ArrayList<>(); // pieces placed, score
+        try (TrainingWriter w = TrainingWriter.open(file, 10, 20, 100)) {
+            for (int g = 0; g < 5; g++) {
+                Game game = new Game(10, 20, 100L + g);
+                PositionRecorder recorder = new PositionRecorder(w);
+                game.addListener(recorder);
+                while (!game.isGameOver()) {
+                    if (rng.nextInt(3) == 0) game.onCommand(MOVES[rng.nextInt(MOVES.length)]);
+                    game.tick();
+                }
+                games.add(new int[] { game.getPiecesPlaced(), game.getScore().getScore() });
+            }
+        }
+
+        try (TrainingReader r = TrainingReader.open(file)) {
+            long total = 0;
+            for (int[] g : games) total += g[0];
+            assertEquals(total, r.getRows());
+
+            int g = 0;
+            int next = 0;
+            for (int i = 0; i < r.getChunkCount(); i++) {
+                TrainingReader.Chunk c = r.chunk(i);
+                for (int row = 0; row < c.rows(); row++) {
+                    int[] game = games.get(g);
+                    assertEquals(100L + g, c.seed(row));
+                    assertEquals(next, c.piece(row));
+                    assertEquals(game[0] - next, c.piecesLeft(row), "pieces to top-out");
+                    assertEquals(game[1], c.finalScore(row));
+                    if (++next == game[0]) {
+                        g++;
+                        next = 0;
+                    }
+                }
+            }
+            assertEquals(games.size(), g);
+        }
+    }
+
+    @Test
+    void rejectsMismatchedBoardsAndUseAfterClose() throws IOException {
+        TrainingWriter w = TrainingWriter.open(dir.resolve("w.bin"), 10, 20, 16);
+        assertThrows(IllegalArgumentException.class, () -> w.append(new PositionBatch(10, 21)));
+        w.close();
+        assertThrows(IllegalStateException.class, () -> w.append(new PositionBatch(10, 20)));
+        assertThrows(IllegalArgumentException.class, () -> TrainingWriter.open(dir.resolve("x.bin"), 10, 20, 0));
+    }
+
+    private void roundTrip(int width, int height, int chunkRows, int rows, long seed) throws IOException {
+        Path file = dir.resolve("round-" + seed + ".bin");
+        List<Position> expected = write(file, width, height, chunkRows, rows, seed);
+        try (TrainingReader r = TrainingReader.open(file)) {
+            assertEquals(width, r.getWidth());
+            assertEquals(height, r.getHeight());
+            assertEquals(ShapeType.count(), r.getPieceTypes());
+            assertEquals(rows, r.getRows());
+            assertEquals((rows + chunkRows - 1) / chunkRows, r.getChunkCount());
+            assertEquals(0, r.getIgnoredBytes());
+            int last = rows % chunkRows == 0 ? chunkRows : rows % chunkRows;
+            assertEquals(last, r.chunk(r.getChunkCount() - 1).rows());
+            // the short chunk is packed to its rows, not the chunk buffer's size
+            long full = TrainingFormat.offsets(width, height, chunkRows)[Column.all().length];
+            long packed = TrainingFormat.offsets(width, height, last)[Column.all().length];
+            assertEquals(TrainingFormat.HEADER + (r.getChunkCount() - 1) * full + packed, Files.size(file));
+            assertPositions(r, expected);
+        }
+    }
+
+    // plays a game with random moves, appending a position every few frames in batches of
+    // random sizes, and returns what each position should read back as
+    private static List<Position> write(Path file, int width, int height, int chunkRows, int rows, long seed)
+            throws IOException {
+        SplittableRandom rng = new SplittableRandom(seed);
+        Game game = new Game(width, height, seed);
+        PositionBatch batch = new PositionBatch(width, height);
+        List<Position> expected = new ArrayList<>();
+        try (TrainingWriter w = TrainingWriter.open(file, width, height, chunkRows)) {
+            int batchSize = 1 + rng.nextInt(2 * chunkRows);
+            while (expected.size() < rows) {
+                if (game.isGameOver()) game.onCommand(Command.RESTART);
+                else if (rng.nextInt(3) == 0) game.onCommand(MOVES[rng.nextInt(MOVES.length)]);
+                game.tick();
+                if (rng.nextInt(4) != 0) continue;
+
+                Position p = new Position(game, rng);
+                int i = batch.size();
+                batch.add(game.getBoard(), game.getActive(), game.getNext(), p.piece, p.seed);
+                batch.cleared[i] = (byte) p.cleared;
+                batch.piecesLeft[i] = p.piecesLeft;
+                batch.finalScore[i] = p.finalScore;
+                expected.add(p);
+                if (batch.size() == batchSize || expected.size() == rows) {
+                    w.append(batch);
+                    batch.clear();
+                    batchSize = 1 + rng.nextInt(2 * chunkRows);
+                }
+            }
+            assertEquals(rows, w.getRows());
+            assertEquals(rows / chunkRows, w.getChunks(), "only full chunks are handed off before close()");
+        }
+        return expected;
+    }
+
+    private static long chunkStart(int width, int height, int chunkRows, int chunks) {
+        return TrainingFormat.HEADER + chunks * TrainingFormat.offsets(width, height, chunkRows)[Column.all().length];
+    }
+
+    private static void assertPositions(TrainingReader r, List<Position> expected) throws IOException {
+        int n = 0;
+        for (int i = 0; i < r.getChunkCount(); i++) {
+            TrainingReader.Chunk c = r.chunk(i);
+            for (int row = 0; row < c.rows(); row++, n++) {
+                Position p = expected.get(n);
+                String where = "position " + n;
+                for (int y = 0; y < p.cells.length; y++) {
+                    for (int x = 0; x < p.cells[y].length; x++) {
+                        assertEquals(p.cells[y][x], c.filled(row, x, y), where + " cell " + x + "," + y);
+                    }
+                }
+                for (int x = 0; x < p.heights.length; x++) assertEquals(p.heights[x], c.columnHeight(row, x), where);
+                for (int f = 0; f < Column.FEATURE_COUNT; f++) assertEquals(p.features[f], c.feature(row, f), where);
+                assertEquals(p.active, c.active(row), where);
+                assertEquals(p.next, c.next(row), where);
+                assertEquals(p.rotation, c.rotation(row), where);
+                assertEquals(p.x, c.x(row), where);
+                assertEquals(p.y, c.y(row), where);
+                assertEquals(p.cleared, c.cleared(row), where);
+                assertEquals(p.piecesLeft, c.piecesLeft(row), where);
+                assertEquals(p.finalScore, c.finalScore(row), where);
+                assertEquals(p.piece, c.piece(row), where);
+                assertEquals(p.seed, c.seed(row), where);
+            }
+        }
+        assertEquals(expected.size(), n);
+    }
+
+    // one position as plain values, taken from the game when it was staged
+    private static final class Position {
+        final boolean[][] cells;
+        final int[] heights;
+        final int[] features;
+        final int active, next, rotation, x, y;
+        final int cleared, piecesLeft, finalScore, piece;
+        final long seed;
+
+        Position(Game game, SplittableRandom rng) {
+            Board board = game.getBoard();
+            cells = new boolean[board.getHeight()][board.getWidth()];
+            heights = new int[board.getWidth()];
+            for (int y = 0; y < board.getHeight(); y++) {
+                for (int x = 0; x < board.getWidth(); x++) cells[y][x] = board.getGrid()[y][x] != 0;
+            }
+            BoardFeatures f = board.getFeatures();
+            for (int x = 0; x < heights.length; x++) heights[x] = f.columnHeight(x);
+            features = new int[] { f.aggregateHeight(), f.holes(), f.bumpiness(), f.maxHeight(), f.maxWellDepth() };
+
+            Tetromino t = game.getActive();
+            active = t.getType().ordinal();
+            next = game.getNext().getType().ordinal();
+            rotation = t.getRotation();
+            x = t.getX();
+            y = t.getY();
+            cleared = rng.nextInt(5);
+            piecesLeft = rng.nextInt(3) == 0 ? -1 : rng.nextInt(100_000);
+            finalScore = rng.nextInt();
+            piece = game.getPiecesPlaced();
+            seed = rng.nextLong();
+        }
+    }
+}
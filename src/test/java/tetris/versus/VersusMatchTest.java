@@ -0,0 +1,99 @@
+package tetris.versus;
+
+import org.junit.jupiter.api.Test;
+import tetris.ai.BeamSearchPolicy;
+import tetris.ai.HeuristicEvaluator;
+import tetris.sim.BatchRunner;
+import tetris.sim.GameResult;
+import tetris.sim.Policy;
+import tetris.sim.RandomPolicy;
+
+import java.util.List;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A match is a function of its seed: replaying one gives the same frames, garbage and
+// places, and a tournament's results don't depend on how many threads played it.
+// Garbage is accounted for: every row sent to a live player is cancelled, rises, or
+// is still queued.
+class VersusMatchTest {
+    private static final long MAX_FRAMES = 4000;
+    private static final LongFunction<? extends Policy> GREEDY =
+            s -> new BeamSearchPolicy(10, 20, 1, 1, new HeuristicEvaluator());
+
+    @Test
+    void sameSeedSameMatch() {
+        for (long seed = 1; seed <= 4; seed++) {
+            VersusMatch a = match(seed);
+            VersusMatch b = match(seed);
+            while (true) {
+                boolean more = a.step();
+                assertEquals(more, b.step());
+                for (int p = 0; p < a.getPlayers(); p++) {
+                    assertEquals(a.getGame(p).getBoard().getHash(), b.getGame(p).getBoard().getHash(),
+                            "seat " + p + " frame " + a.getFrame());
+                    assertEquals(a.getPendingGarbage(p), b.getPendingGarbage(p));
+                }
+                if (!more || a.getFrame() == MAX_FRAMES) break;
+            }
+            assertSameResult(a.result(), b.result());
+        }
+    }
+
+    @Test
+    void tournamentIgnoresParallelism() {
+        List<LongFunction<? extends Policy>> bots = List.of(GREEDY, GREEDY, RandomPolicy::new);
+        MatchResult[] one = new Tournament(10, 20, MAX_FRAMES, 1).run(bots, 8, 7L);
+        MatchResult[] four = new Tournament(10, 20, MAX_FRAMES, 4).run(bots, 8, 7L);
+        long[] seeds = BatchRunner.seeds(7L, 8);
+        int garbage = 0;
+        for (int i = 0; i < seeds.length; i++) {
+            assertSameResult(one[i], four[i]);
+            // and each is the match its seed plays on its own
+            assertSameResult(match(seeds[i]).play(MAX_FRAMES), one[i]);
+            for (int p = 0; p < 3; p++) garbage += one[i].getSent(p);
+        }
+        assertTrue(garbage > 0, "no garbage was exchanged; the matches test too little");
+    }
+
+    @Test
+    void garbageIsAccountedFor() {
+        for (long seed = 10; seed < 14; seed++) {
+            VersusMatch m = new VersusMatch(10, 20, seed, GREEDY.apply(seed), GREEDY.apply(seed + 1));
+            while (m.getFrame() < MAX_FRAMES && m.step()) {
+                MatchResult r = m.result();
+                for (int p = 0; p < 2; p++) {
+                    // in a live two-player match all of one seat's garbage went to the other
+                    int q = 1 - p;
+                    assertEquals(r.getSent(p), r.getReceived(q) + r.getCancelled(q) + m.getPendingGarbage(q),
+                            "seed " + seed + " frame " + m.getFrame());
+                }
+            }
+        }
+    }
+
+    private static VersusMatch match(long seed) {
+        return new VersusMatch(10, 20, seed, GREEDY.apply(seed), GREEDY.apply(seed + 1), new RandomPolicy(seed + 2));
+    }
+
+    private static void assertSameResult(MatchResult expected, MatchResult actual) {
+        assertEquals(expected.getWinner(), actual.getWinner());
+        assertEquals(expected.getFrames(), actual.getFrames());
+        assertEquals(expected.getPlayers(), actual.getPlayers());
+        for (int p = 0; p < expected.getPlayers(); p++) {
+            String seat = "seat " + p;
+            assertEquals(expected.getPlace(p), actual.getPlace(p), seat);
+            assertEquals(expected.getSent(p), actual.getSent(p), seat);
+            assertEquals(expected.getReceived(p), actual.getReceived(p), seat);
+            assertEquals(expected.getCancelled(p), actual.getCancelled(p), seat);
+            GameResult e = expected.getGame(p);
+            GameResult a = actual.getGame(p);
+            assertEquals(e.getScore(), a.getScore(), seat);
+            assertEquals(e.getLines(), a.getLines(), seat);
+            assertEquals(e.getFrames(), a.getFrames(), seat);
+            assertEquals(e.getPieces(), a.getPieces(), seat);
+        }
+    }
+}
@@ -1,12 +1,37 @@
 package tetris;
 
 import javax.swing.SwingUtilities;
+import tetris.metrics.Metrics;
+import tetris.metrics.MetricsSink;
+import tetris.scores.ScoreStore;
 import tetris.ui.GameWindow;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 public class App {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // -Dtetris.metrics=true exposes engine metrics over JMX; -Dtetris.metricsSeconds=N also prints them
+        if (Metrics.ENABLED) {
+            int period = Integer.getInteger("tetris.metricsSeconds", 0);
+            if (period > 0) Metrics.addSink(MetricsSink.STDOUT);
+            Metrics.start(period);
+        }
+        // -Dtetris.scores=<file> keeps every finished game (ScoreStore <file> prints the leaderboard)
+        String file = System.getProperty("tetris.scores");
+        ScoreStore scores = (file != null) ? ScoreStore.open(Path.of(file)) : null;
+        if (scores != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    scores.close();
+                } catch (IOException e) {
+                    System.err.println("closing " + file + ": " + e);
+                }
+            }, "scores-close"));
+        }
+
         SwingUtilities.invokeLater(() -> {
-            GameWindow w = new GameWindow();
+            GameWindow w = new GameWindow(scores);
             w.setVisible(true);
         });
     }
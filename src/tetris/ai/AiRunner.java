@@ -0,0 +1,51 @@
+package tetris.ai;
+
+import tetris.core.Game;
+import tetris.metrics.Metrics;
+import tetris.metrics.MetricsSink;
+import tetris.sim.GameResult;
+import tetris.sim.SimRunner;
+import tetris.sim.Simulator;
+
+// Plays a few games with the beam-search autoplayer on one thread and reports
+// how many placements the search evaluates per second. With -Dtetris.expectimaxMillis=N
+// the games are played by the parallel ExpectimaxSearch instead, N ms per piece.
+public final class AiRunner {
+    private AiRunner() {}
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int beamWidth = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int ttLog2 = args.length > 3 ? Integer.parseInt(args[3]) : 0; // 0 = no transposition table
+        long maxFrames = 200_000;
+        int expectimaxMillis = Integer.getInteger("tetris.expectimaxMillis", 0);
+
+        TranspositionTable table = (ttLog2 > 0) ? new TranspositionTable(ttLog2) : null;
+        Metrics.start(0);
+
+        long evaluated = 0;
+        long pieces = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            PlacementSearch search = (expectimaxMillis > 0)
+                    ? new ExpectimaxSearch(10, 20, expectimaxMillis)
+                    : new BeamSearch(10, 20, beamWidth, depth, new HeuristicEvaluator(), table);
+            BeamSearchPolicy policy = new BeamSearchPolicy(search);
+            GameResult r = SimRunner.play(new Simulator(new Game(10, 20, i)), policy, maxFrames);
+            evaluated += policy.getEvaluated();
+            pieces += r.getPieces();
+            System.out.println("game " + i + ": " + r);
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d pieces, %d placements evaluated in %.2fs (%.0f evaluations/s, %.0f pieces/s)%n",
+                pieces, evaluated, secs, evaluated / secs, pieces / secs);
+        if (table != null) System.out.println(table.report());
+
+        if (Metrics.ENABLED) {
+            Metrics.addSink(MetricsSink.STDOUT);
+            Metrics.report();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package tetris.ai;
+
+import tetris.core.Board;
+import tetris.core.Game;
+import tetris.core.ShapeType;
+import tetris.core.Tetromino;
+import tetris.sim.Action;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Beam search over placements of the active piece and the upcoming preview queue.
+// Each level expands every beam board with every reachable placement, scores the
+// result and keeps the best beamWidth boards. Boards, generators and candidate
+// arrays are allocated once and reused for every search.
+//
+// With a TranspositionTable, a board reached again through a different move order is
+// dropped if the current level already has it, and its score is reused otherwise.
+public class BeamSearch implements PlacementSearch {
+    // level stamps are unique across all searches sharing a table (mod 2^24)
+    private static final AtomicInteger STAMPS = new AtomicInteger();
+
+    private final int beamWidth;
+    private final int depth;
+    private final int spawnX;
+    private final Evaluator evaluator;
+    private final TranspositionTable table; // may be null
+
+    private final PlacementGenerator rootGen;
+    private final PlacementGenerator gen;
+    private final Board scratch;
+
+    private Board[] beam;
+    private Board[] nextBeam;
+    private int[] beamRoot;
+    private int[] nextRoot;
+    private int[] beamLines;
+    private int[] nextLines;
+
+    private double[] candScore = new double[256];
+    private int[] candParent = new int[256];
+    private int[] candRot = new int[256];
+    private int[] candX = new int[256];
+    private int[] candY = new int[256];
+    private int[] candRoot = new int[256];
+    private int[] candLines = new int[256];
+    private int candCount;
+
+    private final int[] top;
+    private int topCount;
+
+    private long evaluated;
+
+    public BeamSearch(int width, int height, int beamWidth, int depth, Evaluator evaluator) {
+        this(width, height, beamWidth, depth, evaluator, null);
+    }
+
+    public BeamSearch(int width, int height, int beamWidth, int depth, Evaluator evaluator,
+                      TranspositionTable table) {
+        this.beamWidth = beamWidth;
+        this.depth = depth;
+        this.spawnX = Tetromino.spawnX(width);
+        this.evaluator = evaluator;
+        this.table = table;
+
+        this.rootGen = new PlacementGenerator(width, height);
+        this.gen = new PlacementGenerator(width, height);
+        this.scratch = Board.occupancyOnly(width, height);
+
+        this.beam = boards(width, height, beamWidth);
+        this.nextBeam = boards(width, height, beamWidth);
+        this.beamRoot = new int[beamWidth];
+        this.nextRoot = new int[beamWidth];
+        this.beamLines = new int[beamWidth];
+        this.nextLines = new int[beamWidth];
+        this.top = new int[beamWidth];
+    }
+
+    private static Board[] boards(int width, int height, int n) {
+        Board[] boards = new Board[n];
+        for (int i = 0; i < n; i++) boards[i] = Board.occupancyOnly(width, height);
+        return boards;
+    }
+
+    // best placement of game's active piece as an index into getRootPlacements(), or -1
+    // when the active piece cannot move at all
+    @Override
+    public int search(Game game) {
+        Board board = game.getBoard();
+        Tetromino active = game.getActive();
+
+        int rootCount = rootGen.generate(board, active.getType(), active.getRotation(), active.getX(), active.getY());
+        if (rootCount == 0) return -1;
+
+        int best = 0; // if everything tops out, any placement will do
+        int nodes = 1;
+        for (int d = 0; d < depth; d++) {
+            ShapeType type = (d == 0) ? active.getType() : game.peekQueue(d - 1);
+            ShapeType following = game.peekQueue(d);
+            ShapeType afterFollowing = game.peekQueue(d + 1);
+            int stamp = STAMPS.incrementAndGet() & 0xFFFFFF;
+
+            candCount = 0;
+            for (int n = 0; n < nodes; n++) {
+                Board parent = (d == 0) ? board : beam[n];
+                PlacementGenerator g = (d == 0) ? rootGen : gen;
+                int count = (d == 0) ? rootCount : gen.generate(parent, type, 0, spawnX, Tetromino.SPAWN_Y);
+
+                for (int p = 0; p < count; p++) {
+                    scratch.copyFrom(parent);
+                    scratch.lock(type, g.rotation(p), g.x(p), g.y(p));
+                    int lines = scratch.clearLines() + ((d == 0) ? 0 : beamLines[n]);
+                    evaluated++;
+
+                    // the following piece must still be able to spawn
+                    if (!scratch.canPlace(following, 0, spawnX, Tetromino.SPAWN_Y)) continue;
+
+                    double score;
+                    if (table == null) {
+                        score = evaluator.evaluate(scratch.getFeatures(), lines);
+                    } else {
+                        long key = Zobrist.withLines(Zobrist.key(scratch, following, afterFollowing), lines);
+                        long hit = table.probe(key);
+                        if (hit != TranspositionTable.MISS && TranspositionTable.stamp(hit) == stamp) continue;
+
+                        score = (hit != TranspositionTable.MISS)
+                                ? TranspositionTable.score(hit)
+                                : evaluator.evaluate(scratch.getFeatures(), lines);
+                        table.store(key, (float) score, depth - d, stamp);
+                    }
+                    addCandidate(score, n, g.rotation(p), g.x(p), g.y(p), (d == 0) ? p : beamRoot[n], lines);
+                }
+            }
+            if (candCount == 0) break;
+
+            selectTop();
+            best = candRoot[top[0]];
+            if (d == depth - 1) break;
+
+            for (int i = 0; i < topCount; i++) {
+                int c = top[i];
+                Board next = nextBeam[i];
+                next.copyFrom((d == 0) ? board : beam[candParent[c]]);
+                next.lock(type, candRot[c], candX[c], candY[c]);
+                next.clearLines();
+                nextRoot[i] = candRoot[c];
+                nextLines[i] = candLines[c];
+            }
+            swapBeams();
+            nodes = topCount;
+        }
+        return best;
+    }
+
+    @Override
+    public PlacementGenerator getRootPlacements() { return rootGen; }
+
+    @Override
+    public long getEvaluated() { return evaluated; }
+
+    private void addCandidate(double score, int parent, int rot, int x, int y, int root, int lines) {
+        if (candCount == candScore.length) growCandidates();
+        int c = candCount++;
+        candScore[c] = score;
+        candParent[c] = parent;
+        candRot[c] = rot;
+        candX[c] = x;
+        candY[c] = y;
+        candRoot[c] = root;
+        candLines[c] = lines;
+    }
+
+    private void growCandidates() {
+        int n = candScore.length * 2;
+        candScore = Arrays.copyOf(candScore, n);
+        candParent = Arrays.copyOf(candParent, n);
+        candRot = Arrays.copyOf(candRot, n);
+        candX = Arrays.copyOf(candX, n);
+        candY = Arrays.copyOf(candY, n);
+        candRoot = Arrays.copyOf(candRoot, n);
+        candLines = Arrays.copyOf(candLines, n);
+    }
+
+    // top beamWidth candidates by score, best first (insertion into a small sorted array)
+    private void selectTop() {
+        topCount = 0;
+        for (int c = 0; c < candCount; c++) {
+            double s = candScore[c];
+            if (topCount == beamWidth && s <= candScore[top[topCount - 1]]) continue;
+
+            int i = (topCount < beamWidth) ? topCount++ : topCount - 1;
+            while (i > 0 && candScore[top[i - 1]] < s) {
+                top[i] = top[i - 1];
+                i--;
+            }
+            top[i] = c;
+        }
+    }
+
+    private void swapBeams() {
+        Board[] b = beam; beam = nextBeam; nextBeam = b;
+        int[] r = beamRoot; beamRoot = nextRoot; nextRoot = r;
+        int[] l = beamLines; beamLines = nextLines; nextLines = l;
+    }
+
+    // convenience for callers that only want the moves: path to the best placement
+    public int bestPath(Game game, Action[] actions, int[] states) {
+        int best = search(game);
+        return (best < 0) ? -1 : rootGen.path(best, actions, states);
+    }
+}
@@ -0,0 +1,63 @@
+package tetris.ai;
+
+import tetris.core.Game;
+import tetris.core.Tetromino;
+import tetris.sim.Action;
+import tetris.sim.Policy;
+
+// Autoplayer: plans a placement for each new piece with a PlacementSearch (BeamSearch
+// unless given another), then plays the path one action per frame and hard drops. If gravity (or anything else) moves the
+// piece off the planned path, it replans from where the piece actually is.
+public class BeamSearchPolicy implements Policy {
+    private static final int MAX_PATH = 512;
+
+    private final PlacementSearch search;
+    private final PlacementGenerator placements;
+
+    private final Action[] plan = new Action[MAX_PATH];
+    private final int[] planStates = new int[MAX_PATH];
+    private int planLength;
+    private int planPos;
+    private long plannedPiece = -1; // Game.getPieceSerial() of the piece the plan is for
+
+    public BeamSearchPolicy(int width, int height, int beamWidth, int depth, Evaluator evaluator) {
+        this(new BeamSearch(width, height, beamWidth, depth, evaluator));
+    }
+
+    public BeamSearchPolicy(PlacementSearch search) {
+        this.search = search;
+        this.placements = search.getRootPlacements();
+    }
+
+    public BeamSearchPolicy() {
+        this(10, 20, 8, 2, new HeuristicEvaluator());
+    }
+
+    @Override
+    public Action nextAction(Game game) {
+        Tetromino active = game.getActive();
+        if (game.getPieceSerial() != plannedPiece || !onPlan(active)) replan(game);
+
+        return (planPos < planLength) ? plan[planPos++] : Action.HARD;
+    }
+
+    public long getEvaluated() {
+        return search.getEvaluated();
+    }
+
+    // the piece is where the plan expects it before the next action
+    private boolean onPlan(Tetromino t) {
+        if (planPos == 0) return true;
+        int s = planStates[planPos - 1];
+        return t.getRotation() == placements.rotationOf(s)
+                && t.getX() == placements.xOf(s)
+                && t.getY() == placements.yOf(s);
+    }
+
+    private void replan(Game game) {
+        plannedPiece = game.getPieceSerial();
+        planPos = 0;
+        int best = search.search(game);
+        planLength = (best < 0) ? 0 : placements.path(best, plan, planStates);
+    }
+}
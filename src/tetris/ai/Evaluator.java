@@ -0,0 +1,9 @@
+package tetris.ai;
+
+import tetris.core.BoardFeatures;
+
+// Scores a board after a placement; higher is better.
+@FunctionalInterface
+public interface Evaluator {
+    double evaluate(BoardFeatures features, int linesCleared);
+}
@@ -0,0 +1,336 @@
+package tetris.ai;
+
+import tetris.core.Board;
+import tetris.core.Game;
+import tetris.core.RandomBag;
+import tetris.core.ShapeType;
+import tetris.core.Tetromino;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Expectimax over placements. The active piece and the preview piece are max nodes;
+// every piece after them is a chance node over the pieces the current 7-bag can still
+// deal (Game.bagRemaining()), each equally likely, and a bag that runs out starts over
+// with every piece. Inner max nodes only look deeper into their `expand` best
+// placements by static score; the last piece of a line of play is scored by the
+// Evaluator (which is shared between threads, so it must not keep state).
+//
+// The search deepens one piece at a time and answers from the deepest depth finished
+// within the time budget. Root placements, and chance nodes with big subtrees, are
+// ForkJoin tasks, so idle workers steal subtrees. Every task runs on boards and
+// placement generators borrowed from a pool; the game's own board is only read.
+public class ExpectimaxSearch implements PlacementSearch {
+    private static final ShapeType[] TYPES = ShapeType.values();
+    private static final double LOSS = -1e9;
+
+    private static final int FORK_DEPTH = 3;   // chance nodes with this many pieces to go fork
+    private static final int CLOCK_EVERY = 64; // placements scored between deadline checks
+
+    private final int width;
+    private final int height;
+    private final int spawnX;
+    private final int maxDepth;
+    private final int expand;
+    private final long budgetNanos;
+    private final Evaluator evaluator;
+    private final ForkJoinPool pool;
+
+    private final PlacementGenerator rootGen;
+    private final ConcurrentLinkedQueue<Context> contexts = new ConcurrentLinkedQueue<>();
+    private final LongAdder evaluated = new LongAdder();
+
+    // per search() call
+    private Board rootBoard;
+    private ShapeType rootType;
+    private ShapeType nextType;
+    private long rootBag;
+    private double[] values = new double[64];
+    private long deadline;
+    private volatile boolean expired;
+    private int depthReached;
+
+    // budgetNanos <= 0: no time limit, always search maxDepth pieces deep (reproducible)
+    public ExpectimaxSearch(int width, int height, int maxDepth, int expand, long budgetNanos,
+                            Evaluator evaluator, ForkJoinPool pool) {
+        if (maxDepth < 1) throw new IllegalArgumentException("maxDepth must be at least 1, got " + maxDepth);
+        this.width = width;
+        this.height = height;
+        this.spawnX = Tetromino.spawnX(width);
+        this.maxDepth = maxDepth;
+        this.expand = Math.max(1, expand);
+        this.budgetNanos = budgetNanos;
+        this.evaluator = evaluator;
+        this.pool = pool;
+        this.rootGen = new PlacementGenerator(width, height);
+    }
+
+    // common pool, up to 8 pieces deep within budgetMillis per piece
+    public ExpectimaxSearch(int width, int height, int budgetMillis) {
+        this(width, height, 8, 4, TimeUnit.MILLISECONDS.toNanos(budgetMillis),
+                new HeuristicEvaluator(), ForkJoinPool.commonPool());
+    }
+
+    @Override
+    public int search(Game game) {
+        long start = System.nanoTime();
+        Tetromino active = game.getActive();
+        int rootCount = rootGen.generate(game.getBoard(), active.getType(), active.getRotation(), active.getX(), active.getY());
+        if (rootCount == 0) return -1;
+
+        rootBoard = game.getBoard();
+        rootType = active.getType();
+        nextType = game.peekQueue(0);
+        rootBag = game.bagRemaining();
+        deadline = (budgetNanos > 0) ? start + budgetNanos : Long.MAX_VALUE;
+        expired = false;
+        if (values.length < rootCount) values = new double[Math.max(rootCount, values.length * 2)];
+
+        // depth 1 always completes: it is what a one-piece greedy player would do
+        Context ctx = borrow();
+        try {
+            for (int p = 0; p < rootCount; p++) values[p] = ctx.root(p, 1, false);
+        } finally {
+            release(ctx);
+        }
+        int best = argmax(rootCount);
+        depthReached = 1;
+
+        for (int depth = 2; depth <= maxDepth; depth++) {
+            long began = System.nanoTime();
+            pool.invoke(new RootSlice(0, rootCount, depth));
+            if (expired) break;
+            best = argmax(rootCount);
+            depthReached = depth;
+
+            // a level deeper costs many times this one; don't start what can't finish
+            long now = System.nanoTime();
+            if (deadline != Long.MAX_VALUE && deadline - now < (now - began) * 4) break;
+        }
+        rootBoard = null;
+        return best;
+    }
+
+    @Override
+    public PlacementGenerator getRootPlacements() { return rootGen; }
+
+    @Override
+    public long getEvaluated() { return evaluated.sum(); }
+
+    // pieces deep the last search() looked
+    public int getDepthReached() { return depthReached; }
+
+    private int argmax(int count) {
+        int best = 0;
+        for (int p = 1; p < count; p++) {
+            if (values[p] > values[best]) best = p;
+        }
+        return best;
+    }
+
+    private Context borrow() {
+        Context c = contexts.poll();
+        return (c != null) ? c : new Context();
+    }
+
+    private void release(Context c) {
+        evaluated.add(c.scored);
+        c.scored = 0;
+        contexts.offer(c);
+    }
+
+    // Boards, generators and candidate arrays for one task, one of each per level of the
+    // tree (a max node iterates its placements while its children use the next level).
+    private final class Context {
+        private final Board[] boards = new Board[maxDepth];
+        private final PlacementGenerator[] gens = new PlacementGenerator[maxDepth];
+        private final double[][] scores = new double[maxDepth][];
+        private final int[][] order = new int[maxDepth][];
+        private long scored;
+        private int clock = CLOCK_EVERY; // placements until the next deadline check
+
+        Context() {
+            for (int l = 0; l < maxDepth; l++) {
+                boards[l] = Board.occupancyOnly(width, height);
+                gens[l] = new PlacementGenerator(width, height);
+                scores[l] = new double[64];
+                order[l] = new int[expand];
+            }
+        }
+
+        // value of root placement p searched `depth` pieces deep
+        double root(int p, int depth, boolean timed) {
+            Board b = boards[0];
+            b.copyFrom(rootBoard);
+            b.lock(rootType, rootGen.rotation(p), rootGen.x(p), rootGen.y(p));
+            int lines = b.clearLines();
+            if (!b.canPlace(nextType, 0, spawnX, Tetromino.SPAWN_Y)) return LOSS; // the preview can't spawn
+            if (depth == 1) return leaf(b, lines);
+            return place(b, nextType, 1, depth - 1, lines, rootBag, timed);
+        }
+
+        // max node: the best placement of `type` on b, looking depthLeft pieces deep (this one included)
+        double place(Board b, ShapeType type, int level, int depthLeft, int lines, long bag, boolean timed) {
+            if (expired) return LOSS;
+            PlacementGenerator g = gens[level];
+            int count = g.generate(b, type, 0, spawnX, Tetromino.SPAWN_Y);
+            if (count == 0) return LOSS;
+
+            Board s = boards[level];
+            if (depthLeft == 1) {
+                double best = LOSS;
+                for (int p = 0; p < count; p++) {
+                    s.copyFrom(b);
+                    s.lock(type, g.rotation(p), g.x(p), g.y(p));
+                    best = Math.max(best, leaf(s, lines + s.clearLines()));
+                    if (timed && tick()) return LOSS;
+                }
+                return best;
+            }
+
+            // score every placement, then look deeper into the best few
+            if (scores[level].length < count) scores[level] = new double[Math.max(count, scores[level].length * 2)];
+            double[] sc = scores[level];
+            for (int p = 0; p < count; p++) {
+                s.copyFrom(b);
+                s.lock(type, g.rotation(p), g.x(p), g.y(p));
+                sc[p] = leaf(s, lines + s.clearLines());
+                if (timed && tick()) return LOSS;
+            }
+            int[] top = order[level];
+            int n = selectTop(sc, count, top);
+
+            double best = LOSS;
+            for (int i = 0; i < n; i++) {
+                int p = top[i];
+                if (sc[p] <= LOSS) break; // the rest top out as well
+                s.copyFrom(b);
+                s.lock(type, g.rotation(p), g.x(p), g.y(p));
+                int cleared = s.clearLines();
+                best = Math.max(best, chance(s, level + 1, depthLeft - 1, lines + cleared, bag, timed));
+                if (expired) return LOSS;
+            }
+            return best;
+        }
+
+        // chance node: the average over every piece the bag can deal next
+        double chance(Board b, int level, int depthLeft, int lines, long bag, boolean timed) {
+            long pieces = (bag == 0) ? RandomBag.allPieces() : bag;
+            int k = Long.bitCount(pieces);
+            if (depthLeft >= FORK_DEPTH) {
+                ChanceTask[] tasks = new ChanceTask[k];
+                int i = 0;
+                for (long m = pieces; m != 0; m &= m - 1) {
+                    int t = Long.numberOfTrailingZeros(m);
+                    tasks[i++] = new ChanceTask(b, TYPES[t], level, depthLeft, lines, pieces & ~(1L << t));
+                }
+                ForkJoinTask.invokeAll(tasks);
+                double sum = 0;
+                for (ChanceTask task : tasks) sum += task.value;
+                return sum / k;
+            }
+
+            double sum = 0;
+            for (long m = pieces; m != 0; m &= m - 1) {
+                int t = Long.numberOfTrailingZeros(m);
+                sum += place(b, TYPES[t], level, depthLeft, lines, pieces & ~(1L << t), timed);
+                if (expired) return LOSS;
+            }
+            return sum / k;
+        }
+
+        // static score of the board a line of play ends on
+        private double leaf(Board s, int lines) {
+            scored++;
+            return evaluator.evaluate(s.getFeatures(), lines);
+        }
+
+        // counts a scored placement; true once the deadline has passed
+        private boolean tick() {
+            if (--clock > 0) return expired;
+            clock = CLOCK_EVERY;
+            if (System.nanoTime() - deadline > 0) expired = true;
+            return expired;
+        }
+    }
+
+    // indices of the (up to top.length) best scores, best first
+    private static int selectTop(double[] sc, int count, int[] top) {
+        int n = 0;
+        for (int c = 0; c < count; c++) {
+            double s = sc[c];
+            if (n == top.length && s <= sc[top[n - 1]]) continue;
+            int i = (n < top.length) ? n++ : n - 1;
+            while (i > 0 && sc[top[i - 1]] < s) {
+                top[i] = top[i - 1];
+                i--;
+            }
+            top[i] = c;
+        }
+        return n;
+    }
+
+    // root placements [from, to), split down to one placement per task
+    @SuppressWarnings("serial")
+    private final class RootSlice extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int depth;
+
+        RootSlice(int from, int to, int depth) {
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Context ctx = borrow();
+                try {
+                    values[from] = ctx.root(from, depth, budgetNanos > 0);
+                } finally {
+                    release(ctx);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RootSlice(from, mid, depth), new RootSlice(mid, to, depth));
+        }
+    }
+
+    // one outcome of a chance node; reads the parent's board, which stays put until all are joined
+    @SuppressWarnings("serial")
+    private final class ChanceTask extends RecursiveAction {
+        private final Board board;
+        private final ShapeType type;
+        private final int level;
+        private final int depthLeft;
+        private final int lines;
+        private final long bag;
+        double value;
+
+        ChanceTask(Board board, ShapeType type, int level, int depthLeft, int lines, long bag) {
+            this.board = board;
+            this.type = type;
+            this.level = level;
+            this.depthLeft = depthLeft;
+            this.lines = lines;
+            this.bag = bag;
+        }
+
+        @Override
+        protected void compute() {
+            Context ctx = borrow();
+            try {
+                value = ctx.place(board, type, level, depthLeft, lines, bag, budgetNanos > 0);
+            } finally {
+                release(ctx);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package tetris.ai;
+
+import tetris.core.BoardFeatures;
+
+// Linear evaluator over the cached board features; O(width) per call.
+public class HeuristicEvaluator implements Evaluator {
+    private final double heightWeight;
+    private final double linesWeight;
+    private final double holesWeight;
+    private final double bumpinessWeight;
+    private final double wellWeight;
+
+    public HeuristicEvaluator(double heightWeight, double linesWeight, double holesWeight,
+                              double bumpinessWeight, double wellWeight) {
+        this.heightWeight = heightWeight;
+        this.linesWeight = linesWeight;
+        this.holesWeight = holesWeight;
+        this.bumpinessWeight = bumpinessWeight;
+        this.wellWeight = wellWeight;
+    }
+
+    // well-known weights for aggregate height / lines / holes / bumpiness, plus a small well penalty
+    public HeuristicEvaluator() {
+        this(-0.510066, 0.760666, -0.35663, -0.184483, -0.05);
+    }
+
+    @Override
+    public double evaluate(BoardFeatures f, int linesCleared) {
+        return heightWeight * f.aggregateHeight()
+                + linesWeight * linesCleared
+                + holesWeight * f.holes()
+                + bumpinessWeight * f.bumpiness()
+                + wellWeight * f.maxWellDepth();
+    }
+}
@@ -0,0 +1,188 @@
+package tetris.ai;
+
+import tetris.core.Board;
+import tetris.core.Game;
+import tetris.core.ShapeTable;
+import tetris.core.ShapeType;
+import tetris.sim.Action;
+
+import java.util.Arrays;
+
+// Enumerates every final resting position a piece can reach with LEFT, RIGHT, ROTATE
+// (including the kicks Game allows), SOFT and HARD, via BFS over (rotation, x, y) states
+// with a visited bitset. A hard drop ends the piece, so the position it lands on is a
+// separate terminal state: paths prefer "shift, rotate, hard drop" and only fall back
+// to soft drops for tucks and spins. Placements that cover the same cells through
+// different rotations are reported once. All buffers are reused between calls.
+public class PlacementGenerator {
+    private static final int X_OFFSET = ShapeTable.BOX - 1; // the shape box can hang over the left wall
+    private static final int Y_OFFSET = ShapeTable.BOX;     // and start above the board
+
+    private static final Action[] MOVES = { Action.SOFT, Action.LEFT, Action.RIGHT, Action.ROTATE, Action.HARD };
+
+    // rotations with identical cells (O, and the I/S/Z pairs) map onto one canonical rotation
+    private static final int[] CANON_KEY = new int[ShapeType.count() * 4];
+    private static final int[] CANON_DX = new int[CANON_KEY.length];
+    private static final int[] CANON_DY = new int[CANON_KEY.length];
+
+    static {
+        for (ShapeType t : ShapeType.values()) {
+            for (int r = 0; r < 4; r++) {
+                int key = ShapeTable.key(t, r);
+                int canon = key;
+                for (int c = 0; c < r; c++) {
+                    int other = ShapeTable.key(t, c);
+                    if (sameCells(key, other)) { canon = other; break; }
+                }
+                CANON_KEY[key] = canon;
+                CANON_DX[key] = ShapeTable.minX(key) - ShapeTable.minX(canon);
+                CANON_DY[key] = ShapeTable.minY(key) - ShapeTable.minY(canon);
+            }
+        }
+    }
+
+    private static boolean sameCells(int a, int b) {
+        int rows = ShapeTable.maxY(a) - ShapeTable.minY(a);
+        if (rows != ShapeTable.maxY(b) - ShapeTable.minY(b)) return false;
+        for (int r = 0; r <= rows; r++) {
+            int ma = ShapeTable.rowMask(a, ShapeTable.minY(a) + r) >> ShapeTable.minX(a);
+            int mb = ShapeTable.rowMask(b, ShapeTable.minY(b) + r) >> ShapeTable.minX(b);
+            if (ma != mb) return false;
+        }
+        return true;
+    }
+
+    private final int width;
+    private final int height;
+    private final int xSpan;
+    private final int ySpan;
+    private final int states; // movable states; [states, 2 * states) are hard-drop landings
+
+    private final long[] visited;
+    private final long[] emitted;
+    private final int[] queue;
+    private final int[] parent;
+    private final byte[] move;
+
+    private final int[] placements;
+    private int count;
+
+    public PlacementGenerator(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.xSpan = width + X_OFFSET;
+        this.ySpan = height + Y_OFFSET;
+
+        this.states = 4 * xSpan * ySpan;
+        this.visited = new long[(2 * states + 63) >>> 6];
+        this.emitted = new long[(states + 63) >>> 6];
+        this.queue = new int[2 * states];
+        this.parent = new int[2 * states];
+        this.move = new byte[2 * states];
+        this.placements = new int[states];
+    }
+
+    // all placements reachable from (rotation, x, y); returns how many were found
+    // (0 when the start position itself does not fit)
+    public int generate(Board board, ShapeType type, int rotation, int x, int y) {
+        Arrays.fill(visited, 0);
+        Arrays.fill(emitted, 0);
+        count = 0;
+
+        if (!inRange(x, y) || !board.canPlace(type, rotation, x, y)) return 0;
+
+        int head = 0;
+        int tail = 0;
+        int start = encode(rotation, x, y);
+        mark(visited, start);
+        parent[start] = -1;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int s = queue[head++];
+            int r = rotationOf(s);
+            int sx = xOf(s);
+            int sy = yOf(s);
+
+            if (s >= states) {
+                emit(type, s, r, sx, sy);
+                continue;
+            }
+
+            if (board.canPlace(type, r, sx, sy + 1)) {
+                tail = visit(s, 0, r, sx, sy + 1, tail);
+                int land = board.dropY(type, r, sx, sy);
+                if (land > sy + 1) tail = visitState(s, 4, states + encode(r, sx, land), tail);
+            } else {
+                emit(type, s, r, sx, sy);
+            }
+            if (board.canPlace(type, r, sx - 1, sy)) tail = visit(s, 1, r, sx - 1, sy, tail);
+            if (board.canPlace(type, r, sx + 1, sy)) tail = visit(s, 2, r, sx + 1, sy, tail);
+
+            int k = Game.rotationKick(board, type, r, sx, sy);
+            if (k != Game.NO_KICK) tail = visit(s, 3, (r + 1) & 3, sx + k, sy, tail);
+        }
+        return count;
+    }
+
+    private int visit(int from, int moveIdx, int r, int x, int y, int tail) {
+        if (!inRange(x, y)) return tail;
+        return visitState(from, moveIdx, encode(r, x, y), tail);
+    }
+
+    private int visitState(int from, int moveIdx, int s, int tail) {
+        if (isMarked(visited, s)) return tail;
+        mark(visited, s);
+        parent[s] = from;
+        move[s] = (byte) moveIdx;
+        queue[tail] = s;
+        return tail + 1;
+    }
+
+    private void emit(ShapeType type, int s, int r, int x, int y) {
+        int key = ShapeTable.key(type, r);
+        int canon = encode(CANON_KEY[key] & 3, x + CANON_DX[key], y + CANON_DY[key]);
+        if (isMarked(emitted, canon)) return;
+        mark(emitted, canon);
+        placements[count++] = s;
+    }
+
+    public int count() { return count; }
+    public int rotation(int i) { return rotationOf(placements[i]); }
+    public int x(int i) { return xOf(placements[i]); }
+    public int y(int i) { return yOf(placements[i]); }
+
+    // moves from the start to placement i; when the last one is not HARD the piece still
+    // has to be locked (hard drop in place). states[j] is the position after actions[j],
+    // decode with rotationOf/xOf/yOf
+    public int path(int i, Action[] actions, int[] states) {
+        int len = 0;
+        for (int s = placements[i]; parent[s] >= 0; s = parent[s]) len++;
+        if (len > actions.length || len > states.length) {
+            throw new IllegalArgumentException("path of " + len + " moves does not fit the buffers");
+        }
+
+        int j = len;
+        for (int s = placements[i]; parent[s] >= 0; s = parent[s]) {
+            j--;
+            actions[j] = MOVES[move[s]];
+            states[j] = s;
+        }
+        return len;
+    }
+
+    private boolean inRange(int x, int y) {
+        return x >= -X_OFFSET && x < width && y >= -Y_OFFSET && y < height;
+    }
+
+    private int encode(int r, int x, int y) {
+        return (r * xSpan + x + X_OFFSET) * ySpan + y + Y_OFFSET;
+    }
+
+    public int rotationOf(int s) { return (s % states) / (xSpan * ySpan); }
+    public int xOf(int s) { return ((s % states) / ySpan) % xSpan - X_OFFSET; }
+    public int yOf(int s) { return s % ySpan - Y_OFFSET; }
+
+    private static void mark(long[] bits, int i) { bits[i >>> 6] |= 1L << i; }
+    private static boolean isMarked(long[] bits, int i) { return (bits[i >>> 6] & (1L << i)) != 0; }
+}
@@ -0,0 +1,15 @@
+package tetris.ai;
+
+import tetris.core.Game;
+
+// Picks a placement for a game's active piece. BeamSearchPolicy plays the chosen
+// placement along the path its root PlacementGenerator found.
+public interface PlacementSearch {
+    // best placement as an index into getRootPlacements(), or -1 when the active piece cannot move
+    int search(Game game);
+
+    PlacementGenerator getRootPlacements();
+
+    // placements scored over the lifetime of this search object
+    long getEvaluated();
+}
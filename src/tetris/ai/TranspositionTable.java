@@ -0,0 +1,112 @@
+package tetris.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded, lock-free transposition table for search results, safe to share between
+// search threads. Entries are (key, data) pairs in two plain long arrays; the key slot
+// holds key ^ data, so a pair torn by a concurrent writer simply fails verification
+// and reads as a miss (no locks, no CAS).
+//
+// Buckets have two slots: the first keeps the deepest result, the second always takes
+// the newest one. Data packs a float score, a 7-bit depth and a 24-bit stamp the caller
+// can use to tell entries from the current search (or search level) apart.
+public final class TranspositionTable {
+    public static final long MISS = 0;
+
+    private static final long VALID = 1L << 31;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    // 2^log2Entries entries of 16 bytes each
+    public TranspositionTable(int log2Entries) {
+        if (log2Entries < 1 || log2Entries > 30) {
+            throw new IllegalArgumentException("log2Entries must be 1..30, got " + log2Entries);
+        }
+        int n = 1 << log2Entries;
+        this.keys = new long[n];
+        this.data = new long[n];
+        this.mask = n - 1;
+    }
+
+    public static long pack(float score, int depth, int stamp) {
+        return (long) Float.floatToRawIntBits(score) << 32 | VALID | (depth & 0x7FL) << 24 | (stamp & 0xFFFFFFL);
+    }
+
+    public static float score(long d) { return Float.intBitsToFloat((int) (d >>> 32)); }
+    public static int depth(long d) { return (int) (d >>> 24) & 0x7F; }
+    public static int stamp(long d) { return (int) d & 0xFFFFFF; }
+
+    // packed data for key, or MISS
+    public long probe(long key) {
+        int b = bucket(key);
+        for (int i = b; i <= b + 1; i++) {
+            long d = data[i];
+            if (d != MISS && (keys[i] ^ d) == key) {
+                hits.increment();
+                return d;
+            }
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    public void store(long key, float score, int depth, int stamp) {
+        long d = pack(score, depth, stamp);
+        int b = bucket(key);
+
+        // depth-preferred slot: same key, empty, or not deeper than the new result
+        long old = data[b];
+        boolean sameKey = old != MISS && (keys[b] ^ old) == key;
+        int slot = (old == MISS || sameKey || depth(old) <= depth) ? b : b + 1;
+
+        long replaced = data[slot];
+        if (replaced != MISS && (keys[slot] ^ replaced) != key) collisions.increment();
+
+        data[slot] = d;
+        keys[slot] = key ^ d;
+        stores.increment();
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        hits.reset();
+        misses.reset();
+        stores.reset();
+        collisions.reset();
+    }
+
+    private int bucket(long key) {
+        // high bits pick the bucket: the low bits of the board hash are the most regular
+        return (int) (key >>> 33) & mask & ~1;
+    }
+
+    public int capacity() { return keys.length; }
+    public long memoryBytes() { return 16L * keys.length; }
+
+    public long hits() { return hits.sum(); }
+    public long misses() { return misses.sum(); }
+    public long stores() { return stores.sum(); }
+
+    // stores that evicted a different key
+    public long collisions() { return collisions.sum(); }
+
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public String report() {
+        return String.format("tt: %d entries (%.1f MiB), hit rate %.1f%% (%d hits / %d misses), %d stores, %d collisions",
+                capacity(), memoryBytes() / (1024.0 * 1024.0), hitRate() * 100, hits(), misses(), stores(), collisions());
+    }
+}
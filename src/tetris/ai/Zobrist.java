@@ -0,0 +1,34 @@
+package tetris.ai;
+
+import tetris.core.Board;
+import tetris.core.ShapeType;
+
+import java.util.SplittableRandom;
+
+// Search-state keys: the board's incremental occupancy hash combined with fixed random
+// keys for the piece to place and the one after it.
+public final class Zobrist {
+    private static final long[] ACTIVE_KEYS = new long[ShapeType.values().length];
+    private static final long[] NEXT_KEYS = new long[ShapeType.values().length];
+    private static final long LINES_KEY;
+
+    static {
+        SplittableRandom rng = new SplittableRandom(0x7E7215L);
+        for (int i = 0; i < ACTIVE_KEYS.length; i++) {
+            ACTIVE_KEYS[i] = rng.nextLong();
+            NEXT_KEYS[i] = rng.nextLong();
+        }
+        LINES_KEY = rng.nextLong() | 1;
+    }
+
+    private Zobrist() {}
+
+    public static long key(Board board, ShapeType active, ShapeType next) {
+        return board.getHash() ^ ACTIVE_KEYS[active.ordinal()] ^ NEXT_KEYS[next.ordinal()];
+    }
+
+    // same state, told apart by how many lines were cleared getting there
+    public static long withLines(long key, int lines) {
+        return key ^ (lines * LINES_KEY);
+    }
+}
@@ -1,79 +1,547 @@
 package tetris.core;
 
+import tetris.metrics.Metrics;
+
+import java.util.Arrays;
+
 public class Board {
+    // color of garbage cells: the last 4-bit color, which no piece uses (see ShapeType)
+    public static final int GARBAGE_COLOR = 15;
+
     private final int width;
     private final int height;
-    private final int[][] grid; 
+    private final int[][] grid;  // color per cell (0 = empty)
+    private final boolean colors; // false: occupancy only, grid stays empty (search boards)
+    private final long[] rows;   // occupancy bitmask per row (bit x set => cell x filled)
+    private final long fullRow;
+    private final int[] heights; // column height cache: rows from the floor up to the topmost block
+    private final int[] holes;   // empty cells below the topmost block, per column
+    private int aggregateHeight;
+    private int totalHoles;
+    private long hash;           // Zobrist-style: XOR of rowKey(y, rows[y]) over all rows
+    private final int[] rowVersions; // bumped whenever a row's contents change (renderers redraw just those rows)
+    private int version;
+    // rows that may have filled up since the last clearLines(); no full rows exist outside them
+    private int pendingTop = Integer.MAX_VALUE;
+    private int pendingBottom = -1;
+    private final BoardFeatures features = new Features();
 
     public Board(int width, int height) {
+        this(width, height, true);
+    }
+
+    // board that tracks occupancy and features but no colors: cheaper to copy,
+    // lock and clear, meant for AI search where only the shape of the stack matters
+    public static Board occupancyOnly(int width, int height) {
+        return new Board(width, height, false);
+    }
+
+    private Board(int width, int height, boolean colors) {
+        if (width <= 0 || width > 64) {
+            throw new IllegalArgumentException("board width must be 1..64, got " + width);
+        }
         this.width = width;
         this.height = height;
         this.grid = new int[height][width];
+        this.colors = colors;
+        this.rows = new long[height];
+        this.fullRow = (width == 64) ? -1L : (1L << width) - 1;
+        this.heights = new int[width];
+        this.holes = new int[width];
+        this.rowVersions = new int[height];
     }
 
     public int[][] getGrid() {
         return grid;
     }
 
+    public long getRowMask(int y) {
+        return rows[y];
+    }
+
+    public int getColumnHeight(int x) {
+        return heights[x];
+    }
+
+    // changes whenever row y changes (lock, line clear, clear, copy, snapshot restore);
+    // compare with a remembered value to tell whether the row needs redrawing
+    public int getRowVersion(int y) {
+        return rowVersions[y];
+    }
+
+    private void touchAll() {
+        for (int y = 0; y < height; y++) rowVersions[y] = ++version;
+    }
+
+    public BoardFeatures getFeatures() {
+        return features;
+    }
+
+    // 64-bit hash of the occupancy, updated incrementally by lock() and clearLines();
+    // boards of the same size with the same filled cells hash the same (colors are ignored)
+    public long getHash() {
+        return hash;
+    }
+
+    // per-row key: a fixed mix of (row, mask); empty rows contribute nothing
+    private static long rowKey(int y, long mask) {
+        if (mask == 0) return 0;
+        long z = mask * 0x9E3779B97F4A7C15L + (y + 1) * 0xC2B2AE3D27D4EB4FL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     public void clear() {
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) grid[y][x] = 0;
+        if (colors) {
+            for (int y = 0; y < height; y++) Arrays.fill(grid[y], 0);
         }
+        Arrays.fill(rows, 0);
+        Arrays.fill(heights, 0);
+        Arrays.fill(holes, 0);
+        aggregateHeight = 0;
+        totalHoles = 0;
+        hash = 0;
+        pendingTop = Integer.MAX_VALUE;
+        pendingBottom = -1;
+        touchAll();
+    }
+
+    private void markPending(int top, int bottom) {
+        if (top > bottom) return;
+        pendingTop = Math.min(pendingTop, top);
+        pendingBottom = Math.max(pendingBottom, bottom);
     }
 
     public boolean canPlace(Tetromino t) {
-        final boolean[] ok = { true };
-        t.forEachBlock((x, y, colorIdx) -> {
-            if (!ok[0]) return;
+        return canPlace(t.getType(), t.getRotation(), t.getX(), t.getY());
+    }
+
+    public boolean canPlace(ShapeType type, int rotation, int x, int y) {
+        if (Metrics.ENABLED) Metrics.CAN_PLACE.increment();
+        int key = ShapeTable.key(type, rotation);
+
+        // bounding box checks first: most rejected probes never touch a row
+        int bottom = ShapeTable.maxY(key);
+        if (y + bottom >= height) return false;
+        if (y + bottom < 0) return true; // allow blocks above the board (spawn area)
 
-            // allow blocks above the board (spawn area)
-            if (y < 0) return;
+        boolean insideWalls = x + ShapeTable.minX(key) >= 0 && x + ShapeTable.maxX(key) < width;
+        for (int r = Math.max(ShapeTable.minY(key), -y); r <= bottom; r++) {
+            long m = ShapeTable.rowMask(key, r);
 
-            if (x < 0 || x >= width || y >= height) {
-                ok[0] = false;
-                return;
+            // rows still above the board may hang over a wall, only rows on the board are checked
+            if (!insideWalls) {
+                if (x + Long.numberOfTrailingZeros(m) < 0) return false;
+                if (x + 64 - Long.numberOfLeadingZeros(m) > width) return false;
             }
-            if (grid[y][x] != 0) ok[0] = false;
-        });
-        return ok[0];
+
+            long shifted = (x >= 0) ? m << x : m >>> -x;
+            if ((rows[y + r] & shifted) != 0) return false;
+        }
+        return true;
+    }
+
+    // copy another board of the same size into this one (search boards are reused, not reallocated)
+    public void copyFrom(Board other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("board size mismatch");
+        }
+        if (colors) {
+            for (int y = 0; y < height; y++) System.arraycopy(other.grid[y], 0, grid[y], 0, width);
+        }
+        System.arraycopy(other.rows, 0, rows, 0, height);
+        System.arraycopy(other.heights, 0, heights, 0, width);
+        System.arraycopy(other.holes, 0, holes, 0, width);
+        aggregateHeight = other.aggregateHeight;
+        totalHoles = other.totalHoles;
+        hash = other.hash;
+        pendingTop = other.pendingTop;
+        pendingBottom = other.pendingBottom;
+        touchAll();
+    }
+
+    // overwrite row y with the given cell colors (0 = empty), keeping the hash and column
+    // features up to date; used to rebuild a board from a stream of row updates
+    public void setRow(int y, int[] cells) {
+        long mask = 0;
+        for (int x = 0; x < width; x++) {
+            if (cells[x] != 0) mask |= 1L << x;
+        }
+        if (colors) System.arraycopy(cells, 0, grid[y], 0, width);
+
+        long changed = rows[y] ^ mask;
+        hash ^= rowKey(y, rows[y]) ^ rowKey(y, mask);
+        rows[y] = mask;
+        rowVersions[y] = ++version;
+        markPending(y, y);
+        for (; changed != 0; changed &= changed - 1) rescanColumn(Long.numberOfTrailingZeros(changed));
+    }
+
+    // snapshot words for a board of this size, see writeSnapshot()
+    static int snapshotWords(int width, int height) {
+        return 1 + maskWords(width, height) + (width + 1) / 2 + height * colorWords(width);
+    }
+
+    // row masks are packed two per word on boards up to 32 wide, one per word beyond
+    private static int maskWords(int width, int height) {
+        return (width <= 32) ? (height + 1) / 2 : height;
+    }
+
+    private static int colorWords(int width) {
+        return (width + 15) / 16; // one 4-bit color per cell
+    }
+
+    // layout: hash | row masks, two per word (one if wider than 32) | (height, holes) as
+    // 16-bit pairs, two columns per word | colors per row, 16 cells per word.
+    // Occupancy-only boards write zero colors.
+    void writeSnapshot(long[] dst, int off) {
+        dst[off++] = hash;
+        if (width <= 32) {
+            for (int y = 0; y < height; y += 2) {
+                long hi = (y + 1 < height) ? rows[y + 1] << 32 : 0;
+                dst[off++] = rows[y] | hi;
+            }
+        } else {
+            System.arraycopy(rows, 0, dst, off, height);
+            off += height;
+        }
+        for (int x = 0; x < width; x += 2) {
+            long w = heights[x] | (long) holes[x] << 16;
+            if (x + 1 < width) w |= (long) heights[x + 1] << 32 | (long) holes[x + 1] << 48;
+            dst[off++] = w;
+        }
+
+        int cw = colorWords(width);
+        for (int y = 0; y < height; y++) {
+            for (int c = 0; c < cw; c++) dst[off + c] = 0;
+            if (colors) {
+                // only filled cells carry a color, so walk the mask bits
+                int[] row = grid[y];
+                for (long bits = rows[y]; bits != 0; bits &= bits - 1) {
+                    int x = Long.numberOfTrailingZeros(bits);
+                    dst[off + (x >>> 4)] |= (long) row[x] << ((x & 15) * 4);
+                }
+            }
+            off += cw;
+        }
+    }
+
+    void readSnapshot(long[] src, int off) {
+        hash = src[off++];
+        boolean packed = width <= 32;
+        int colorOff = off + maskWords(width, height) + (width + 1) / 2;
+        int cw = colorWords(width);
+        for (int y = 0; y < height; y++) {
+            long mask = packed ? (src[off + (y >>> 1)] >>> ((y & 1) * 32)) & 0xFFFFFFFFL : src[off + y];
+            if (colors) {
+                // colors only sit under set mask bits: blank the cells this row loses, copy the filled ones
+                int[] row = grid[y];
+                for (long bits = rows[y] & ~mask; bits != 0; bits &= bits - 1) {
+                    row[Long.numberOfTrailingZeros(bits)] = 0;
+                }
+                int rowOff = colorOff + y * cw;
+                for (long bits = mask; bits != 0; bits &= bits - 1) {
+                    int x = Long.numberOfTrailingZeros(bits);
+                    row[x] = (int) (src[rowOff + (x >>> 4)] >>> ((x & 15) * 4)) & 0xF;
+                }
+            }
+            rows[y] = mask;
+        }
+        off += maskWords(width, height);
+
+        for (int x = 0; x < width; x += 2) {
+            long w = src[off++];
+            heights[x] = (int) (w & 0xFFFF);
+            holes[x] = (int) ((w >>> 16) & 0xFFFF);
+            if (x + 1 < width) {
+                heights[x + 1] = (int) ((w >>> 32) & 0xFFFF);
+                holes[x + 1] = (int) (w >>> 48);
+            }
+        }
+        aggregateHeight = 0;
+        totalHoles = 0;
+        for (int x = 0; x < width; x++) {
+            aggregateHeight += heights[x];
+            totalHoles += holes[x];
+        }
+        markPending(0, height - 1);
+        touchAll();
     }
 
     public void lock(Tetromino t) {
-        t.forEachBlock((x, y, colorIdx) -> {
-            if (y < 0) return; 
-            if (y >= 0 && y < height && x >= 0 && x < width) {
-                grid[y][x] = colorIdx;
+        lock(t.getType(), t.getRotation(), t.getX(), t.getY());
+    }
+
+    public void lock(ShapeType type, int rotation, int x, int y) {
+        int key = ShapeTable.key(type, rotation);
+        int colorIdx = type.colorIndex();
+
+        for (int r = ShapeTable.minY(key); r <= ShapeTable.maxY(key); r++) {
+            long m = ShapeTable.rowMask(key, r);
+            int by = y + r;
+            if (by < 0 || by >= height) continue;
+
+            // blocks outside the side walls are dropped, same as before
+            long bits;
+            if (x >= 0) bits = (x < 64) ? (m << x) & fullRow : 0;
+            else bits = (x > -64) ? m >>> -x : 0;
+            if (bits == 0) continue;
+
+            long fresh = bits & ~rows[by];
+            hash ^= rowKey(by, rows[by]) ^ rowKey(by, rows[by] | bits);
+            rows[by] |= bits;
+            rowVersions[by] = ++version;
+            if (colors) {
+                int[] row = grid[by];
+                while (bits != 0) {
+                    row[Long.numberOfTrailingZeros(bits)] = colorIdx;
+                    bits &= bits - 1;
+                }
             }
-        });
+
+            // rows go top to bottom, so a lower block of the same piece
+            // fills a cell that the block above already counted as a hole
+            int h = height - by;
+            while (fresh != 0) {
+                int bx = Long.numberOfTrailingZeros(fresh);
+                if (h > heights[bx]) {
+                    int gap = h - heights[bx] - 1;
+                    holes[bx] += gap;
+                    totalHoles += gap;
+                    aggregateHeight += h - heights[bx];
+                    heights[bx] = h;
+                } else {
+                    holes[bx]--;
+                    totalHoles--;
+                }
+                fresh &= fresh - 1;
+            }
+        }
+        markPending(Math.max(y + ShapeTable.minY(key), 0), Math.min(y + ShapeTable.maxY(key), height - 1));
     }
 
     public int clearLines() {
-        int cleared = 0;
+        // only rows changed since the last call can be full; find the lowest
+        int low = -1;
+        for (int y = pendingBottom; y >= pendingTop; y--) {
+            if (rows[y] == fullRow) {
+                low = y;
+                break;
+            }
+        }
+        pendingTop = Integer.MAX_VALUE;
+        pendingBottom = -1;
+        if (low < 0) return 0;
+
+        // single compaction pass from there up to the top of the stack: surviving rows go
+        // straight to their final slot, full rows are recycled as empty rows at the top.
+        // Rows below the lowest full row and empty rows above the stack never move.
+        int top = height - features.maxHeight();
+        int write = low;
+        int topCleared = height;
+        for (int y = low; y >= top; y--) {
+            if (rows[y] == fullRow) {
+                hash ^= rowKey(y, fullRow);
+                topCleared = y;
+                continue;
+            }
+
+            if (write != y) {
+                if (colors) {
+                    int[] tmp = grid[write];
+                    grid[write] = grid[y];
+                    grid[y] = tmp;
+                }
+                hash ^= rowKey(y, rows[y]) ^ rowKey(write, rows[y]);
+                rows[write] = rows[y];
+                rowVersions[write] = ++version;
+            }
+            write--;
+        }
+
+        int cleared = write - top + 1;
+        for (int y = top; y <= write; y++) {
+            if (colors) Arrays.fill(grid[y], 0);
+            rows[y] = 0;
+            rowVersions[y] = ++version;
+        }
+        updateFeaturesAfterClear(cleared, topCleared);
+        return cleared;
+    }
+
+    // Pushes the stack up by count rows and fills the bottom count rows with garbage: full
+    // rows with one empty cell each, at holeColumns[i] for the i-th row from the floor.
+    // Returns true if that pushed blocks off the top; whether that ends the game is up to
+    // the caller. Row masks move with one arraycopy, hash and features are updated in place.
+    public boolean addGarbage(int count, int[] holeColumns) {
+        if (count < 0 || count > height) {
+            throw new IllegalArgumentException("garbage rows must be 0.." + height + ", got " + count);
+        }
+        if (holeColumns.length < count) {
+            throw new IllegalArgumentException("need a hole column for each of " + count + " garbage rows");
+        }
+        for (int i = 0; i < count; i++) {
+            if (holeColumns[i] < 0 || holeColumns[i] >= width) {
+                throw new IllegalArgumentException("hole column " + holeColumns[i] + " outside the board");
+            }
+        }
+        if (count == 0) return false;
+
+        int stack = features.maxHeight();
+        int top = height - stack;          // rows above are empty
+        boolean overflow = stack + count > height;
+
+        // rows from `from` down rise by count; rows above it (and below top) fall off
+        int from = Math.max(top, count);
+        for (int y = top; y < from; y++) hash ^= rowKey(y, rows[y]);
+        for (int y = from; y < height; y++) hash ^= rowKey(y, rows[y]) ^ rowKey(y - count, rows[y]);
+        System.arraycopy(rows, from, rows, from - count, height - from);
+        if (colors) {
+            // rotate the row arrays: the ones that fell off or were empty end up at the bottom
+            for (int y = from; y < height; y++) {
+                int[] tmp = grid[y - count];
+                grid[y - count] = grid[y];
+                grid[y] = tmp;
+            }
+        }
+        for (int y = from - count; y < height; y++) rowVersions[y] = ++version;
 
-        for (int y = height - 1; y >= 0; y--) {
-            boolean full = true;
-            for (int x = 0; x < width; x++) {
-                if (grid[y][x] == 0) { full = false; break; }
+        for (int i = 0; i < count; i++) {
+            int y = height - 1 - i;
+            long mask = fullRow & ~(1L << holeColumns[i]);
+            rows[y] = mask;
+            hash ^= rowKey(y, mask);
+            if (colors) {
+                Arrays.fill(grid[y], GARBAGE_COLOR);
+                grid[y][holeColumns[i]] = 0;
             }
+        }
 
-            if (full) {
-                cleared++;
+        // unchecked rows moved up with everything else; garbage rows always have a hole
+        if (pendingTop <= pendingBottom) {
+            pendingTop = Math.max(pendingTop - count, 0);
+            pendingBottom -= count;
+        }
 
-                // shift down
-                for (int row = y; row > 0; row--) {
-                    System.arraycopy(grid[row - 1], 0, grid[row], 0, width);
+        if (overflow) {
+            for (int x = 0; x < width; x++) rescanColumn(x);
+            return true;
+        }
+        for (int x = 0; x < width; x++) {
+            // garbage in this column: its top row and the holes below it, and all its holes
+            int garbageTop = 0, holesUnderTop = 0, garbageHoles = 0;
+            for (int i = 0; i < count; i++) {
+                if (holeColumns[i] == x) {
+                    garbageHoles++;
+                } else {
+                    garbageTop = i + 1;
+                    holesUnderTop = garbageHoles;
                 }
-                // clear top row
-                for (int x = 0; x < width; x++) grid[0][x] = 0;
+            }
+            int h = (heights[x] > 0) ? heights[x] + count : garbageTop;
+            int n = (heights[x] > 0) ? holes[x] + garbageHoles : holesUnderTop;
+            aggregateHeight += h - heights[x];
+            totalHoles += n - holes[x];
+            heights[x] = h;
+            holes[x] = n;
+        }
+        return false;
+    }
 
-                // re-check same y because we pulled rows down
-                y++;
+    // every column has a block in every cleared row: columns whose top block sits above
+    // the cleared rows just get shorter, the others lost their top block and are rescanned
+    private void updateFeaturesAfterClear(int cleared, int topCleared) {
+        for (int x = 0; x < width; x++) {
+            if (height - heights[x] < topCleared) {
+                heights[x] -= cleared;
+                aggregateHeight -= cleared;
+            } else {
+                rescanColumn(x);
             }
         }
+    }
 
-        return cleared;
+    private void rescanColumn(int x) {
+        long bit = 1L << x;
+        int y = 0;
+        while (y < height && (rows[y] & bit) == 0) y++;
+
+        int h = height - y;
+        int empty = 0;
+        for (; y < height; y++) {
+            if ((rows[y] & bit) == 0) empty++;
+        }
+
+        aggregateHeight += h - heights[x];
+        totalHoles += empty - holes[x];
+        heights[x] = h;
+        holes[x] = empty;
+    }
+
+    // row the piece comes to rest on when dropped straight down from (x, y);
+    // the piece must currently fit at (x, y)
+    public int dropY(ShapeType type, int rotation, int x, int y) {
+        // fast path: every block column sits above that column's surface,
+        // so the landing row follows from the height cache alone
+        int key = ShapeTable.key(type, rotation);
+        int landing = Integer.MAX_VALUE;
+        for (int c = ShapeTable.minX(key); c <= ShapeTable.maxX(key); c++) {
+            int bottom = ShapeTable.columnBottom(key, c);
+
+            int bx = x + c;
+            if (bx < 0 || bx >= width) return probeDropY(type, rotation, x, y);
+
+            int surface = height - heights[bx];
+            if (y + bottom >= surface) return probeDropY(type, rotation, x, y);
+
+            landing = Math.min(landing, surface - 1 - bottom);
+        }
+        return landing;
+    }
+
+    // slow path for pieces tucked under an overhang (or partly outside the walls)
+    private int probeDropY(ShapeType type, int rotation, int x, int y) {
+        while (canPlace(type, rotation, x, y + 1)) y++;
+        return y;
     }
 
     public int getWidth() { return width; }
     public int getHeight() { return height; }
+
+    private final class Features implements BoardFeatures {
+        @Override public int getWidth() { return width; }
+        @Override public int columnHeight(int x) { return heights[x]; }
+        @Override public int columnHoles(int x) { return holes[x]; }
+        @Override public int aggregateHeight() { return aggregateHeight; }
+        @Override public int holes() { return totalHoles; }
+
+        @Override
+        public int maxHeight() {
+            int max = 0;
+            for (int x = 0; x < width; x++) max = Math.max(max, heights[x]);
+            return max;
+        }
+
+        @Override
+        public int bumpiness() {
+            int sum = 0;
+            for (int x = 1; x < width; x++) sum += Math.abs(heights[x] - heights[x - 1]);
+            return sum;
+        }
+
+        @Override
+        public int wellDepth(int x) {
+            int left = (x > 0) ? heights[x - 1] : height;
+            int right = (x < width - 1) ? heights[x + 1] : height;
+            return Math.max(0, Math.min(left, right) - heights[x]);
+        }
+
+        @Override
+        public int maxWellDepth() {
+            int max = 0;
+            for (int x = 0; x < width; x++) max = Math.max(max, wellDepth(x));
+            return max;
+        }
+    }
 }
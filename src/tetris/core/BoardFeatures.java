@@ -0,0 +1,25 @@
+package tetris.core;
+
+// Read-only surface features of a Board, kept up to date by lock() and clearLines().
+// Per-column values are O(1); the aggregates that depend on neighbours are O(width).
+public interface BoardFeatures {
+    int getWidth();
+
+    // rows from the floor up to the topmost block (0 = empty column)
+    int columnHeight(int x);
+
+    // empty cells below the topmost block of the column
+    int columnHoles(int x);
+
+    int aggregateHeight();
+    int holes();
+    int maxHeight();
+
+    // sum of |height difference| between neighbouring columns
+    int bumpiness();
+
+    // how far column x sits below both neighbours (walls count as full height)
+    int wellDepth(int x);
+
+    int maxWellDepth();
+}
@@ -0,0 +1,6 @@
+package tetris.core;
+
+// Input the core understands; the UI (or a bot) maps its own events onto these
+public enum Command {
+    LEFT, RIGHT, SOFT_DROP, ROTATE, HARD_DROP, PAUSE, RESTART
+}
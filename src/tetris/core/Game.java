@@ -4,12 +4,43 @@ import tetris.states.GameState;
 import tetris.states.RunningState;
 import tetris.states.PausedState;
 import tetris.states.GameOverState;
+import tetris.metrics.Metrics;
 
-import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Game {
 
+    // rotationKick() result when no kick lets the rotation fit
+    public static final int NO_KICK = Integer.MIN_VALUE;
+
+    // fixed simulation rate used by advanceFrame(); gravity is derived from it
+    public static final int FRAMES_PER_SECOND = 60;
+
+    // auto-repeat for held keys, in frames: a held LEFT/RIGHT moves once, waits DAS_FRAMES,
+    // then repeats every ARR_FRAMES; a held SOFT_DROP repeats every SOFT_DROP_FRAMES
+    public static final int DAS_FRAMES = 10;
+    public static final int ARR_FRAMES = 2;
+    public static final int SOFT_DROP_FRAMES = 2;
+
+    // simple wall kicks tried after an in-place rotation fails, indexed by ShapeType ordinal:
+    // pieces four or more cells long (the I) may kick two columns, the rest one
+    private static final int[][] KICKS = new int[ShapeType.count()][];
+
+    static {
+        for (ShapeType t : ShapeType.values()) {
+            int key = ShapeTable.key(t, 0);
+            boolean longPiece = ShapeTable.maxX(key) - ShapeTable.minX(key) >= 3;
+            KICKS[t.ordinal()] = longPiece ? new int[]{-2, -1, 1, 2} : new int[]{-1, 1};
+        }
+    }
+
+    private static final ShapeType[] TYPES = ShapeType.values();
+
     private final Board board;
+    private final int spawnX;
+    private long seed;
     private final RandomBag bag;
     private final ScoreManager score;
 
@@ -22,47 +53,257 @@ public class Game {
 
     private GameState state;
 
+    private long frame;          // frames advanced since the last reset
+    private int piecesPlaced;
+    private long pieceSerial;    // bumped whenever a different piece becomes active (never reset)
+    private int gravityCounter;  // frames since the last gravity step
+
+    // held keys (press()/release()); LEFT and RIGHT: the one pressed last repeats
+    private boolean leftHeld;
+    private boolean rightHeld;
+    private boolean softHeld;
+    private Command shift;       // LEFT, RIGHT or null
+    private int shiftTimer;      // frames until the held shift repeats
+    private int softTimer;       // frames until the held soft drop repeats
+
+    private final List<GameListener> listeners = new ArrayList<>();
+
     public Game(int w, int h) {
+        this(w, h, ThreadLocalRandom.current().nextLong());
+    }
+
+    // same seed => same piece sequence, so a game can be replayed exactly
+    public Game(int w, int h, long seed) {
         this.board = new Board(w, h);
-        this.bag = new RandomBag();
+        this.spawnX = Tetromino.spawnX(w);
+        this.seed = seed;
+        this.bag = new RandomBag(seed);
         this.score = new ScoreManager();
 
         this.runningState = new RunningState(this);
         this.pausedState = new PausedState(this);
         this.gameOverState = new GameOverState(this);
 
-        reset();
+        // reset() and every spawn reuse these two
+        this.active = new Tetromino(TYPES[0]);
+        this.next = new Tetromino(TYPES[0]);
+        start();
     }
 
+    // a new game with fresh pieces; its seed follows from the old one, so getSeed() (and a
+    // GameResult recorded later) reproduces this game, and replays with restarts still replay
     public void reset() {
+        seed = RandomBag.successor(seed);
+        bag.reseed(seed);
+        start();
+    }
+
+    private void start() {
         board.clear();
         score.reset();
-        active = new Tetromino(bag.next());
-        next = new Tetromino(bag.next());
+        active.set(bag.next(), 0, spawnX, Tetromino.SPAWN_Y);
+        pieceSerial++;
+        next.set(bag.next(), 0, spawnX, Tetromino.SPAWN_Y);
         state = runningState;
+        frame = 0;
+        gravityCounter = 0;
+        piecesPlaced = 0;
+        leftHeld = false;
+        rightHeld = false;
+        softHeld = false;
+        shift = null;
+        shiftTimer = 0;
+        softTimer = 0;
 
         // if spawn collides => game over
         if (!board.canPlace(active)) {
-            state = gameOverState;
+            topOut();
         }
     }
 
+    public void addListener(GameListener l) { listeners.add(l); }
+    public void removeListener(GameListener l) { listeners.remove(l); }
+
     public void tick() {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        for (int i = 0; i < listeners.size(); i++) listeners.get(i).onTick(this);
         state.tick();
+        if (Metrics.ENABLED) Metrics.TICK.record(System.nanoTime() - start);
+    }
+
+    // advance the simulation by one fixed frame; gravity fires every
+    // getGravityFrames() running frames, so it is independent of wall-clock time
+    public void advanceFrame() {
+        if (state != runningState) return;
+        frame++;
+        autoRepeat();
+        if (state != runningState) return; // a repeated soft drop can top out
+        if (++gravityCounter >= getGravityFrames()) {
+            gravityCounter = 0;
+            tick();
+        }
+    }
+
+    public int getGravityFrames() {
+        int frames = (score.getDelayMs() * FRAMES_PER_SECOND + 500) / 1000;
+        return Math.max(1, frames);
+    }
+
+    public void onCommand(Command command) {
+        for (int i = 0; i < listeners.size(); i++) listeners.get(i).onCommand(this, command);
+        state.onCommand(command);
+    }
+
+    // A key went down: the command applies at once and, for LEFT, RIGHT and SOFT_DROP,
+    // repeats from advanceFrame() while the key stays held. Repeats go through
+    // onCommand(), so listeners (and replays) see them as ordinary commands.
+    public void press(Command command) {
+        switch (command) {
+            case LEFT -> {
+                leftHeld = true;
+                shift = Command.LEFT;
+                shiftTimer = DAS_FRAMES;
+            }
+            case RIGHT -> {
+                rightHeld = true;
+                shift = Command.RIGHT;
+                shiftTimer = DAS_FRAMES;
+            }
+            case SOFT_DROP -> {
+                softHeld = true;
+                softTimer = SOFT_DROP_FRAMES;
+            }
+            default -> { }
+        }
+        onCommand(command);
+    }
+
+    public void release(Command command) {
+        switch (command) {
+            case LEFT -> {
+                leftHeld = false;
+                if (shift == Command.LEFT) releaseShift(rightHeld ? Command.RIGHT : null);
+            }
+            case RIGHT -> {
+                rightHeld = false;
+                if (shift == Command.RIGHT) releaseShift(leftHeld ? Command.LEFT : null);
+            }
+            case SOFT_DROP -> softHeld = false;
+            default -> { }
+        }
+    }
+
+    // the other direction is still held: it takes over, charging DAS from scratch
+    private void releaseShift(Command other) {
+        shift = other;
+        shiftTimer = DAS_FRAMES;
     }
 
-    public void onKeyPressed(int keyCode) {
-        state.onKeyPressed(keyCode);
+    private void autoRepeat() {
+        if (shift != null && --shiftTimer <= 0) {
+            shiftTimer = ARR_FRAMES;
+            onCommand(shift);
+        }
+        if (softHeld && --softTimer <= 0) {
+            softTimer = SOFT_DROP_FRAMES;
+            onCommand(Command.SOFT_DROP);
+        }
     }
 
     public String getStateName() {
         return state.name();
     }
 
+    public boolean isRunning() { return state == runningState; }
+    public boolean isGameOver() { return state == gameOverState; }
+    public long getFrame() { return frame; }
+    public int getPiecesPlaced() { return piecesPlaced; }
+    public long getPieceSerial() { return pieceSerial; }
+
     public Board getBoard() { return board; }
     public ScoreManager getScore() { return score; }
     public Tetromino getActive() { return active; }
     public Tetromino getNext() { return next; }
+    public long getSeed() { return seed; }
+
+    // n-th piece of the preview queue (0 = getNext()) without consuming it
+    public ShapeType peekQueue(int n) {
+        return n == 0 ? next.getType() : bag.peek(n - 1);
+    }
+
+    // pieces that can still follow getNext() before the bag refills (see RandomBag.remaining())
+    public long bagRemaining() {
+        return bag.remaining();
+    }
+
+    /* ---------------- Snapshots (see GameSnapshot) ---------------- */
+
+    static final int SNAPSHOT_HEADER = 7;
+
+    static int snapshotWords(int width, int height) {
+        return SNAPSHOT_HEADER + RandomBag.SNAPSHOT_WORDS + Board.snapshotWords(width, height);
+    }
+
+    // layout: seed | frame | score, lines | level, pieces | gravity counter, state, active type,
+    // active rotation, next type | active x, y | held keys, shift timer, soft timer
+    // -- then the bag and the board
+    void writeSnapshot(long[] dst, int off) {
+        dst[off] = seed;
+        dst[off + 1] = frame;
+        dst[off + 2] = (long) score.getScore() << 32 | (score.getLines() & 0xFFFFFFFFL);
+        dst[off + 3] = (long) score.getLevel() << 32 | (piecesPlaced & 0xFFFFFFFFL);
+        dst[off + 4] = (gravityCounter & 0xFFFFFFFFL)
+                | (long) stateIndex() << 32
+                | (long) active.getType().ordinal() << 40
+                | (long) active.getRotation() << 48
+                | (long) next.getType().ordinal() << 56;
+        dst[off + 5] = (long) active.getX() << 32 | (active.getY() & 0xFFFFFFFFL);
+        dst[off + 6] = (leftHeld ? 1 : 0) | (rightHeld ? 2 : 0) | (softHeld ? 4 : 0)
+                | (shift == null ? 0 : shift == Command.LEFT ? 8 : 16)
+                | (long) shiftTimer << 8
+                | (long) softTimer << 32;
+
+        off += SNAPSHOT_HEADER;
+        bag.writeSnapshot(dst, off);
+        board.writeSnapshot(dst, off + RandomBag.SNAPSHOT_WORDS);
+    }
+
+    void readSnapshot(long[] src, int off) {
+        seed = src[off];
+        frame = src[off + 1];
+        score.restore((int) (src[off + 2] >>> 32), (int) src[off + 2], (int) (src[off + 3] >>> 32));
+        piecesPlaced = (int) src[off + 3];
+
+        long w = src[off + 4];
+        gravityCounter = (int) w;
+        state = switch ((int) (w >>> 32) & 0xFF) {
+            case 0 -> runningState;
+            case 1 -> pausedState;
+            default -> gameOverState;
+        };
+        long pos = src[off + 5];
+        active.set(TYPES[(int) (w >>> 40) & 0xFF], (int) (w >>> 48) & 0xFF, (int) (pos >>> 32), (int) pos);
+        next.set(TYPES[(int) (w >>> 56) & 0xFF], 0, spawnX, Tetromino.SPAWN_Y);
+
+        pieceSerial++;
+
+        long keys = src[off + 6];
+        leftHeld = (keys & 1) != 0;
+        rightHeld = (keys & 2) != 0;
+        softHeld = (keys & 4) != 0;
+        shift = (keys & 8) != 0 ? Command.LEFT : (keys & 16) != 0 ? Command.RIGHT : null;
+        shiftTimer = (int) (keys >>> 8) & 0xFFFFFF;
+        softTimer = (int) (keys >>> 32);
+
+        off += SNAPSHOT_HEADER;
+        bag.readSnapshot(src, off);
+        board.readSnapshot(src, off + RandomBag.SNAPSHOT_WORDS);
+    }
+
+    private int stateIndex() {
+        if (state == runningState) return 0;
+        return (state == pausedState) ? 1 : 2;
+    }
 
     /* ---------------- Running behavior ---------------- */
 
@@ -74,39 +315,37 @@ public class Game {
         lockAndSpawn();
     }
 
-    public void handleRunningKey(int keyCode) {
-        switch (keyCode) {
-            case KeyEvent.VK_LEFT -> tryMove(-1, 0);
-            case KeyEvent.VK_RIGHT -> tryMove(1, 0);
-            case KeyEvent.VK_DOWN -> {
+    public void handleRunningCommand(Command command) {
+        switch (command) {
+            case LEFT -> tryMove(-1, 0);
+            case RIGHT -> tryMove(1, 0);
+            case SOFT_DROP -> {
                 if (tryMove(0, 1)) score.onSoftDropStep();
                 else lockAndSpawn();
             }
-            case KeyEvent.VK_UP -> tryRotateCWWithSimpleKick();
-            case KeyEvent.VK_SPACE -> hardDrop();
-            case KeyEvent.VK_P -> state = pausedState;
-            case KeyEvent.VK_R -> reset();
+            case ROTATE -> tryRotateCWWithSimpleKick();
+            case HARD_DROP -> hardDrop();
+            case PAUSE -> state = pausedState;
+            case RESTART -> reset();
         }
     }
 
-    public void handlePausedKey(int keyCode) {
-        if (keyCode == KeyEvent.VK_P) {
+    public void handlePausedCommand(Command command) {
+        if (command == Command.PAUSE) {
             state = runningState;
-        } else if (keyCode == KeyEvent.VK_R) {
+        } else if (command == Command.RESTART) {
             reset();
         }
     }
 
-    public void handleGameOverKey(int keyCode) {
-        if (keyCode == KeyEvent.VK_R) {
+    public void handleGameOverCommand(Command command) {
+        if (command == Command.RESTART) {
             reset();
         }
     }
 
     private boolean tryMove(int dx, int dy) {
-        Tetromino test = active.copy();
-        test.move(dx, dy);
-        if (board.canPlace(test)) {
+        if (board.canPlace(active.getType(), active.getRotation(), active.getX() + dx, active.getY() + dy)) {
             active.move(dx, dy);
             return true;
         }
@@ -114,58 +353,70 @@ public class Game {
     }
 
     private void tryRotateCWWithSimpleKick() {
-        Tetromino test = active.copy();
-        test.rotateCW();
+        int k = rotationKick(board, active.getType(), active.getRotation(), active.getX(), active.getY());
+        if (k == NO_KICK) return; // rotation fails, do nothing
 
-        //rotate in place
-        if (board.canPlace(test)) {
-            active.rotateCW();
-            return;
-        }
+        active.rotateCW();
+        active.move(k, 0);
+    }
 
-        // simple wall kicks 
-        int[] kicks = (active.getType() == ShapeType.I) ? new int[]{-2, -1, 1, 2} : new int[]{-1, 1};
+    // horizontal shift that lets a CW rotation from (rotation, x, y) fit: 0 rotates in place,
+    // otherwise the first simple wall kick that fits; NO_KICK if none does.
+    // Shared with the AI so its move generator follows exactly the same rules.
+    public static int rotationKick(Board board, ShapeType type, int rotation, int x, int y) {
+        int target = (rotation + 1) & 3;
+        if (board.canPlace(type, target, x, y)) return 0;
 
-        for (int k : kicks) {
-            Tetromino kicked = test.copy();
-            kicked.move(k, 0);
-            if (board.canPlace(kicked)) {
-                active.rotateCW();
-                active.move(k, 0);
-                return;
-            }
+        for (int k : KICKS[type.ordinal()]) {
+            if (board.canPlace(type, target, x + k, y)) return k;
         }
-
-        // else rotation fails, do nothing
+        return NO_KICK;
     }
 
     private void hardDrop() {
-        int dist = 0;
-        while (true) {
-            Tetromino test = active.copy();
-            test.move(0, 1);
-            if (!board.canPlace(test)) break;
-            active.move(0, 1);
-            dist++;
+        int y = active.getY();
+        int dist = board.dropY(active.getType(), active.getRotation(), active.getX(), y) - y;
+        if (dist > 0) {
+            active.move(0, dist);
+            score.onHardDrop(dist);
         }
-        if (dist > 0) score.onHardDrop(dist);
         lockAndSpawn();
     }
 
     private void lockAndSpawn() {
+        for (int i = 0; i < listeners.size(); i++) listeners.get(i).onLock(this, active);
         board.lock(active);
+        piecesPlaced++;
 
         int cleared = board.clearLines();
         score.onLinesCleared(cleared);
+        if (Metrics.ENABLED) Metrics.recordLock(cleared);
+        for (int i = 0; i < listeners.size(); i++) listeners.get(i).onLocked(this, cleared);
 
-        // spawn next
+        // spawn next; the locked piece's Tetromino becomes the new preview
+        Tetromino locked = active;
         active = next;
-        active.setPosition(3, -2);
-        next = new Tetromino(bag.next());
+        pieceSerial++;
+        active.setPosition(spawnX, Tetromino.SPAWN_Y);
+        locked.set(bag.next(), 0, spawnX, Tetromino.SPAWN_Y);
+        next = locked;
 
         // check game over
         if (!board.canPlace(active)) {
-            state = gameOverState;
+            topOut();
         }
     }
+
+    // raises count garbage rows under the stack (see Board.addGarbage); the game tops out
+    // if that pushes blocks off the top or into the active piece
+    public void addGarbage(int count, int[] holeColumns) {
+        if (state == gameOverState) return;
+        boolean overflow = board.addGarbage(count, holeColumns);
+        if (overflow || !board.canPlace(active)) topOut();
+    }
+
+    private void topOut() {
+        state = gameOverState;
+        for (int i = 0; i < listeners.size(); i++) listeners.get(i).onGameOver(this);
+    }
 }
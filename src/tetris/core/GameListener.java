@@ -0,0 +1,21 @@
+package tetris.core;
+
+// Hooks into a Game's input and clock. All methods default to no-ops.
+public interface GameListener {
+    // a command is about to be applied (whatever the current state makes of it)
+    default void onCommand(Game game, Command command) {}
+
+    // tick() was called: one gravity step, by a timer or by advanceFrame()
+    default void onTick(Game game) {}
+
+    // the active piece is about to lock where it is: the board doesn't include it yet,
+    // and the piece must not be changed
+    default void onLock(Game game, Tetromino piece) {}
+
+    // the piece locked and clearLines() removed `cleared` rows (usually 0); the next
+    // piece hasn't spawned yet
+    default void onLocked(Game game, int cleared) {}
+
+    // the game just topped out; its score, lines and pieces are final
+    default void onGameOver(Game game) {}
+}
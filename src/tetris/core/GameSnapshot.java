@@ -0,0 +1,68 @@
+package tetris.core;
+
+import java.nio.ByteBuffer;
+
+// Saves and restores the whole state of a Game (board, pieces, score, bag and clock)
+// as a fixed-size run of longs, in place and without allocating. The layout depends
+// only on the board size, so snapshots can be packed back to back in one long[] or
+// ByteBuffer (heap, direct or mapped) and restored by index.
+//
+// Layout: a check word (magic, width, height) followed by Game.writeSnapshot().
+// Not thread-safe: the ByteBuffer methods stage through a per-instance array.
+public final class GameSnapshot {
+    private static final int MAGIC = 0x54534E50; // "TSNP"
+
+    private final int width;
+    private final int height;
+    private final int words;
+    private final long check;
+    private final long[] scratch;
+
+    public GameSnapshot(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.words = 1 + Game.snapshotWords(width, height);
+        this.check = (long) MAGIC << 32 | (long) width << 16 | height;
+        this.scratch = new long[words];
+    }
+
+    public static GameSnapshot forGame(Game game) {
+        return new GameSnapshot(game.getBoard().getWidth(), game.getBoard().getHeight());
+    }
+
+    // snapshot size in longs / in bytes
+    public int words() { return words; }
+    public int bytes() { return words * Long.BYTES; }
+
+    public void save(Game game, long[] dst, int off) {
+        checkSize(game);
+        dst[off] = check;
+        game.writeSnapshot(dst, off + 1);
+    }
+
+    public void restore(Game game, long[] src, int off) {
+        checkSize(game);
+        if (src[off] != check) {
+            throw new IllegalArgumentException("no " + width + "x" + height + " snapshot at offset " + off);
+        }
+        game.readSnapshot(src, off + 1);
+    }
+
+    // absolute writes starting at byte `index`, in the buffer's byte order; position is untouched
+    public void save(Game game, ByteBuffer dst, int index) {
+        save(game, scratch, 0);
+        for (int i = 0; i < words; i++) dst.putLong(index + i * Long.BYTES, scratch[i]);
+    }
+
+    public void restore(Game game, ByteBuffer src, int index) {
+        for (int i = 0; i < words; i++) scratch[i] = src.getLong(index + i * Long.BYTES);
+        restore(game, scratch, 0);
+    }
+
+    private void checkSize(Game game) {
+        Board b = game.getBoard();
+        if (b.getWidth() != width || b.getHeight() != height) {
+            throw new IllegalArgumentException("snapshot is for " + width + "x" + height + " boards");
+        }
+    }
+}
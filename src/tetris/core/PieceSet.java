@@ -0,0 +1,228 @@
+package tetris.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// The pieces a game is played with: for each piece a name and its cells in all four
+// rotations, as (x, y) inside a square box shared by the whole set. ShapeTable and
+// ShapeType are built from the set named by -Dtetris.pieces=<file> when the JVM starts
+// (the seven standard tetrominoes otherwise), so the tables stay static final and the
+// hot paths compile the same as with a hard-coded set.
+//
+// File format, one piece after another; blank lines and // comments are ignored:
+//
+//   box 5              side of the shared box, 2..8 (default: the largest piece grid)
+//   piece F            name, optionally followed by the grid's x y offset in the box
+//   .##                rotation 0 as a square grid, # = block; rotations 1..3 are
+//   ##.                this grid turned clockwise about its own center
+//   .#.
+//
+// Grids are centered in the box unless an offset is given. Every piece of a set
+// must have the same number of blocks.
+public final class PieceSet {
+    public static final int MAX_BOX = 8;
+    public static final int MAX_PIECES = 63;
+
+    private static final PieceSet STANDARD = standardSet();
+    private static final PieceSet ACTIVE = fromProperty();
+
+    private final String source;
+    private final int box;
+    private final int blocks;
+    private final String[] names;
+    private final int[][][] coords; // [piece][rotation] = {x0, y0, x1, y1, ...} in the box
+    private final long fingerprint;
+
+    private PieceSet(String source, int box, String[] names, int[][][] coords) {
+        this.source = source;
+        this.box = box;
+        this.names = names;
+        this.coords = coords;
+        this.blocks = coords[0][0].length / 2;
+        this.fingerprint = fingerprint(box, names, coords);
+    }
+
+    public static PieceSet standard() { return STANDARD; }
+
+    // the set this JVM plays with
+    public static PieceSet active() { return ACTIVE; }
+
+    public String getSource() { return source; }
+    public int getBox() { return box; }
+    public int getBlocks() { return blocks; }
+    public int size() { return names.length; }
+    public String name(int piece) { return names[piece]; }
+
+    // copy of the cells of one piece in one rotation, {x0, y0, x1, y1, ...}
+    public int[] cells(int piece, int rotation) { return coords[piece][rotation & 3].clone(); }
+
+    // 64-bit hash of the box, the piece names and every cell: sets that play the same hash
+    // the same wherever they were loaded from (replays use it to refuse another set)
+    public long fingerprint() { return fingerprint; }
+
+    private static long fingerprint(int box, String[] names, int[][][] coords) {
+        long h = 0xCBF29CE484222325L; // FNV-1a over ints
+        h = (h ^ box) * 0x100000001B3L;
+        for (int p = 0; p < names.length; p++) {
+            h = (h ^ names[p].hashCode()) * 0x100000001B3L;
+            for (int[] rotation : coords[p]) {
+                for (int c : rotation) h = (h ^ c) * 0x100000001B3L;
+            }
+        }
+        return h;
+    }
+
+    private static PieceSet fromProperty() {
+        String file = System.getProperty("tetris.pieces");
+        if (file == null || file.isEmpty()) return STANDARD;
+        try {
+            return load(Path.of(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("can't load piece set " + file, e);
+        }
+    }
+
+    public static PieceSet load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8), file.toString());
+    }
+
+    public static PieceSet parse(List<String> lines, String source) throws IOException {
+        int box = 0;
+        List<String> names = new ArrayList<>();
+        List<int[]> offsets = new ArrayList<>();  // {x, y} or null
+        List<List<String>> grids = new ArrayList<>();
+
+        for (int n = 0; n < lines.size(); n++) {
+            String t = lines.get(n).trim();
+            if (t.isEmpty() || t.startsWith("//")) continue;
+
+            String[] words = t.split("\\s+");
+            String where = source + ":" + (n + 1);
+            if (words[0].equals("box")) {
+                box = parseInt(words, 1, where);
+            } else if (words[0].equals("piece")) {
+                if (words.length != 2 && words.length != 4) throw new IOException(where + ": expected 'piece NAME [x y]'");
+                names.add(words[1]);
+                offsets.add(words.length == 4 ? new int[] { parseInt(words, 2, where), parseInt(words, 3, where) } : null);
+                grids.add(new ArrayList<>());
+            } else if (t.matches("[.#]+")) {
+                if (grids.isEmpty()) throw new IOException(where + ": grid row before any 'piece' line");
+                grids.get(grids.size() - 1).add(t);
+            } else {
+                throw new IOException(where + ": unknown line '" + t + "'");
+            }
+        }
+
+        if (names.isEmpty()) throw new IOException(source + ": no pieces");
+        if (names.size() > MAX_PIECES) throw new IOException(source + ": more than " + MAX_PIECES + " pieces");
+
+        for (List<String> g : grids) box = Math.max(box, g.size());
+        if (box < 2 || box > MAX_BOX) throw new IOException(source + ": box must be 2.." + MAX_BOX);
+
+        int[][][] coords = new int[names.size()][4][];
+        int blocks = -1;
+        for (int p = 0; p < names.size(); p++) {
+            String where = source + ": piece " + names.get(p);
+            List<String> g = grids.get(p);
+            int size = g.size();
+            if (size == 0) throw new IOException(where + " has no grid");
+            for (String row : g) {
+                if (row.length() != size) throw new IOException(where + ": grid must be square");
+            }
+
+            int[] off = offsets.get(p);
+            int ox = (off != null) ? off[0] : (box - size) / 2;
+            int oy = (off != null) ? off[1] : (box - size) / 2;
+            if (ox < 0 || oy < 0 || ox + size > box || oy + size > box) throw new IOException(where + " doesn't fit the box");
+
+            int count = 0;
+            for (String row : g) count += row.chars().filter(c -> c == '#').count();
+            if (count == 0) throw new IOException(where + " has no blocks");
+            if (blocks >= 0 && count != blocks) throw new IOException(where + ": all pieces need " + blocks + " blocks");
+            blocks = count;
+
+            for (int r = 0; r < 4; r++) {
+                int[] c = new int[count * 2];
+                int i = 0;
+                for (int y = 0; y < size; y++) {
+                    for (int x = 0; x < size; x++) {
+                        // cell (x, y) of rotation r comes from rotation 0 turned back r times
+                        int sx = x, sy = y;
+                        for (int k = 0; k < r; k++) {
+                            int tx = sy;
+                            sy = size - 1 - sx;
+                            sx = tx;
+                        }
+                        if (g.get(sy).charAt(sx) != '#') continue;
+                        c[i++] = ox + x;
+                        c[i++] = oy + y;
+                    }
+                }
+                coords[p][r] = c;
+            }
+        }
+        return new PieceSet(source, box, names.toArray(new String[0]), coords);
+    }
+
+    private static int parseInt(String[] words, int i, String where) throws IOException {
+        try {
+            return Integer.parseInt(words[i]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException(where + ": expected a number");
+        }
+    }
+
+    // The standard tetrominoes, spelled out cell by cell so block order matches the original tables
+    private static PieceSet standardSet() {
+        int[][][] coords = {
+                { // I
+                        {0,1, 1,1, 2,1, 3,1},
+                        {2,0, 2,1, 2,2, 2,3},
+                        {0,2, 1,2, 2,2, 3,2},
+                        {1,0, 1,1, 1,2, 1,3}
+                },
+                { // O
+                        {1,1, 2,1, 1,2, 2,2},
+                        {1,1, 2,1, 1,2, 2,2},
+                        {1,1, 2,1, 1,2, 2,2},
+                        {1,1, 2,1, 1,2, 2,2}
+                },
+                { // T
+                        {1,1, 0,2, 1,2, 2,2},
+                        {1,1, 1,2, 2,2, 1,3},
+                        {0,2, 1,2, 2,2, 1,3},
+                        {1,1, 0,2, 1,2, 1,3}
+                },
+                { // S
+                        {1,1, 2,1, 0,2, 1,2},
+                        {1,1, 1,2, 2,2, 2,3},
+                        {1,2, 2,2, 0,3, 1,3},
+                        {0,1, 0,2, 1,2, 1,3}
+                },
+                { // Z
+                        {0,1, 1,1, 1,2, 2,2},
+                        {2,1, 1,2, 2,2, 1,3},
+                        {0,2, 1,2, 1,3, 2,3},
+                        {1,1, 0,2, 1,2, 0,3}
+                },
+                { // J
+                        {0,1, 0,2, 1,2, 2,2},
+                        {1,1, 2,1, 1,2, 1,3},
+                        {0,2, 1,2, 2,2, 2,3},
+                        {1,1, 1,2, 0,3, 1,3}
+                },
+                { // L
+                        {2,1, 0,2, 1,2, 2,2},
+                        {1,1, 1,2, 1,3, 2,3},
+                        {0,2, 1,2, 2,2, 0,3},
+                        {0,1, 1,1, 1,2, 1,3}
+                }
+        };
+        return new PieceSet("standard", 4, new String[] { "I", "O", "T", "S", "Z", "J", "L" }, coords);
+    }
+}
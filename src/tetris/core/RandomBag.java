@@ -1,22 +1,192 @@
 package tetris.core;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
+// 7-bag randomizer. Upcoming pieces sit in a small ring of shape ordinals so they
+// can be peeked without being consumed; whole bags are generated on demand.
+//
+// The generator is SplitMix64 kept inline as two longs (the same algorithm and
+// sequences as java.util.SplittableRandom), so the whole bag state can be saved
+// and restored without allocation.
 public class RandomBag {
-    private final Random rng = new Random();
-    private final List<ShapeType> bag = new ArrayList<>();
+    private static final ShapeType[] TYPES = ShapeType.values();
+    private static final int BAG_SIZE = TYPES.length;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // largest queue a snapshot can hold (peeking further ahead than this is never needed in play):
+    // 24 for the standard seven, room for two bags and change with bigger piece sets
+    static final int SNAPSHOT_QUEUE = Math.max(24, (2 * BAG_SIZE + 10 + 7) & ~7);
+    static final int SNAPSHOT_WORDS = 3 + SNAPSHOT_QUEUE / 8;
+
+    private long seed;
+    private long gamma; // odd; GOLDEN_GAMMA unless this bag came from split()
+
+    private byte[] queue = new byte[16]; // power of two, holds at least two bags
+    private int head;
+    private int size;
+
+    public RandomBag() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    public RandomBag(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private RandomBag(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    // starts over exactly as new RandomBag(seed) would, keeping the queue's storage
+    public void reseed(long seed) {
+        this.seed = seed;
+        this.gamma = GOLDEN_GAMMA;
+        head = 0;
+        size = 0;
+    }
+
+    // seed for the game after one played with `seed`: reproducible, and unrelated to
+    // the earlier game's pieces
+    static long successor(long seed) {
+        return mix64(seed + GOLDEN_GAMMA);
+    }
+
+    // independent bag whose sequence is fully determined by this bag's seed
+    public RandomBag split() {
+        return new RandomBag(mix64(nextSeed()), mixGamma(nextSeed()));
+    }
+
+    // n independent, reproducible streams (e.g. one per worker thread)
+    public static RandomBag[] streams(long seed, int n) {
+        RandomBag root = new RandomBag(seed);
+        RandomBag[] bags = new RandomBag[n];
+        for (int i = 0; i < n; i++) bags[i] = root.split();
+        return bags;
+    }
 
     public ShapeType next() {
-        if (bag.isEmpty()) refill();
-        return bag.remove(bag.size() - 1);
+        if (size == 0) refill();
+        byte t = queue[head];
+        head = (head + 1) & (queue.length - 1);
+        size--;
+        return TYPES[t];
+    }
+
+    // n-th upcoming piece (0 = what next() returns) without consuming anything
+    public ShapeType peek(int n) {
+        while (size <= n) refill();
+        return TYPES[queue[(head + n) & (queue.length - 1)]];
+    }
+
+    // Pieces the current bag has yet to deal, as a bitmask of ordinals (all pieces when the
+    // last bag just ran out). The queue is the rest of the current bag followed by whole
+    // bags, so these are its first size % BAG_SIZE entries. This is what a player who
+    // counts pieces knows: which pieces are still to come, not in what order.
+    public long remaining() {
+        int left = size % BAG_SIZE;
+        if (left == 0) return allPieces();
+        long mask = 0;
+        for (int i = 0; i < left; i++) mask |= 1L << queue[(head + i) & (queue.length - 1)];
+        return mask;
+    }
+
+    // mask of every piece, i.e. a full bag (piece sets have at most 63 pieces)
+    public static long allPieces() {
+        return (1L << BAG_SIZE) - 1;
+    }
+
+    // layout: seed | gamma | queued count | queued ordinals, 8 per word, low byte first
+    void writeSnapshot(long[] dst, int off) {
+        if (size > SNAPSHOT_QUEUE) {
+            throw new IllegalStateException("bag has " + size + " queued pieces, snapshots hold " + SNAPSHOT_QUEUE);
+        }
+        dst[off] = seed;
+        dst[off + 1] = gamma;
+        dst[off + 2] = size;
+
+        int mask = queue.length - 1;
+        for (int w = 0; w < SNAPSHOT_QUEUE / 8; w++) {
+            long packed = 0;
+            for (int b = 0; b < 8; b++) {
+                int i = w * 8 + b;
+                if (i < size) packed |= (long) queue[(head + i) & mask] << (b * 8);
+            }
+            dst[off + 3 + w] = packed;
+        }
+    }
+
+    void readSnapshot(long[] src, int off) {
+        seed = src[off];
+        gamma = src[off + 1];
+        size = (int) src[off + 2];
+        head = 0;
+        if (queue.length < size) queue = new byte[Integer.highestOneBit(size) * 2];
+
+        for (int i = 0; i < size; i++) {
+            queue[i] = (byte) (src[off + 3 + i / 8] >>> ((i & 7) * 8));
+        }
     }
 
     private void refill() {
-        bag.clear();
-        Collections.addAll(bag, ShapeType.values());
-        Collections.shuffle(bag, rng);
+        if (size + BAG_SIZE > queue.length) grow();
+
+        int mask = queue.length - 1;
+        int tail = head + size;
+        for (int i = 0; i < BAG_SIZE; i++) queue[(tail + i) & mask] = (byte) i;
+
+        // Fisher-Yates over the freshly appended bag
+        for (int i = BAG_SIZE - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int a = (tail + i) & mask;
+            int b = (tail + j) & mask;
+            byte tmp = queue[a];
+            queue[a] = queue[b];
+            queue[b] = tmp;
+        }
+        size += BAG_SIZE;
+    }
+
+    private void grow() {
+        byte[] bigger = new byte[queue.length * 2];
+        for (int i = 0; i < size; i++) bigger[i] = queue[(head + i) & (queue.length - 1)];
+        queue = bigger;
+        head = 0;
+    }
+
+    /* ---------------- SplitMix64 ---------------- */
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    // uniform in [0, bound), same rejection scheme as SplittableRandom.nextInt(bound)
+    private int nextInt(int bound) {
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0) return r & m;
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+            // reject the biased tail
+        }
+        return r;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62A9D9ED799705F5L;
+        return (int) (((z ^ (z >>> 28)) * 0xCB24D0A5C88C35B3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xAAAAAAAAAAAAAAAAL : z;
     }
 }
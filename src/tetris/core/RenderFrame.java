@@ -0,0 +1,97 @@
+package tetris.core;
+
+import java.util.Arrays;
+
+// Flat copy of everything the screen shows at one point of a game: cell colors,
+// per-row versions, both pieces, score fields and state. Filled by the simulation
+// thread with capture(), then handed to a renderer (see tetris.loop.FrameExchange),
+// so painting never reads the live Game. Frames are reused: capture() only copies
+// the rows whose Board version moved since this frame last saw them.
+public final class RenderFrame {
+    private static final ShapeType[] TYPES = ShapeType.values();
+
+    private final int width;
+    private final int height;
+    private final byte[] cells;       // row-major color indices
+    private final int[] rowVersions;  // Board.getRowVersion() of each copied row
+
+    private int activeType = -1;      // ShapeType ordinal, -1 before the first capture
+    private int activeRotation;
+    private int activeX;
+    private int activeY;
+    private long pieceSerial;
+    private int nextType;
+
+    private int score;
+    private int lines;
+    private int level;
+    private String state;
+    private long frame;
+    private long capturedNanos;
+    private long inputNanos;          // when the earliest key press applied since the last frame arrived, 0 if none
+
+    public RenderFrame(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[width * height];
+        this.rowVersions = new int[height];
+        Arrays.fill(rowVersions, -1);
+    }
+
+    public void capture(Game game) {
+        capture(game, 0);
+    }
+
+    public void capture(Game game, long inputNanos) {
+        Board board = game.getBoard();
+        int[][] grid = board.getGrid();
+        for (int y = 0; y < height; y++) {
+            int v = board.getRowVersion(y);
+            if (v == rowVersions[y]) continue;
+            rowVersions[y] = v;
+            int[] row = grid[y];
+            int base = y * width;
+            for (int x = 0; x < width; x++) cells[base + x] = (byte) row[x];
+        }
+
+        Tetromino active = game.getActive();
+        activeType = active.getType().ordinal();
+        activeRotation = active.getRotation();
+        activeX = active.getX();
+        activeY = active.getY();
+        pieceSerial = game.getPieceSerial();
+        nextType = game.getNext().getType().ordinal();
+
+        ScoreManager s = game.getScore();
+        score = s.getScore();
+        lines = s.getLines();
+        level = s.getLevel();
+        state = game.getStateName();
+        frame = game.getFrame();
+        capturedNanos = System.nanoTime();
+        this.inputNanos = inputNanos;
+    }
+
+    public boolean isEmpty() { return activeType < 0; }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int cell(int x, int y) { return cells[y * width + x]; }
+    public int getRowVersion(int y) { return rowVersions[y]; }
+
+    public ShapeType getActiveType() { return TYPES[activeType]; }
+    public int getActiveRotation() { return activeRotation; }
+    public int getActiveX() { return activeX; }
+    public int getActiveY() { return activeY; }
+    public int activeShapeKey() { return ShapeTable.key(TYPES[activeType], activeRotation); }
+    public long getPieceSerial() { return pieceSerial; }
+    public ShapeType getNextType() { return TYPES[nextType]; }
+
+    public int getScore() { return score; }
+    public int getLines() { return lines; }
+    public int getLevel() { return level; }
+    public String getState() { return state; }
+    public long getFrame() { return frame; }
+    public long getCapturedNanos() { return capturedNanos; }
+    public long getInputNanos() { return inputNanos; }
+}
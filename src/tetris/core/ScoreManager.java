@@ -11,6 +11,12 @@ public class ScoreManager {
         level = 1;
     }
 
+    void restore(int score, int lines, int level) {
+        this.score = score;
+        this.lines = lines;
+        this.level = level;
+    }
+
     public void onLinesCleared(int cleared) {
         if (cleared <= 0) return;
 
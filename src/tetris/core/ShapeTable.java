@@ -0,0 +1,66 @@
+package tetris.core;
+
+// Precomputed geometry for every (shape, rotation) of the active PieceSet, flattened
+// into primitive arrays. A pair is addressed by key(type, rotation) = ordinal * 4 + rotation;
+// per-block data sit at key * BLOCKS + i, per-row and per-column data at key * BOX + i.
+// Coordinates are inside the set's BOX x BOX box (4x4 for the standard tetrominoes).
+// All sizes are static finals, so with the standard set the index math compiles to
+// the same shifts as the original hard-coded tables.
+public final class ShapeTable {
+    private static final PieceSet SET = PieceSet.active();
+
+    public static final int BOX = SET.getBox();
+    public static final int BLOCKS = SET.getBlocks();
+
+    private static final int KEYS = SET.size() * 4;
+
+    private static final byte[] CELLS = new byte[KEYS * BLOCKS];     // x << 4 | y
+    private static final int[] ROW_MASKS = new int[KEYS * BOX];      // bit x set => block at box column x
+    private static final byte[] COLUMN_BOTTOMS = new byte[KEYS * BOX]; // lowest box row per column, -1 if empty
+    private static final byte[] MIN_X = new byte[KEYS];
+    private static final byte[] MAX_X = new byte[KEYS];
+    private static final byte[] MIN_Y = new byte[KEYS];
+    private static final byte[] MAX_Y = new byte[KEYS];
+
+    static {
+        for (int key = 0; key < KEYS; key++) {
+            int[] coords = SET.cells(key >> 2, key & 3);
+            int minX = BOX - 1, maxX = 0, minY = BOX - 1, maxY = 0;
+            for (int c = 0; c < BOX; c++) COLUMN_BOTTOMS[key * BOX + c] = -1;
+
+            for (int i = 0; i < BLOCKS; i++) {
+                int x = coords[i * 2];
+                int y = coords[i * 2 + 1];
+                CELLS[key * BLOCKS + i] = (byte) (x << 4 | y);
+                ROW_MASKS[key * BOX + y] |= 1 << x;
+                COLUMN_BOTTOMS[key * BOX + x] = (byte) Math.max(COLUMN_BOTTOMS[key * BOX + x], y);
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+            }
+            MIN_X[key] = (byte) minX;
+            MAX_X[key] = (byte) maxX;
+            MIN_Y[key] = (byte) minY;
+            MAX_Y[key] = (byte) maxY;
+        }
+    }
+
+    private ShapeTable() {}
+
+    public static int key(ShapeType type, int rotation) {
+        return type.ordinal() << 2 | rotation;
+    }
+
+    public static int cellX(int key, int i) { return CELLS[key * BLOCKS + i] >> 4; }
+    public static int cellY(int key, int i) { return CELLS[key * BLOCKS + i] & 15; }
+
+    public static int rowMask(int key, int row) { return ROW_MASKS[key * BOX + row]; }
+    public static int columnBottom(int key, int column) { return COLUMN_BOTTOMS[key * BOX + column]; }
+
+    // bounding box inside the box (inclusive)
+    public static int minX(int key) { return MIN_X[key]; }
+    public static int maxX(int key) { return MAX_X[key]; }
+    public static int minY(int key) { return MIN_Y[key]; }
+    public static int maxY(int key) { return MAX_Y[key]; }
+}
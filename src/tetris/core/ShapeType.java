@@ -1,15 +1,61 @@
 package tetris.core;
 
-public enum ShapeType {
-    I(1), O(2), T(3), S(4), Z(5), J(6), L(7);
+// One piece of the active PieceSet. Used like an enum: instances are unique, compared
+// with ==, and have an ordinal and a name. With the standard set they are the seven
+// tetrominoes below; with a custom set the named constants are null unless the set
+// has a piece of that name, and values() lists the set's pieces in file order.
+public final class ShapeType {
+    private static final ShapeType[] VALUES = create(PieceSet.active());
 
+    public static final ShapeType I = byName("I");
+    public static final ShapeType O = byName("O");
+    public static final ShapeType T = byName("T");
+    public static final ShapeType S = byName("S");
+    public static final ShapeType Z = byName("Z");
+    public static final ShapeType J = byName("J");
+    public static final ShapeType L = byName("L");
+
+    private final String name;
+    private final int ordinal;
     private final int colorIndex;
 
-    ShapeType(int colorIndex) {
-        this.colorIndex = colorIndex;
+    private ShapeType(String name, int ordinal) {
+        this.name = name;
+        this.ordinal = ordinal;
+        // colors are 4-bit everywhere (snapshots, streams) and 15 is garbage, so pieces get
+        // 1..14; sets with more than 14 pieces reuse colors, never the garbage one
+        this.colorIndex = 1 + ordinal % 14;
+    }
+
+    private static ShapeType[] create(PieceSet set) {
+        ShapeType[] v = new ShapeType[set.size()];
+        for (int i = 0; i < v.length; i++) v[i] = new ShapeType(set.name(i), i);
+        return v;
     }
 
+    public static ShapeType[] values() {
+        return VALUES.clone();
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    // the piece with this name, or null
+    public static ShapeType byName(String name) {
+        for (ShapeType t : VALUES) {
+            if (t.name.equals(name)) return t;
+        }
+        return null;
+    }
+
+    public String name() { return name; }
+    public int ordinal() { return ordinal; }
+
     public int colorIndex() {
         return colorIndex;
     }
-}
\ No newline at end of file
+
+    @Override
+    public String toString() { return name; }
+}
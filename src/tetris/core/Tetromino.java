@@ -1,7 +1,5 @@
 package tetris.core;
 
-import java.awt.Point;
-
 public class Tetromino {
 
     @FunctionalInterface
@@ -14,74 +12,27 @@ public class Tetromino {
         void accept(int px, int py, int colorIndex);
     }
 
-    private final ShapeType type;
+    public static final int SPAWN_Y = -ShapeTable.BOX / 2;  // spawn slightly above visible top
+
+    private ShapeType type;
     private int rotation; 
-    private int x;        // board position (top-left of 4x4)
+    private int x;        // board position (top-left of the shape box)
     private int y;
 
-    // Each shape: 4 rotations; each rotation: 4 blocks
-    private static final Point[][][] SHAPES = new Point[ShapeType.values().length][4][4];
-
-    static {
-        // Coordinates inside a 4x4 box
-        // I
-        SHAPES[ShapeType.I.ordinal()] = new Point[][] {
-                { p(0,1), p(1,1), p(2,1), p(3,1) },
-                { p(2,0), p(2,1), p(2,2), p(2,3) },
-                { p(0,2), p(1,2), p(2,2), p(3,2) },
-                { p(1,0), p(1,1), p(1,2), p(1,3) }
-        };
-        // O
-        SHAPES[ShapeType.O.ordinal()] = new Point[][] {
-                { p(1,1), p(2,1), p(1,2), p(2,2) },
-                { p(1,1), p(2,1), p(1,2), p(2,2) },
-                { p(1,1), p(2,1), p(1,2), p(2,2) },
-                { p(1,1), p(2,1), p(1,2), p(2,2) }
-        };
-        // T
-        SHAPES[ShapeType.T.ordinal()] = new Point[][] {
-                { p(1,1), p(0,2), p(1,2), p(2,2) },
-                { p(1,1), p(1,2), p(2,2), p(1,3) },
-                { p(0,2), p(1,2), p(2,2), p(1,3) },
-                { p(1,1), p(0,2), p(1,2), p(1,3) }
-        };
-        // S
-        SHAPES[ShapeType.S.ordinal()] = new Point[][] {
-                { p(1,1), p(2,1), p(0,2), p(1,2) },
-                { p(1,1), p(1,2), p(2,2), p(2,3) },
-                { p(1,2), p(2,2), p(0,3), p(1,3) },
-                { p(0,1), p(0,2), p(1,2), p(1,3) }
-        };
-        // Z
-        SHAPES[ShapeType.Z.ordinal()] = new Point[][] {
-                { p(0,1), p(1,1), p(1,2), p(2,2) },
-                { p(2,1), p(1,2), p(2,2), p(1,3) },
-                { p(0,2), p(1,2), p(1,3), p(2,3) },
-                { p(1,1), p(0,2), p(1,2), p(0,3) }
-        };
-        // J
-        SHAPES[ShapeType.J.ordinal()] = new Point[][] {
-                { p(0,1), p(0,2), p(1,2), p(2,2) },
-                { p(1,1), p(2,1), p(1,2), p(1,3) },
-                { p(0,2), p(1,2), p(2,2), p(2,3) },
-                { p(1,1), p(1,2), p(0,3), p(1,3) }
-        };
-        // L
-        SHAPES[ShapeType.L.ordinal()] = new Point[][] {
-                { p(2,1), p(0,2), p(1,2), p(2,2) },
-                { p(1,1), p(1,2), p(1,3), p(2,3) },
-                { p(0,2), p(1,2), p(2,2), p(0,3) },
-                { p(0,1), p(1,1), p(1,2), p(1,3) }
-        };
+    public Tetromino(ShapeType type) {
+        this(type, 0, SPAWN_Y);
     }
 
-    private static Point p(int x, int y) { return new Point(x, y); }
-
-    public Tetromino(ShapeType type) {
+    public Tetromino(ShapeType type, int x, int y) {
         this.type = type;
         this.rotation = 0;
-        this.x = 3;   // good spawn for 10-wide board
-        this.y = -2;  // spawn slightly above visible top
+        this.x = x;
+        this.y = y;
+    }
+
+    // box column that centers a piece on a board this wide (3 for the standard 10)
+    public static int spawnX(int boardWidth) {
+        return (boardWidth - ShapeTable.BOX) / 2;
     }
 
     public ShapeType getType() { return type; }
@@ -89,6 +40,7 @@ public class Tetromino {
     public int getX() { return x; }
     public int getY() { return y; }
     public int colorIndex() { return type.colorIndex(); }
+    public int shapeKey() { return ShapeTable.key(type, rotation); }
 
     public void setPosition(int x, int y) { this.x = x; this.y = y; }
     public void move(int dx, int dy) { this.x += dx; this.y += dy; }
@@ -96,25 +48,27 @@ public class Tetromino {
     public void rotateCW() { rotation = (rotation + 1) & 3; }
     public void rotateCCW() { rotation = (rotation + 3) & 3; }
 
+    // Block i (0..3) in board coordinates; lets hot paths read the four cells without a lambda
+    public int blockX(int i) { return x + ShapeTable.cellX(shapeKey(), i); }
+    public int blockY(int i) { return y + ShapeTable.cellY(shapeKey(), i); }
+
     public void forEachBlock(BlockConsumer c) {
-        Point[] blocks = SHAPES[type.ordinal()][rotation];
+        int key = ShapeTable.key(type, rotation);
         int col = type.colorIndex();
-        for (Point b : blocks) {
-            int bx = x + b.x;
-            int by = y + b.y;
-            c.accept(bx, by, col);
+        for (int i = 0; i < ShapeTable.BLOCKS; i++) {
+            c.accept(x + ShapeTable.cellX(key, i), y + ShapeTable.cellY(key, i), col);
         }
     }
 
     // For "Next" preview rendering (normalized in a small box)
     public void forEachPreviewBlock(PreviewConsumer c) {
-        Point[] blocks = SHAPES[type.ordinal()][0];
-        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
-        for (Point b : blocks) { minX = Math.min(minX, b.x); minY = Math.min(minY, b.y); }
+        int key = ShapeTable.key(type, 0);
+        int minX = ShapeTable.minX(key);
+        int minY = ShapeTable.minY(key);
 
         int col = type.colorIndex();
-        for (Point b : blocks) {
-            c.accept(b.x - minX, b.y - minY, col);
+        for (int i = 0; i < ShapeTable.BLOCKS; i++) {
+            c.accept(ShapeTable.cellX(key, i) - minX, ShapeTable.cellY(key, i) - minY, col);
         }
     }
 
@@ -127,4 +81,12 @@ public class Tetromino {
     }
 
     public void setRotation(int r) { rotation = r & 3; }
+
+    // reuse this piece as another one (snapshot restore, no allocation)
+    void set(ShapeType type, int rotation, int x, int y) {
+        this.type = type;
+        this.rotation = rotation & 3;
+        this.x = x;
+        this.y = y;
+    }
 }
\ No newline at end of file
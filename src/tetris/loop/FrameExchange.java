@@ -0,0 +1,55 @@
+package tetris.loop;
+
+import tetris.core.Game;
+import tetris.core.RenderFrame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Triple buffer of RenderFrames between the simulation thread (publish) and one render
+// thread (latest). The producer fills its back frame and swaps it into the middle slot
+// with a single atomic exchange; the consumer swaps the middle slot out only when it
+// holds a fresh frame. Neither side ever waits for the other, a reader never sees a
+// frame being written, and the three frames are reused forever.
+public final class FrameExchange {
+    private static final int FRESH = 4; // flag on the middle index: not yet taken by the reader
+
+    private final RenderFrame[] frames = new RenderFrame[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;   // producer only
+    private int front = 2;  // consumer only
+    private volatile Thread consumer;
+
+    public FrameExchange(int width, int height) {
+        for (int i = 0; i < frames.length; i++) frames[i] = new RenderFrame(width, height);
+    }
+
+    // thread to wake up after each publish (the renderer parks between frames)
+    public void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    // producer: capture the game and make it the latest frame
+    public void publish(Game game) {
+        publish(game, 0);
+    }
+
+    // same, tagging the frame with the arrival time of input applied since the last one
+    public void publish(Game game, long inputNanos) {
+        frames[back].capture(game, inputNanos);
+        back = middle.getAndSet(back | FRESH) & ~FRESH;
+
+        Thread t = consumer;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    // consumer: the most recent published frame (the same object until a newer one arrives)
+    public RenderFrame latest() {
+        if ((middle.get() & FRESH) != 0) front = middle.getAndSet(front) & ~FRESH;
+        return frames[front];
+    }
+
+    public boolean hasFresh() {
+        return (middle.get() & FRESH) != 0;
+    }
+}
@@ -0,0 +1,73 @@
+package tetris.loop;
+
+import java.util.Arrays;
+
+// Frame-time histogram for the real-time loop: 0.1 ms buckets up to 100 ms, so
+// recording is a single array increment and percentiles are a scan, no allocation.
+// Owned by the loop thread; read it there (or after the loop has stopped).
+public final class FrameStats {
+    private static final long BUCKET_NANOS = 100_000;
+    private static final int BUCKETS = 1000; // last bucket also takes everything slower
+
+    private final long targetNanos;
+    private final long[] counts = new long[BUCKETS];
+    private long frames;
+    private long totalNanos;
+    private long maxNanos;
+    private long dropped;      // display frames missed because a frame ran long
+    private long skippedSteps; // simulation steps thrown away to catch up
+
+    public FrameStats(long targetNanos) {
+        this.targetNanos = targetNanos;
+    }
+
+    public void record(long frameNanos) {
+        int b = (int) Math.min(BUCKETS - 1, frameNanos / BUCKET_NANOS);
+        counts[b]++;
+        frames++;
+        totalNanos += frameNanos;
+        maxNanos = Math.max(maxNanos, frameNanos);
+
+        long late = (frameNanos + targetNanos / 2) / targetNanos - 1;
+        if (late > 0) dropped += late;
+    }
+
+    public void skipSteps(long n) {
+        skippedSteps += n;
+    }
+
+    public long getFrames() { return frames; }
+    public long getDropped() { return dropped; }
+    public long getSkippedSteps() { return skippedSteps; }
+    public long getMaxNanos() { return maxNanos; }
+
+    public double meanMillis() {
+        return frames == 0 ? 0 : totalNanos / 1e6 / frames;
+    }
+
+    // upper edge of the bucket holding the p-th percentile (0 < p <= 100), in milliseconds
+    public double percentileMillis(double p) {
+        if (frames == 0) return 0;
+        long rank = (long) Math.ceil(frames * p / 100.0);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) return (b + 1) * BUCKET_NANOS / 1e6;
+        }
+        return maxNanos / 1e6;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        frames = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+        dropped = 0;
+        skippedSteps = 0;
+    }
+
+    public String report() {
+        return String.format("%d frames, mean %.2f ms, p50 %.1f ms, p99 %.1f ms, max %.1f ms, dropped %d, skipped steps %d",
+                frames, meanMillis(), percentileMillis(50), percentileMillis(99), maxNanos / 1e6, dropped, skippedSteps);
+    }
+}
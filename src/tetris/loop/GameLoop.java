@@ -0,0 +1,140 @@
+package tetris.loop;
+
+import tetris.core.Command;
+import tetris.core.Game;
+import tetris.metrics.Metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Real-time driver for a Game on its own thread. Elapsed time goes into an accumulator
+// that is drained in fixed steps of 1/FRAMES_PER_SECOND (one Game.advanceFrame() each),
+// so gravity and input timing don't depend on how often frames are rendered or how
+// busy the EDT is. After any iteration that ran steps, the new state is published to
+// a FrameExchange; rendering happens on the consumer's own thread.
+//
+// The Game is only touched on the loop thread. Key events come in through press() and
+// release() from one other thread (the EDT) via a lock-free ring; auto-repeat of held
+// keys is then counted in frames by the Game itself.
+public final class GameLoop implements Runnable {
+
+    // steps run per iteration before the loop gives up catching up and drops the time
+    private static final int MAX_STEPS = 5;
+
+    private final Game game;
+    private final FrameExchange frames;
+    private final long stepNanos = TimeUnit.SECONDS.toNanos(1) / Game.FRAMES_PER_SECOND;
+    private final InputQueue input = new InputQueue(256);
+    private final FrameStats stats = new FrameStats(stepNanos);
+    private final long reportNanos; // print stats this often, 0 = never
+
+    // metrics only: arrival of the oldest press not yet applied / applied but not yet published
+    private final AtomicLong pendingInputNanos = new AtomicLong();
+    private long appliedInputNanos;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public GameLoop(Game game, FrameExchange frames) {
+        this(game, frames, 0);
+    }
+
+    public GameLoop(Game game, FrameExchange frames, long reportNanos) {
+        this.game = game;
+        this.frames = frames;
+        this.reportNanos = reportNanos;
+        frames.publish(game); // so the renderer has a frame before the loop starts
+    }
+
+    public synchronized void start() {
+        if (thread != null) return;
+        running = true;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (thread == null) return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    // key events from the single input thread; applied at the start of the next step
+    public boolean press(Command command) {
+        if (Metrics.ENABLED) pendingInputNanos.compareAndSet(0, System.nanoTime());
+        return input.offer(InputQueue.press(command));
+    }
+
+    public boolean release(Command command) {
+        return input.offer(InputQueue.release(command));
+    }
+
+    public FrameStats getStats() { return stats; }
+    public long getStepNanos() { return stepNanos; }
+
+    @Override
+    public void run() {
+        long last = System.nanoTime();
+        long accumulator = 0;
+        long reportAt = last + reportNanos;
+
+        while (running) {
+            long now = System.nanoTime();
+            long elapsed = now - last;
+            last = now;
+            if (elapsed > 0) stats.record(elapsed);
+
+            accumulator += elapsed;
+            int steps = 0;
+            for (; accumulator >= stepNanos; steps++) {
+                if (steps == MAX_STEPS) {
+                    long behind = accumulator / stepNanos;
+                    stats.skipSteps(behind);
+                    accumulator -= behind * stepNanos;
+                    break;
+                }
+                step();
+                accumulator -= stepNanos;
+            }
+
+            if (steps > 0) {
+                frames.publish(game, appliedInputNanos);
+                appliedInputNanos = 0;
+            }
+
+            if (reportNanos > 0 && now >= reportAt) {
+                System.out.println("frames: " + stats.report());
+                stats.reset();
+                reportAt = now + reportNanos;
+            }
+
+            // sleep until the next step is due
+            long wait = stepNanos - accumulator - (System.nanoTime() - now);
+            if (wait > 0) LockSupport.parkNanos(wait);
+        }
+    }
+
+    private void step() {
+        boolean pressed = false;
+        for (int e = input.poll(); e != InputQueue.EMPTY; e = input.poll()) {
+            if (InputQueue.isPress(e)) {
+                game.press(InputQueue.command(e));
+                pressed = true;
+            } else {
+                game.release(InputQueue.command(e));
+            }
+        }
+        if (Metrics.ENABLED && pressed && appliedInputNanos == 0) {
+            appliedInputNanos = pendingInputNanos.getAndSet(0);
+        }
+        game.advanceFrame();
+    }
+}
@@ -0,0 +1,62 @@
+package tetris.loop;
+
+import tetris.core.Command;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Single-producer/single-consumer ring of key events: the EDT offers, the loop thread
+// polls. Lock-free and allocation-free: each side owns one counter and publishes it
+// with a release store, the other side reads it with an acquire load.
+public final class InputQueue {
+    public static final int EMPTY = -1;
+
+    private static final Command[] COMMANDS = Command.values();
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            HEAD = l.findVarHandle(InputQueue.class, "head", long.class);
+            TAIL = l.findVarHandle(InputQueue.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int[] events;
+    private final int mask;
+    private long head; // next event to poll, written by the consumer only
+    private long tail; // next free slot, written by the producer only
+
+    public InputQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two");
+        this.events = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    // event encoding: command ordinal << 1 | pressed
+    public static int press(Command c) { return c.ordinal() << 1 | 1; }
+    public static int release(Command c) { return c.ordinal() << 1; }
+    public static Command command(int event) { return COMMANDS[event >>> 1]; }
+    public static boolean isPress(int event) { return (event & 1) != 0; }
+
+    // producer side; false if the ring is full (the event is dropped)
+    public boolean offer(int event) {
+        long t = tail;
+        if (t - (long) HEAD.getAcquire(this) == events.length) return false;
+        events[(int) t & mask] = event;
+        TAIL.setRelease(this, t + 1);
+        return true;
+    }
+
+    // consumer side; EMPTY if nothing is queued
+    public int poll() {
+        long h = head;
+        if (h == (long) TAIL.getAcquire(this)) return EMPTY;
+        int event = events[(int) h & mask];
+        HEAD.setRelease(this, h + 1);
+        return event;
+    }
+}
@@ -0,0 +1,46 @@
+package tetris.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+// Heap allocation rate of the live threads, from the JVM's per-thread allocation
+// counters. The rate is re-sampled at most once a second; calls in between return
+// the last value, so several readers (reporter, JMX) don't shorten each other's window.
+final class AllocationMeter {
+    private static final long MIN_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final com.sun.management.ThreadMXBean threads;
+    private long lastNanos;
+    private long lastBytes;
+    private double bytesPerSecond;
+
+    AllocationMeter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        threads = (bean instanceof com.sun.management.ThreadMXBean t && t.isThreadAllocatedMemorySupported())
+                ? t : null;
+        if (threads != null) threads.setThreadAllocatedMemoryEnabled(true);
+        lastNanos = System.nanoTime();
+        lastBytes = allocatedBytes();
+    }
+
+    synchronized double bytesPerSecond() {
+        long now = System.nanoTime();
+        if (threads == null || now - lastNanos < MIN_WINDOW_NANOS) return bytesPerSecond;
+
+        // threads that died since the last sample take their bytes with them, so clamp at 0
+        long bytes = allocatedBytes();
+        bytesPerSecond = Math.max(0, bytes - lastBytes) * 1e9 / (now - lastNanos);
+        lastNanos = now;
+        lastBytes = bytes;
+        return bytesPerSecond;
+    }
+
+    private long allocatedBytes() {
+        if (threads == null) return 0;
+        long sum = 0;
+        for (long b : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (b > 0) sum += b;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,32 @@
+package tetris.metrics;
+
+final class EngineMetrics implements EngineMetricsMXBean {
+
+    @Override public boolean isEnabled() { return Metrics.ENABLED; }
+
+    @Override public long getCanPlaceCalls() { return Metrics.CAN_PLACE.sum(); }
+    @Override public long getPiecesLocked() { return Metrics.LOCKS.sum(); }
+
+    @Override
+    public long[] getLineClearsByCount() {
+        long[] out = new long[Metrics.CLEARS.length];
+        for (int i = 0; i < out.length; i++) out[i] = Metrics.CLEARS[i].sum();
+        return out;
+    }
+
+    @Override public long getTickCount() { return Metrics.TICK.getCount(); }
+    @Override public double getTickMeanMicros() { return Metrics.TICK.meanNanos() / 1e3; }
+    @Override public double getTickP99Micros() { return Metrics.TICK.percentileNanos(99) / 1e3; }
+    @Override public double getTickMaxMicros() { return Metrics.TICK.getMaxNanos() / 1e3; }
+
+    @Override public long getRenderCount() { return Metrics.RENDER.getCount(); }
+    @Override public double getRenderP50Micros() { return Metrics.RENDER.percentileNanos(50) / 1e3; }
+    @Override public double getRenderP99Micros() { return Metrics.RENDER.percentileNanos(99) / 1e3; }
+
+    @Override public double getInputToRenderP50Micros() { return Metrics.INPUT_TO_RENDER.percentileNanos(50) / 1e3; }
+    @Override public double getInputToRenderP99Micros() { return Metrics.INPUT_TO_RENDER.percentileNanos(99) / 1e3; }
+
+    @Override public double getAllocationBytesPerSecond() { return Metrics.allocationBytesPerSecond(); }
+
+    @Override public void reset() { Metrics.reset(); }
+}
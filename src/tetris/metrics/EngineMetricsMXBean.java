@@ -0,0 +1,26 @@
+package tetris.metrics;
+
+// JMX view of Metrics, registered as tetris:type=EngineMetrics. Latencies are in microseconds.
+public interface EngineMetricsMXBean {
+    boolean isEnabled();
+
+    long getCanPlaceCalls();
+    long getPiecesLocked();
+    long[] getLineClearsByCount(); // index = lines cleared by one lock, 0..4
+
+    long getTickCount();
+    double getTickMeanMicros();
+    double getTickP99Micros();
+    double getTickMaxMicros();
+
+    long getRenderCount();
+    double getRenderP50Micros();
+    double getRenderP99Micros();
+
+    double getInputToRenderP50Micros();
+    double getInputToRenderP99Micros();
+
+    double getAllocationBytesPerSecond();
+
+    void reset();
+}
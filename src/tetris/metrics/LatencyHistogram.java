@@ -0,0 +1,83 @@
+package tetris.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency distribution in the style of HdrHistogram: values (nanoseconds) fall into
+// power-of-two ranges, each split into SUB linear sub-buckets, so any recorded value
+// is resolved to within 1/SUB (about 3%) from a few nanoseconds up to MAX_NANOS.
+// Recording is an index computation and one atomic increment; safe from any thread.
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_MSB = 40; // ~18 minutes; larger values land in the last bucket
+    private static final int BUCKETS = SUB + (MAX_MSB - SUB_BITS + 1) * SUB;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(index(nanos));
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    static int index(long v) {
+        if (v < SUB) return (int) v;
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        if (msb > MAX_MSB) return BUCKETS - 1;
+        int shift = msb - SUB_BITS;
+        return SUB + shift * SUB + (int) (v >>> shift) - SUB;
+    }
+
+    // largest value that maps to bucket i
+    static long upperBound(int i) {
+        if (i < SUB) return i;
+        int shift = (i - SUB) / SUB;
+        int sub = (i - SUB) % SUB;
+        return ((long) (SUB + sub + 1) << shift) - 1;
+    }
+
+    public long getCount() { return count.sum(); }
+    public long getMaxNanos() { return max.get(); }
+
+    public double meanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    // upper edge of the bucket holding the p-th percentile (0 < p <= 100), capped at the max seen
+    public long percentileNanos(double p) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(n * p / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    // not atomic with concurrent record() calls: a value recorded meanwhile may be half counted
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+}
@@ -0,0 +1,136 @@
+package tetris.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Engine-wide counters and latency histograms. Every instrumentation point is guarded by
+//
+//     if (Metrics.ENABLED) ...
+//
+// and ENABLED is a static final read once from -Dtetris.metrics=true, so with metrics off
+// the JIT folds the guard away and the hot paths (Board.canPlace in particular) pay nothing.
+// start() exposes the values over JMX and pushes them to the registered sinks periodically.
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("tetris.metrics");
+
+    public static final String OBJECT_NAME = "tetris:type=EngineMetrics";
+
+    // Board.canPlace probes (placement search, movement, gravity)
+    public static final LongAdder CAN_PLACE = new LongAdder();
+    // pieces locked, and locks by number of lines they cleared (0..4)
+    public static final LongAdder LOCKS = new LongAdder();
+    public static final LongAdder[] CLEARS = adders(5);
+
+    // Game.tick(): one gravity step
+    public static final LatencyHistogram TICK = new LatencyHistogram("tick");
+    // drawing and presenting one frame
+    public static final LatencyHistogram RENDER = new LatencyHistogram("render");
+    // key event handed to the loop until the first frame presented after it was applied
+    public static final LatencyHistogram INPUT_TO_RENDER = new LatencyHistogram("input_to_render");
+
+    private static final List<LatencyHistogram> HISTOGRAMS = List.of(TICK, RENDER, INPUT_TO_RENDER);
+    private static final List<MetricsSink> SINKS = new CopyOnWriteArrayList<>();
+
+    private static AllocationMeter allocation;
+    private static ScheduledExecutorService reporter;
+
+    private Metrics() {}
+
+    private static LongAdder[] adders(int n) {
+        LongAdder[] a = new LongAdder[n];
+        for (int i = 0; i < n; i++) a[i] = new LongAdder();
+        return a;
+    }
+
+    public static void recordLock(int linesCleared) {
+        LOCKS.increment();
+        CLEARS[Math.min(linesCleared, CLEARS.length - 1)].increment();
+    }
+
+    public static void addSink(MetricsSink sink) { SINKS.add(sink); }
+    public static void removeSink(MetricsSink sink) { SINKS.remove(sink); }
+
+    // Registers the MBean and, if periodSeconds > 0, reports to the sinks at that period
+    // on a daemon thread. Does nothing unless metrics are enabled; calling it twice is harmless.
+    public static synchronized void start(int periodSeconds) {
+        if (!ENABLED || reporter != null) return;
+        allocation = new AllocationMeter();
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) server.registerMBean(new EngineMetrics(), name);
+        } catch (JMException e) {
+            System.err.println("metrics: JMX registration failed: " + e);
+        }
+
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        if (periodSeconds > 0) {
+            reporter.scheduleAtFixedRate(Metrics::report, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public static synchronized void stop() {
+        if (reporter == null) return;
+        reporter.shutdownNow();
+        reporter = null;
+    }
+
+    // push the current values to every sink now
+    public static void report() {
+        if (SINKS.isEmpty()) return;
+        Map<String, Double> values = snapshot();
+        long now = System.currentTimeMillis();
+        for (MetricsSink s : SINKS) {
+            try {
+                s.report(now, values);
+            } catch (RuntimeException e) {
+                System.err.println("metrics: sink failed: " + e);
+            }
+        }
+    }
+
+    // all metrics by name, sorted
+    public static Map<String, Double> snapshot() {
+        Map<String, Double> m = new TreeMap<>();
+        m.put("can_place", (double) CAN_PLACE.sum());
+        m.put("locks", (double) LOCKS.sum());
+        for (int i = 0; i < CLEARS.length; i++) m.put("clears." + i, (double) CLEARS[i].sum());
+        for (LatencyHistogram h : HISTOGRAMS) {
+            String n = h.getName();
+            m.put(n + ".count", (double) h.getCount());
+            m.put(n + ".mean_us", h.meanNanos() / 1e3);
+            m.put(n + ".p50_us", h.percentileNanos(50) / 1e3);
+            m.put(n + ".p99_us", h.percentileNanos(99) / 1e3);
+            m.put(n + ".p999_us", h.percentileNanos(99.9) / 1e3);
+            m.put(n + ".max_us", h.getMaxNanos() / 1e3);
+        }
+        m.put("alloc_bytes_per_sec", allocationBytesPerSecond());
+        return m;
+    }
+
+    static synchronized double allocationBytesPerSecond() {
+        return allocation == null ? 0 : allocation.bytesPerSecond();
+    }
+
+    public static void reset() {
+        CAN_PLACE.reset();
+        LOCKS.reset();
+        for (LongAdder a : CLEARS) a.reset();
+        for (LatencyHistogram h : HISTOGRAMS) h.reset();
+    }
+}
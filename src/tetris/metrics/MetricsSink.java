@@ -0,0 +1,14 @@
+package tetris.metrics;
+
+import java.util.Map;
+
+// Receives a flat view of all metrics each reporting period: counters by name, and for
+// every latency histogram name.count, name.mean_us, name.p50_us, name.p99_us,
+// name.p999_us and name.max_us. Called on the reporter thread.
+@FunctionalInterface
+public interface MetricsSink {
+    void report(long epochMillis, Map<String, Double> values);
+
+    // one line per report on stdout
+    MetricsSink STDOUT = (time, values) -> System.out.println("metrics: " + values);
+}
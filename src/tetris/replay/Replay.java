@@ -0,0 +1,164 @@
+package tetris.replay;
+
+import tetris.core.PieceSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// A recorded game: board size, RandomBag seed, the piece set it was played with and the
+// input stream, plus the final result so a replay can be checked by playing it back.
+//
+// File layout (all varints are unsigned LEB128):
+//   "TRPL" | version u8 | varint width | varint height | seed i64 | piece set fingerprint i64
+//   events:  varint(ticksBefore << 3 | code), code = Command ordinal, END_CODE ends the stream
+//   trailer: varint score | lines | level | pieces
+// A command a few ticks after the previous one costs one byte.
+public final class Replay {
+    static final int CODE_BITS = 3;
+    static final int END_CODE = 7;
+
+    private static final byte[] MAGIC = { 'T', 'R', 'P', 'L' };
+    private static final int VERSION = 2;
+
+    private final int width;
+    private final int height;
+    private final long seed;
+    private final long pieceSet; // PieceSet.fingerprint() of the set the game was played with
+    private final byte[] events; // includes the END event
+    private final int score;
+    private final int lines;
+    private final int level;
+    private final int pieces;
+
+    public Replay(int width, int height, long seed, long pieceSet, byte[] events, int score, int lines, int level, int pieces) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.pieceSet = pieceSet;
+        this.events = events;
+        this.score = score;
+        this.lines = lines;
+        this.level = level;
+        this.pieces = pieces;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public long getSeed() { return seed; }
+    public long getPieceSet() { return pieceSet; }
+    public int getScore() { return score; }
+    public int getLines() { return lines; }
+    public int getLevel() { return level; }
+    public int getPieces() { return pieces; }
+
+    byte[] events() { return events; }
+
+    public int eventBytes() { return events.length; }
+
+    public void save(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeTo(ch);
+        }
+    }
+
+    public static Replay load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readFrom(ch);
+        }
+    }
+
+    public void writeTo(WritableByteChannel ch) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        buf.put(MAGIC).put((byte) VERSION);
+        putVarint(buf, width);
+        putVarint(buf, height);
+        buf.putLong(seed).putLong(pieceSet);
+
+        int off = 0;
+        while (off < events.length) {
+            if (!buf.hasRemaining()) flush(ch, buf);
+            int n = Math.min(buf.remaining(), events.length - off);
+            buf.put(events, off, n);
+            off += n;
+        }
+
+        if (buf.remaining() < 4 * 5) flush(ch, buf);
+        putVarint(buf, score);
+        putVarint(buf, lines);
+        putVarint(buf, level);
+        putVarint(buf, pieces);
+        flush(ch, buf);
+    }
+
+    public static Replay readFrom(ReadableByteChannel ch) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(8192);
+        while (ch.read(buf) >= 0) {
+            if (!buf.hasRemaining()) buf = ByteBuffer.allocate(buf.capacity() * 2).put(buf.flip());
+        }
+        buf.flip();
+
+        byte[] magic = new byte[MAGIC.length];
+        if (buf.remaining() < 23) throw new IOException("not a replay: too short");
+        buf.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("not a replay: bad magic");
+        int version = buf.get() & 0xFF;
+        if (version != VERSION) throw new IOException("unsupported replay version " + version);
+
+        int width = (int) getVarint(buf);
+        int height = (int) getVarint(buf);
+        if (buf.remaining() < 16) throw new IOException("truncated replay header");
+        long seed = buf.getLong();
+        long pieceSet = buf.getLong();
+        if (pieceSet != PieceSet.active().fingerprint()) {
+            throw new IOException("replay was recorded with another piece set than " + PieceSet.active().getSource());
+        }
+
+        // events run up to and including the END event
+        int start = buf.position();
+        while (true) {
+            if (!buf.hasRemaining()) throw new IOException("truncated replay: no end of events");
+            long v = getVarint(buf);
+            if ((int) (v & ((1 << CODE_BITS) - 1)) == END_CODE) break;
+        }
+        byte[] events = new byte[buf.position() - start];
+        buf.get(start, events);
+
+        int score = (int) getVarint(buf);
+        int lines = (int) getVarint(buf);
+        int level = (int) getVarint(buf);
+        int pieces = (int) getVarint(buf);
+        return new Replay(width, height, seed, pieceSet, events, score, lines, level, pieces);
+    }
+
+    private static void flush(WritableByteChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    static void putVarint(ByteBuffer buf, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    static long getVarint(ByteBuffer buf) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buf.hasRemaining()) throw new IOException("truncated varint");
+            byte b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IOException("malformed varint");
+    }
+}
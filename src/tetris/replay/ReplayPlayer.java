@@ -0,0 +1,170 @@
+package tetris.replay;
+
+import tetris.core.Command;
+import tetris.core.Game;
+import tetris.core.GameSnapshot;
+import tetris.core.ScoreManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Plays a Replay back on a fresh Game. Playback calls tick() directly instead of
+// advanceFrame(), so there is no frame pacing: a whole game replays at CPU speed.
+// While playing forward it keeps a GameSnapshot every keyframe interval, so seeking
+// back (or forward over ground already covered) restores the nearest keyframe
+// instead of replaying from the start.
+public final class ReplayPlayer {
+    public static final int DEFAULT_KEYFRAME_TICKS = 256;
+
+    private static final Command[] COMMANDS = Command.values();
+    private static final int CURSOR_WORDS = 3; // pos, pendingTicks, pendingCode
+
+    private final Replay replay;
+    private final byte[] events;
+    private final Game game;
+
+    private int pos;           // read position in events
+    private long pendingTicks; // ticks still to run before the current event
+    private int pendingCode;   // current event
+    private long tick;         // ticks played so far
+
+    private final GameSnapshot snapshot;
+    private final int keyframeTicks;
+    private final int keyframeWords;
+    private long[] keyframes = new long[0];
+    private int keyframeCount; // keyframe k is the state after k * keyframeTicks ticks
+
+    public ReplayPlayer(Replay replay) {
+        this(replay, DEFAULT_KEYFRAME_TICKS);
+    }
+
+    public ReplayPlayer(Replay replay, int keyframeTicks) {
+        if (keyframeTicks <= 0) throw new IllegalArgumentException("keyframeTicks must be positive");
+        this.replay = replay;
+        this.events = replay.events();
+        this.game = new Game(replay.getWidth(), replay.getHeight(), replay.getSeed());
+        this.snapshot = GameSnapshot.forGame(game);
+        this.keyframeTicks = keyframeTicks;
+        this.keyframeWords = snapshot.words() + CURSOR_WORDS;
+
+        decode();
+        saveKeyframe();
+    }
+
+    public Game getGame() { return game; }
+    public long getTick() { return tick; }
+    public int getKeyframeCount() { return keyframeCount; }
+
+    public boolean isFinished() {
+        return pendingCode == Replay.END_CODE && pendingTicks == 0;
+    }
+
+    // back to the start of the replay
+    public void rewind() {
+        restoreKeyframe(0);
+    }
+
+    // apply the next event (one tick or one command); returns false at the end
+    public boolean step() {
+        if (pendingTicks > 0) {
+            runTicks(1);
+            return true;
+        }
+        if (pendingCode == Replay.END_CODE) return false;
+
+        game.onCommand(COMMANDS[pendingCode]);
+        decode();
+        return true;
+    }
+
+    // move to the point where `target` ticks have been played (or the replay ends); the commands
+    // recorded right after that tick are not applied yet
+    public void seek(long target) {
+        int k = (int) Math.min(keyframeCount - 1, target / keyframeTicks);
+        long at = (long) k * keyframeTicks;
+        if (target <= tick || at > tick) restoreKeyframe(k); // <=: commands after `target` may have run
+
+        while (tick < target) {
+            if (pendingTicks > 0) runTicks(Math.min(pendingTicks, target - tick));
+            else if (!step()) return;
+        }
+    }
+
+    public void playToEnd() {
+        while (step()) {
+            // keep going
+        }
+    }
+
+    // true if playing the whole replay reproduces the recorded result
+    public boolean validate() {
+        rewind();
+        playToEnd();
+        ScoreManager s = game.getScore();
+        return s.getScore() == replay.getScore() && s.getLines() == replay.getLines()
+                && s.getLevel() == replay.getLevel() && game.getPiecesPlaced() == replay.getPieces();
+    }
+
+    private void runTicks(long n) {
+        long nextKeyframe = (long) keyframeCount * keyframeTicks;
+        for (long i = 0; i < n; i++) {
+            pendingTicks--;
+            tick++;
+            game.tick();
+            if (tick == nextKeyframe) {
+                saveKeyframe();
+                nextKeyframe += keyframeTicks;
+            }
+        }
+    }
+
+    private void saveKeyframe() {
+        int off = keyframeCount * keyframeWords;
+        if (off + keyframeWords > keyframes.length) {
+            keyframes = Arrays.copyOf(keyframes, Math.max(keyframeWords * 8, keyframes.length * 2));
+        }
+        snapshot.save(game, keyframes, off);
+        off += snapshot.words();
+        keyframes[off] = pos;
+        keyframes[off + 1] = pendingTicks;
+        keyframes[off + 2] = pendingCode;
+        keyframeCount++;
+    }
+
+    private void restoreKeyframe(int k) {
+        int off = k * keyframeWords;
+        snapshot.restore(game, keyframes, off);
+        off += snapshot.words();
+        pos = (int) keyframes[off];
+        pendingTicks = keyframes[off + 1];
+        pendingCode = (int) keyframes[off + 2];
+        tick = (long) k * keyframeTicks;
+    }
+
+    private void decode() {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = events[pos++];
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) break;
+        }
+        pendingCode = (int) (v & ((1 << Replay.CODE_BITS) - 1));
+        pendingTicks = v >>> Replay.CODE_BITS;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: ReplayPlayer <file.trpl>...");
+            return;
+        }
+        for (String arg : args) {
+            Replay r = Replay.load(Path.of(arg));
+            long start = System.nanoTime();
+            boolean ok = new ReplayPlayer(r).validate();
+            double ms = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%s: %s score=%d lines=%d pieces=%d, %d event bytes, %.1f ms%n",
+                    arg, ok ? "OK" : "MISMATCH", r.getScore(), r.getLines(), r.getPieces(), r.eventBytes(), ms);
+        }
+    }
+}
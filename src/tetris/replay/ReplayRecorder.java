@@ -0,0 +1,59 @@
+package tetris.replay;
+
+import tetris.core.Command;
+import tetris.core.Game;
+import tetris.core.GameListener;
+import tetris.core.PieceSet;
+import tetris.core.ScoreManager;
+
+import java.util.Arrays;
+
+// Records a game's input as it is played. Attach it to a freshly constructed Game,
+// before the first tick or command, so playback starts from the same state.
+public final class ReplayRecorder implements GameListener {
+    private final Game game;
+    private final long seed;  // the game's seed when recording began; a restart moves it on
+    private byte[] events = new byte[256];
+    private int size;
+    private long ticks; // ticks since the last recorded event
+
+    public ReplayRecorder(Game game) {
+        this.game = game;
+        this.seed = game.getSeed();
+        game.addListener(this);
+    }
+
+    @Override
+    public void onCommand(Game game, Command command) {
+        append(ticks << Replay.CODE_BITS | command.ordinal());
+        ticks = 0;
+    }
+
+    @Override
+    public void onTick(Game game) {
+        ticks++;
+    }
+
+    // stop recording and return the replay, closed with the game's current result
+    public Replay finish() {
+        game.removeListener(this);
+
+        append(ticks << Replay.CODE_BITS | Replay.END_CODE);
+        ticks = 0;
+
+        ScoreManager s = game.getScore();
+        byte[] out = Arrays.copyOf(events, size);
+        size = 0;
+        return new Replay(game.getBoard().getWidth(), game.getBoard().getHeight(), seed, PieceSet.active().fingerprint(),
+                out, s.getScore(), s.getLines(), s.getLevel(), game.getPiecesPlaced());
+    }
+
+    private void append(long v) {
+        if (size + 10 > events.length) events = Arrays.copyOf(events, events.length * 2);
+        while ((v & ~0x7FL) != 0) {
+            events[size++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        events[size++] = (byte) v;
+    }
+}
@@ -0,0 +1,186 @@
+package tetris.scores;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Derived data kept next to a ScoreLog: the best `capacity` scores with their record
+// indices, and a histogram of every score for percentile queries. Both are small and
+// memory-mapped, so leaderboards and percentiles never touch the log itself.
+//
+// File layout (big-endian):
+//   header (64 bytes): "TSCI" | version i32 | capacity i32 | entries i32 | covered i64 | dirty i32
+//   top entries (16 bytes each, best first): score i32 | 0 i32 | record i64
+//   histogram: BUCKETS counts i64
+// covered is the number of log records folded in. dirty is set while an update is
+// half written; a dirty index, or one that covers records the log no longer has,
+// is rebuilt from the log when opened. Otherwise opening only folds in the log's tail.
+final class ScoreIndex implements Closeable {
+    private static final int MAGIC = 0x54534349; // "TSCI"
+    private static final int VERSION = 1;
+
+    private static final int HEADER = 64;
+    private static final int ENTRY = 16;
+    private static final int ENTRIES_OFFSET = 12;
+    private static final int COVERED_OFFSET = 16;
+    private static final int DIRTY_OFFSET = 24;
+
+    // log-linear buckets as in LatencyHistogram: exact below SUB, within 1/SUB above
+    private static final int SUB_BITS = 6;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_MSB = 30;
+    static final int BUCKETS = SUB + (MAX_MSB - SUB_BITS + 1) * SUB;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int capacity;
+    private final int histogram; // byte offset of the histogram
+
+    // heap copies of the top list; the mapped entries are written through
+    private final int[] topScores;
+    private final long[] topRecords;
+    private int entries;
+    private long total;
+
+    private ScoreIndex(FileChannel channel, int capacity) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.histogram = HEADER + capacity * ENTRY;
+        this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, histogram + (long) BUCKETS * 8);
+        this.topScores = new int[capacity];
+        this.topRecords = new long[capacity];
+    }
+
+    // opens (or rebuilds) the index for a log; a different capacity also means a rebuild
+    static ScoreIndex open(Path file, ScoreLog log, int capacity) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ScoreIndex index = new ScoreIndex(ch, capacity);
+            index.load(log);
+            return index;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    private void load(ScoreLog log) {
+        boolean usable = map.getInt(0) == MAGIC && map.getInt(4) == VERSION && map.getInt(8) == capacity
+                && map.getInt(DIRTY_OFFSET) == 0 && map.getLong(COVERED_OFFSET) <= log.size();
+        if (!usable) {
+            for (int i = 0; i < map.capacity(); i += 8) map.putLong(i, 0);
+            map.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, capacity);
+        }
+
+        entries = map.getInt(ENTRIES_OFFSET);
+        for (int e = 0; e < entries; e++) {
+            topScores[e] = map.getInt(HEADER + e * ENTRY);
+            topRecords[e] = map.getLong(HEADER + e * ENTRY + 8);
+        }
+        for (int b = 0; b < BUCKETS; b++) total += map.getLong(histogram + b * 8);
+
+        long covered = map.getLong(COVERED_OFFSET);
+        long end = log.size();
+        if (covered == end) return;
+
+        map.putInt(DIRTY_OFFSET, 1);
+        for (long i = covered; i < end; i++) fold(i, log.score(i));
+        map.putLong(COVERED_OFFSET, end);
+        map.putInt(DIRTY_OFFSET, 0);
+        map.force();
+    }
+
+    // folds in the record just appended to the log
+    void add(long record, int score) {
+        map.putInt(DIRTY_OFFSET, 1);
+        fold(record, score);
+        map.putLong(COVERED_OFFSET, record + 1);
+        map.putInt(DIRTY_OFFSET, 0);
+    }
+
+    private void fold(long record, int score) {
+        int b = histogram + bucket(score) * 8;
+        map.putLong(b, map.getLong(b) + 1);
+        total++;
+
+        if (entries == capacity && score <= topScores[entries - 1]) return;
+
+        // ties keep the earlier game ahead
+        int pos = (entries < capacity) ? entries++ : entries - 1;
+        while (pos > 0 && topScores[pos - 1] < score) {
+            topScores[pos] = topScores[pos - 1];
+            topRecords[pos] = topRecords[pos - 1];
+            putEntry(pos);
+            pos--;
+        }
+        topScores[pos] = score;
+        topRecords[pos] = record;
+        putEntry(pos);
+        map.putInt(ENTRIES_OFFSET, entries);
+    }
+
+    private void putEntry(int e) {
+        map.putInt(HEADER + e * ENTRY, topScores[e]).putInt(HEADER + e * ENTRY + 4, 0)
+                .putLong(HEADER + e * ENTRY + 8, topRecords[e]);
+    }
+
+    int getCapacity() { return capacity; }
+    int entries() { return entries; }
+    long total() { return total; }
+    int topScore(int e) { return topScores[e]; }
+    long topRecord(int e) { return topRecords[e]; }
+
+    // upper edge of the bucket holding the p-th percentile (0 < p <= 100), capped at the best score
+    int scoreAtPercentile(double p) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * p / 100.0));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += map.getLong(histogram + b * 8);
+            if (seen >= rank) return (int) Math.min(upperBound(b), topScores[0]);
+        }
+        return topScores[0];
+    }
+
+    // percentage of games that scored below `score`; scores sharing its bucket
+    // are counted as if spread evenly over the bucket
+    double percentBelow(int score) {
+        if (total == 0) return 0;
+        int target = bucket(score);
+        long below = 0;
+        for (int b = 0; b < target; b++) below += map.getLong(histogram + b * 8);
+
+        long lower = (target == 0) ? 0 : upperBound(target - 1) + 1;
+        double share = (double) (score - lower) / (upperBound(target) - lower + 1);
+        below += Math.round(map.getLong(histogram + target * 8) * share);
+        return 100.0 * below / total;
+    }
+
+    void flush() {
+        map.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    static int bucket(int score) {
+        if (score < SUB) return Math.max(score, 0);
+        int msb = 31 - Integer.numberOfLeadingZeros(score);
+        int shift = msb - SUB_BITS;
+        return SUB + shift * SUB + (score >>> shift) - SUB;
+    }
+
+    // largest score that maps to bucket b
+    static long upperBound(int b) {
+        if (b < SUB) return b;
+        int shift = (b - SUB) / SUB;
+        int sub = (b - SUB) % SUB;
+        return ((long) (SUB + sub + 1) << shift) - 1;
+    }
+}
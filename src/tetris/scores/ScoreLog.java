@@ -0,0 +1,203 @@
+package tetris.scores;
+
+import tetris.sim.GameResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+// Append-only log of finished games, memory-mapped in fixed 40 MB segments so records
+// are read and written in place and the history never has to fit on the heap.
+//
+// File layout (big-endian):
+//   header (64 bytes): "TSCL" | version i32 | record size i32 | pad | committed count i64
+//   records (40 bytes each, record i at HEADER + i * RECORD):
+//     seed i64 | frames i64 | score i32 | lines i32 | level i32 | pieces i32 | 0 i32 | crc i32
+// The crc (CRC32C over the record index and the first 36 bytes) lets recovery tell a
+// finished record from a torn one or from the zeros of a freshly grown segment.
+//
+// A record is written before the count that covers it, and append() forces the log to
+// the disk every RECHECK records, so after a crash only the last RECHECK records below
+// the count can be missing. Opening re-validates just those and any valid records past
+// the count, so it takes the same time for a thousand records as for fifty million.
+public final class ScoreLog implements Closeable {
+    private static final int MAGIC = 0x5453434C; // "TSCL"
+    private static final int VERSION = 1;
+
+    static final int HEADER = 64;
+    static final int RECORD = 40;
+    private static final int COUNT_OFFSET = 16;
+    private static final int CRC_OFFSET = 36;
+
+    private static final int SEGMENT_RECORDS = 1 << 20;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD;
+
+    // records below the committed count that may not have reached the disk before a crash;
+    // append() flushes whenever this many are pending, which keeps it true
+    private static final int RECHECK = 256;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer[] segments = new MappedByteBuffer[4];
+
+    private final byte[] scratch = new byte[RECORD];
+    private final CRC32C crc = new CRC32C();
+
+    private volatile long count;
+    private long flushed;    // records already forced to disk
+    private long recovered;  // records dropped or picked up by recovery when opening
+
+    private ScoreLog(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+
+        boolean fresh = channel.size() == 0;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+        if (fresh) {
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD).putLong(COUNT_OFFSET, 0);
+            header.force();
+        } else {
+            if (header.getInt(0) != MAGIC) throw new IOException(file + ": not a score log");
+            if (header.getInt(4) != VERSION) throw new IOException(file + ": unsupported score log version " + header.getInt(4));
+            if (header.getInt(8) != RECORD) throw new IOException(file + ": unexpected record size " + header.getInt(8));
+        }
+        recover();
+    }
+
+    public static ScoreLog open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new ScoreLog(file, ch);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() { return file; }
+
+    // committed records; safe to read from any thread
+    public long size() { return count; }
+
+    // how many records recovery dropped (negative) or picked up (positive) when opening
+    public long getRecovered() { return recovered; }
+
+    // appends a record and returns its index; callers serialize appends
+    public synchronized long append(GameResult r) {
+        long i = count;
+        ByteBuffer b = ByteBuffer.wrap(scratch);
+        b.putLong(0, r.getSeed()).putLong(8, r.getFrames())
+                .putInt(16, r.getScore()).putInt(20, r.getLines())
+                .putInt(24, r.getLevel()).putInt(28, r.getPieces()).putInt(32, 0);
+        b.putInt(CRC_OFFSET, checksum(i));
+
+        segment(i).put(offset(i), scratch);
+        header.putLong(COUNT_OFFSET, i + 1);
+        count = i + 1;
+        if (count - flushed >= RECHECK) flush();
+        return i;
+    }
+
+    public GameResult get(long i) {
+        checkIndex(i);
+        ByteBuffer s = segment(i);
+        int off = offset(i);
+        return new GameResult(s.getLong(off), s.getInt(off + 16), s.getInt(off + 20), s.getInt(off + 24),
+                s.getLong(off + 8), s.getInt(off + 28));
+    }
+
+    // just the score, for scans that don't need the whole record
+    public int score(long i) {
+        checkIndex(i);
+        return segment(i).getInt(offset(i) + 16);
+    }
+
+    // forces appended records, then the count, to the disk
+    public synchronized void flush() {
+        long n = count;
+        if (n == flushed) return;
+        for (int k = (int) (flushed / SEGMENT_RECORDS); k <= (n - 1) / SEGMENT_RECORDS; k++) segments[k].force();
+        header.force();
+        flushed = n;
+    }
+
+    // the mappings stay valid until they are garbage collected; only the channel is closed
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void recover() throws IOException {
+        long capacity = (channel.size() - HEADER) / RECORD;
+        long n = Math.min(header.getLong(COUNT_OFFSET), capacity);
+
+        // the count can be ahead of its records after a power loss: keep the valid prefix
+        long good = Math.max(0, n - RECHECK);
+        while (good < n && valid(good)) good++;
+
+        // records written after the last count update (killed between the two writes)
+        long end = n;
+        while (end < capacity && valid(end)) end++;
+
+        long keep = (good < n) ? good : end;
+        if (keep < end) {
+            // dropped records would look valid to a later recovery once appends pass them
+            Arrays.fill(scratch, (byte) 0);
+            for (long i = keep; i < end; i++) segment(i).put(offset(i), scratch);
+        }
+
+        recovered = keep - header.getLong(COUNT_OFFSET);
+        if (recovered != 0) {
+            header.putLong(COUNT_OFFSET, keep);
+            header.force();
+        }
+        count = keep;
+        flushed = keep;
+    }
+
+    private boolean valid(long i) {
+        segment(i).get(offset(i), scratch);
+        return ByteBuffer.wrap(scratch).getInt(CRC_OFFSET) == checksum(i);
+    }
+
+    // crc of scratch[0, CRC_OFFSET) salted with the record's index
+    private int checksum(long i) {
+        crc.reset();
+        for (int s = 0; s < 64; s += 8) crc.update((int) (i >>> s));
+        crc.update(scratch, 0, CRC_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    private void checkIndex(long i) {
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException("record " + i + " of " + count);
+    }
+
+    private static int offset(long i) {
+        return (int) (i % SEGMENT_RECORDS) * RECORD;
+    }
+
+    // maps segments on first use; mapping past the end of the file grows it
+    private synchronized ByteBuffer segment(long i) {
+        int k = (int) (i / SEGMENT_RECORDS);
+        if (k >= segments.length) segments = Arrays.copyOf(segments, Math.max(k + 1, segments.length * 2));
+        MappedByteBuffer s = segments[k];
+        if (s == null) {
+            try {
+                s = channel.map(FileChannel.MapMode.READ_WRITE, HEADER + k * SEGMENT_BYTES, SEGMENT_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(file + ": can't map segment " + k, e);
+            }
+            segments[k] = s;
+        }
+        return s;
+    }
+}
@@ -0,0 +1,117 @@
+package tetris.scores;
+
+import tetris.sim.GameResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// High scores and per-game statistics that survive restarts: a ScoreLog of every
+// finished game plus a ScoreIndex (file + ".top") for leaderboards and percentiles.
+// Opening maps both files and catches the index up with the log's tail, so it costs
+// the same whatever the history's length. record() is safe from any thread.
+//
+//   java tetris.scores.ScoreStore <file> [n]   prints the top n and a few percentiles
+public final class ScoreStore implements Closeable {
+    public static final int DEFAULT_TOP = 100;
+
+    private final ScoreLog log;
+    private final ScoreIndex index;
+
+    private ScoreStore(ScoreLog log, ScoreIndex index) {
+        this.log = log;
+        this.index = index;
+    }
+
+    public static ScoreStore open(Path file) throws IOException {
+        return open(file, DEFAULT_TOP);
+    }
+
+    public static ScoreStore open(Path file, int topN) throws IOException {
+        if (topN < 1) throw new IllegalArgumentException("topN must be positive, got " + topN);
+        ScoreLog log = ScoreLog.open(file);
+        try {
+            Path top = file.resolveSibling(file.getFileName() + ".top");
+            return new ScoreStore(log, ScoreIndex.open(top, log, topN));
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    // appends a finished game and returns its record number
+    public synchronized long record(GameResult result) {
+        long i = log.append(result);
+        index.add(i, result.getScore());
+        return i;
+    }
+
+    public long size() { return log.size(); }
+
+    public GameResult get(long record) { return log.get(record); }
+
+    public ScoreLog getLog() { return log; }
+
+    // the best n games (at most the index's capacity), best first
+    public synchronized List<GameResult> top(int n) {
+        int count = Math.min(n, index.entries());
+        List<GameResult> out = new ArrayList<>(count);
+        for (int e = 0; e < count; e++) out.add(log.get(index.topRecord(e)));
+        return out;
+    }
+
+    // place a score would take on the leaderboard (1 = best), or 0 if it wouldn't make it
+    public synchronized int rankOf(int score) {
+        int e = 0;
+        while (e < index.entries() && index.topScore(e) >= score) e++;
+        return (e < index.getCapacity()) ? e + 1 : 0;
+    }
+
+    // score at the p-th percentile (0 < p <= 100), resolved to about 1.6%
+    public synchronized int scoreAtPercentile(double p) {
+        return index.scoreAtPercentile(p);
+    }
+
+    // percentage of recorded games that scored below `score`
+    public synchronized double percentBelow(int score) {
+        return index.percentBelow(score);
+    }
+
+    public synchronized void flush() {
+        log.flush();
+        index.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            log.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: ScoreStore <file> [n]");
+            System.exit(2);
+        }
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        long start = System.nanoTime();
+        try (ScoreStore store = open(Path.of(args[0]))) {
+            System.out.printf("%,d games, opened in %.1f ms%n", store.size(), (System.nanoTime() - start) / 1e6);
+            if (store.getLog().getRecovered() != 0) {
+                System.out.printf("  recovery adjusted the log by %+d records%n", store.getLog().getRecovered());
+            }
+            int place = 1;
+            for (GameResult r : store.top(n)) System.out.printf("%4d. %s%n", place++, r);
+            if (store.size() > 0) {
+                System.out.printf("  p50 %d  p90 %d  p99 %d%n", store.scoreAtPercentile(50),
+                        store.scoreAtPercentile(90), store.scoreAtPercentile(99));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package tetris.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+// Hosts many headless games behind one TCP port. An acceptor thread hands each new
+// connection to one of N shards round-robin; each shard is a single event-loop thread
+// that owns its sessions outright (see Shard and Session for the protocol).
+//
+//   java tetris.server.GameServer [port] [shards] [maxSessions]
+public final class GameServer {
+    public static final int DEFAULT_PORT = 7450;
+
+    private final int width;
+    private final int height;
+    private final int maxSessionsPerShard;
+    private final Shard[] shards;
+    private final Thread[] threads;
+    private ServerSocketChannel acceptor;
+    private Thread acceptThread;
+
+    public GameServer(int width, int height, int shardCount, int maxSessions) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.maxSessionsPerShard = (maxSessions + shardCount - 1) / shardCount;
+        this.shards = new Shard[shardCount];
+        this.threads = new Thread[shardCount];
+        for (int i = 0; i < shardCount; i++) shards[i] = new Shard(this, i);
+    }
+
+    int getWidth() { return width; }
+    int getHeight() { return height; }
+    int getMaxSessionsPerShard() { return maxSessionsPerShard; }
+
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (acceptor != null) throw new IllegalStateException("already started");
+        for (int i = 0; i < shards.length; i++) {
+            threads[i] = new Thread(shards[i], "shard-" + i);
+            threads[i].start();
+        }
+
+        acceptor = ServerSocketChannel.open();
+        acceptor.bind(address, 1024);
+        acceptThread = new Thread(this::acceptLoop, "acceptor");
+        acceptThread.start();
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) acceptor.getLocalAddress();
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        try {
+            while (true) {
+                SocketChannel ch = acceptor.accept();
+                shards[next].adopt(ch);
+                next = (next + 1) % shards.length;
+            }
+        } catch (ClosedChannelException e) {
+            // stop() closed the socket
+        } catch (IOException e) {
+            System.err.println("acceptor: " + e);
+        }
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        if (acceptor == null) return;
+        try {
+            acceptor.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        acceptThread.join();
+        for (Shard s : shards) s.stop();
+        for (Thread t : threads) t.join();
+        acceptor = null;
+    }
+
+    public int sessions() {
+        int n = 0;
+        for (Shard s : shards) n += s.getSessions();
+        return n;
+    }
+
+    public long commands() {
+        long n = 0;
+        for (Shard s : shards) n += s.getCommands();
+        return n;
+    }
+
+    public long ticks() {
+        long n = 0;
+        for (Shard s : shards) n += s.getTicks();
+        return n;
+    }
+
+    public long bytesOut() {
+        long n = 0;
+        for (Shard s : shards) n += s.getBytesOut();
+        return n;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int shards = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int maxSessions = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        GameServer server = new GameServer(10, 20, shards, maxSessions);
+        server.start(new InetSocketAddress("127.0.0.1", port));
+        System.out.println("listening on " + server.getAddress() + " with " + shards + " shards");
+
+        long commands = 0, ticks = 0, bytes = 0;
+        long last = System.nanoTime();
+        while (true) {
+            Thread.sleep(5000);
+            long now = System.nanoTime();
+            double secs = (now - last) / 1e9;
+            System.out.printf("%d sessions, %.0f commands/s, %.0f ticks/s, %.1f KB/s out%n",
+                    server.sessions(), (server.commands() - commands) / secs, (server.ticks() - ticks) / secs,
+                    (server.bytesOut() - bytes) / secs / 1024);
+            commands = server.commands();
+            ticks = server.ticks();
+            bytes = server.bytesOut();
+            last = now;
+        }
+    }
+}
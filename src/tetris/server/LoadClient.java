@@ -0,0 +1,167 @@
+package tetris.server;
+
+import tetris.core.Command;
+import tetris.metrics.LatencyHistogram;
+import tetris.stream.DeltaEncoder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+// Local load generator for GameServer: opens many connections from one thread and has
+// each of them play random moves at a fixed average rate, restarting after game over.
+// Reports every second how many games are connected, commands sent, updates received
+// and the time from a command to the next update for that game.
+//
+//   java tetris.server.LoadClient [connections] [commandsPerSecondEach] [seconds] [port]
+public final class LoadClient {
+    private static final byte[] MOVES = {
+            (byte) Command.LEFT.ordinal(), (byte) Command.RIGHT.ordinal(), (byte) Command.ROTATE.ordinal(),
+            (byte) Command.SOFT_DROP.ordinal(), (byte) Command.HARD_DROP.ordinal()
+    };
+    private static final byte RESTART = (byte) Command.RESTART.ordinal();
+
+    private static final class Conn {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(4096);
+        boolean connected;
+        boolean gameOver;
+        long sentAt; // 0 when no command is waiting for an update
+
+        Conn(SocketChannel channel) { this.channel = channel; }
+    }
+
+    private final Selector selector;
+    private final Conn[] conns;
+    private final ByteBuffer one = ByteBuffer.allocate(1);
+    private final SplittableRandom random = new SplittableRandom(1);
+    private final LatencyHistogram latency = new LatencyHistogram("command_to_update");
+
+    private int connected;
+    private long sent;
+    private long updates;
+    private long bytesIn;
+
+    private LoadClient(InetSocketAddress address, int connections) throws IOException {
+        selector = Selector.open();
+        conns = new Conn[connections];
+        for (int i = 0; i < connections; i++) {
+            SocketChannel ch = SocketChannel.open();
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+            conns[i] = new Conn(ch);
+            if (ch.connect(address)) onConnected(conns[i]);
+            ch.register(selector, ch.isConnected() ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, conns[i]);
+        }
+    }
+
+    private void onConnected(Conn c) {
+        c.connected = true;
+        connected++;
+    }
+
+    private void run(double commandsPerSecond, int seconds) throws IOException {
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long reportAt = start + 1_000_000_000L;
+        long last = start;
+        double due = 0;
+        long sentBefore = 0, updatesBefore = 0, bytesBefore = 0;
+
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= end) break;
+
+            due += (now - last) / 1e9 * commandsPerSecond * conns.length;
+            last = now;
+            for (; due >= 1; due--) send(conns[random.nextInt(conns.length)], now);
+
+            selector.select(1);
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                Conn c = (Conn) key.attachment();
+                if (key.isConnectable()) {
+                    if (c.channel.finishConnect()) {
+                        onConnected(c);
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                } else if (key.isReadable()) {
+                    read(c, key);
+                }
+            }
+
+            if (now >= reportAt) {
+                System.out.printf("%d connected, %d commands/s, %d updates/s, %.1f KB/s in, "
+                                + "command->update p50 %.2f ms, p99 %.2f ms%n",
+                        connected, sent - sentBefore, updates - updatesBefore, (bytesIn - bytesBefore) / 1024.0,
+                        latency.percentileNanos(50) / 1e6, latency.percentileNanos(99) / 1e6);
+                sentBefore = sent;
+                updatesBefore = updates;
+                bytesBefore = bytesIn;
+                latency.reset();
+                reportAt += 1_000_000_000L;
+            }
+        }
+
+        for (Conn c : conns) c.channel.close();
+        selector.close();
+    }
+
+    private void send(Conn c, long now) throws IOException {
+        if (!c.connected) return;
+        one.clear();
+        one.put(c.gameOver ? RESTART : MOVES[random.nextInt(MOVES.length)]);
+        one.flip();
+        // a full socket buffer just drops the command; the server is the thing under test
+        if (c.channel.write(one) == 1) {
+            sent++;
+            if (c.sentAt == 0) c.sentAt = now;
+        }
+    }
+
+    private void read(Conn c, SelectionKey key) throws IOException {
+        int n = c.channel.read(c.in);
+        if (n < 0) {
+            key.cancel();
+            c.channel.close();
+            c.connected = false;
+            connected--;
+            return;
+        }
+        bytesIn += n;
+
+        c.in.flip();
+        while (c.in.remaining() >= 2) {
+            int len = c.in.getShort(c.in.position()) & 0xFFFF;
+            if (c.in.remaining() < 2 + len) break;
+            int payload = c.in.position() + 2;
+            int flags = c.in.get(payload);
+            // STATE is the last field when present
+            if ((flags & DeltaEncoder.STATE) != 0) c.gameOver = c.in.get(payload + len - 1) == 2;
+            c.in.position(payload + len);
+            updates++;
+        }
+        c.in.compact();
+
+        if (c.sentAt != 0) {
+            latency.record(System.nanoTime() - c.sentAt);
+            c.sentAt = 0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : GameServer.DEFAULT_PORT;
+
+        new LoadClient(new InetSocketAddress("127.0.0.1", port), connections).run(rate, seconds);
+    }
+}
@@ -0,0 +1,142 @@
+package tetris.server;
+
+import tetris.core.Command;
+import tetris.core.Game;
+import tetris.stream.DeltaEncoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+// One connected client and its Game, owned by a single Shard. Incoming bytes are
+// Command ordinals, applied as they arrive; gravity comes from this session's timer
+// on the shard's wheel. Outgoing state is not queued: when the socket can take more,
+// the session encodes a DeltaEncoder frame against the last one it sent (TCP delivers
+// everything, so that counts as acknowledged). A slow reader just sees coarser updates
+// and memory per session stays fixed (one Game, its encoder and two small buffers).
+final class Session extends TimerWheel.Timer {
+    private static final Command[] COMMANDS = Command.values();
+
+    private final Shard shard;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final Game game;
+    private final DeltaEncoder delta;
+    private long sentSeq;
+    private final ByteBuffer in;
+    private final ByteBuffer out;
+
+    private boolean dirty;   // game changed since the last encode
+    private boolean queued;  // on the shard's dirty list
+    private boolean closed;
+
+    Session(Shard shard, SocketChannel channel, SelectionKey key, int width, int height, long seed) {
+        this.shard = shard;
+        this.channel = channel;
+        this.key = key;
+        this.game = new Game(width, height, seed);
+        this.delta = new DeltaEncoder(width, height, 0);
+        this.in = ByteBuffer.allocate(64);
+        this.out = ByteBuffer.allocate(2 * delta.maxFrameBytes());
+    }
+
+    void start() {
+        scheduleGravity();
+        markDirty();
+    }
+
+    private void scheduleGravity() {
+        shard.getWheel().schedule(this, game.getScore().getDelayMs());
+    }
+
+    @Override
+    protected void expire(long now) {
+        if (closed) return;
+        game.tick();
+        shard.countTick();
+        markDirty();
+        if (!game.isGameOver()) scheduleGravity();
+    }
+
+    void onReadable() {
+        int n;
+        try {
+            n = channel.read(in);
+        } catch (IOException e) {
+            close();
+            return;
+        }
+        if (n < 0) {
+            close();
+            return;
+        }
+
+        in.flip();
+        while (in.hasRemaining()) {
+            int b = in.get();
+            if (b < 0 || b >= COMMANDS.length) {
+                close(); // not our protocol
+                return;
+            }
+            game.onCommand(COMMANDS[b]);
+            shard.countCommand();
+        }
+        in.clear();
+
+        // a restart after game over needs gravity again
+        if (!game.isGameOver() && !isScheduled()) scheduleGravity();
+        markDirty();
+    }
+
+    void onWritable() {
+        flush();
+    }
+
+    private void markDirty() {
+        dirty = true;
+        if (!queued) {
+            queued = true;
+            shard.queueFlush(this);
+        }
+    }
+
+    // called by the shard once per loop iteration for queued sessions
+    void flush() {
+        queued = false;
+        if (closed) return;
+
+        if (dirty && out.remaining() >= delta.maxFrameBytes()) {
+            delta.capture(game);
+            if (delta.encode(sentSeq, out)) sentSeq = delta.getSeq();
+            dirty = false;
+        }
+        if (out.position() == 0) return;
+
+        out.flip();
+        try {
+            shard.countBytesOut(channel.write(out));
+        } catch (IOException e) {
+            close();
+            return;
+        }
+        out.compact();
+
+        // still bytes pending or a delta that didn't fit: wait for the socket
+        boolean waiting = out.position() > 0 || dirty;
+        key.interestOps(waiting ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    void close() {
+        if (closed) return;
+        closed = true;
+        shard.getWheel().cancel(this);
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing useful to do
+        }
+        shard.onClosed(this);
+    }
+}
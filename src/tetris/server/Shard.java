@@ -0,0 +1,118 @@
+package tetris.server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+// One event-loop thread: a Selector for its sessions' sockets and a TimerWheel for
+// their gravity, in 1 ms ticks. Each iteration reads whatever arrived, advances the
+// wheel to the current millisecond and then flushes every session that changed, so
+// a burst of commands and ticks to one game goes out as a single delta. Sessions
+// never move between shards and are only touched by this thread.
+final class Shard implements Runnable {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final GameServer server;
+    private final int index;
+    private final Selector selector;
+    private final TimerWheel wheel = new TimerWheel(0);
+    private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Session> dirty = new ArrayDeque<>();
+    private final long origin = System.nanoTime();
+
+    private volatile boolean running = true;
+    private long nextSeed;
+
+    // written by this thread only, read by the stats reporter
+    private volatile int sessions;
+    private volatile long commands;
+    private volatile long ticks;
+    private volatile long bytesOut;
+
+    Shard(GameServer server, int index) throws IOException {
+        this.server = server;
+        this.index = index;
+        this.selector = Selector.open();
+        this.nextSeed = (long) index << 40;
+    }
+
+    TimerWheel getWheel() { return wheel; }
+
+    int getSessions() { return sessions; }
+    long getCommands() { return commands; }
+    long getTicks() { return ticks; }
+    long getBytesOut() { return bytesOut; }
+
+    // from the acceptor thread
+    void adopt(SocketChannel channel) {
+        pending.add(channel);
+        selector.wakeup();
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select(1);
+                registerPending();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Session s = (Session) key.attachment();
+                    if (!key.isValid()) continue;
+                    if (key.isReadable()) s.onReadable();
+                    if (key.isValid() && key.isWritable()) s.onWritable();
+                }
+
+                wheel.advance((System.nanoTime() - origin) / TICK_NANOS);
+
+                for (Session s = dirty.poll(); s != null; s = dirty.poll()) s.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("shard " + index + ": " + e);
+        } finally {
+            for (SelectionKey key : selector.keys()) ((Session) key.attachment()).close();
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private void registerPending() throws IOException {
+        for (SocketChannel ch = pending.poll(); ch != null; ch = pending.poll()) {
+            if (sessions >= server.getMaxSessionsPerShard()) {
+                ch.close();
+                continue;
+            }
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+            SelectionKey key = ch.register(selector, SelectionKey.OP_READ);
+            Session s = new Session(this, ch, key, server.getWidth(), server.getHeight(), nextSeed++);
+            key.attach(s);
+            sessions++;
+            s.start();
+        }
+    }
+
+    void queueFlush(Session s) { dirty.add(s); }
+    void onClosed(Session s) { sessions--; }
+
+    void countCommand() { commands++; }
+    void countTick() { ticks++; }
+    void countBytesOut(int n) { bytesOut += n; }
+}
@@ -0,0 +1,110 @@
+package tetris.server;
+
+// Hierarchical timing wheel (Varghese & Lauck): LEVELS wheels of SLOTS buckets each,
+// level L covering deadlines up to SLOTS^(L+1) ticks ahead. Scheduling and cancelling
+// are O(1) list operations; each tick fires one level-0 bucket, and every SLOTS ticks a
+// bucket of the next level is cascaded down. Timers are intrusive list nodes, so a
+// wheel with thousands of pending timers allocates nothing after they are created.
+//
+// Not thread-safe: a wheel belongs to one event loop.
+public final class TimerWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    public abstract static class Timer {
+        private Timer next;
+        private Timer prev;
+        private long deadline = -1; // -1 while not scheduled
+        private int level;          // where it was inserted; deadlines drift down levels as time passes
+        private int slot;
+
+        public boolean isScheduled() { return deadline >= 0; }
+
+        // runs on the wheel's thread; may schedule this timer again
+        protected abstract void expire(long now);
+    }
+
+    private final Timer[][] slots = new Timer[LEVELS][SLOTS];
+    private long now;
+    private int size;
+
+    public TimerWheel(long startTick) {
+        this.now = startTick;
+    }
+
+    public long now() { return now; }
+    public int size() { return size; }
+
+    // run t after delay ticks (at least one); reschedules it if it is already pending
+    public void schedule(Timer t, long delay) {
+        if (t.isScheduled()) cancel(t);
+        t.deadline = now + Math.max(1, Math.min(delay, MAX_DELAY));
+        insert(t);
+        size++;
+    }
+
+    public void cancel(Timer t) {
+        if (!t.isScheduled()) return;
+        if (t.prev != null) t.prev.next = t.next;
+        else slots[t.level][t.slot] = t.next;
+        if (t.next != null) t.next.prev = t.prev;
+        t.next = t.prev = null;
+        t.deadline = -1;
+        size--;
+    }
+
+    // step the wheel up to tick, firing every timer that comes due on the way
+    public void advance(long tick) {
+        while (now < tick) {
+            now++;
+            // cascade from the top so timers fall straight to the lowest level they fit
+            if ((now & MASK) == 0) {
+                for (int l = LEVELS - 1; l > 0; l--) {
+                    if ((now & ((1L << (SLOT_BITS * l)) - 1)) == 0) cascade(l);
+                }
+            }
+
+            int slot = (int) (now & MASK);
+            Timer t = slots[0][slot];
+            slots[0][slot] = null;
+            while (t != null) {
+                Timer n = t.next;
+                t.next = t.prev = null;
+                t.deadline = -1;
+                size--;
+                t.expire(now);
+                t = n;
+            }
+        }
+    }
+
+    private void cascade(int level) {
+        int slot = (int) ((now >>> (SLOT_BITS * level)) & MASK);
+        Timer t = slots[level][slot];
+        slots[level][slot] = null;
+        while (t != null) {
+            Timer n = t.next;
+            t.next = t.prev = null;
+            insert(t);
+            t = n;
+        }
+    }
+
+    // into the lowest level whose range covers the distance from now
+    private void insert(Timer t) {
+        long delta = t.deadline - now;
+        int l = 0;
+        while (l < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (l + 1)))) l++;
+        t.level = l;
+        t.slot = (int) ((t.deadline >>> (SLOT_BITS * l)) & MASK);
+
+        Timer head = slots[l][t.slot];
+        t.prev = null;
+        t.next = head;
+        if (head != null) head.prev = t;
+        slots[l][t.slot] = t;
+    }
+}
@@ -0,0 +1,22 @@
+package tetris.sim;
+
+import tetris.core.Command;
+
+// What a headless player can do in a single frame
+public enum Action {
+    LEFT(Command.LEFT),
+    RIGHT(Command.RIGHT),
+    ROTATE(Command.ROTATE),
+    SOFT(Command.SOFT_DROP),
+    HARD(Command.HARD_DROP);
+
+    private final Command command;
+
+    Action(Command command) {
+        this.command = command;
+    }
+
+    public Command command() {
+        return command;
+    }
+}
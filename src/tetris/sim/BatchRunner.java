@@ -0,0 +1,152 @@
+package tetris.sim;
+
+import tetris.core.Game;
+import tetris.scores.ScoreStore;
+import tetris.train.PositionRecorder;
+import tetris.train.TrainingWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongFunction;
+
+// Fans a batch of headless games out over a ForkJoinPool. Every game owns its
+// Board, RandomBag and policy, so workers share nothing mutable; per-game seeds
+// are derived up front from the base seed, so results don't depend on scheduling.
+public class BatchRunner {
+    // games per leaf task; one game is far more work than a fork
+    private static final int LEAF_GAMES = 4;
+
+    private final int width;
+    private final int height;
+    private final long maxFrames;
+    private final int parallelism;
+    private ScoreStore store; // may be null
+    private TrainingWriter positions; // may be null
+
+    public BatchRunner(int width, int height, long maxFrames, int parallelism) {
+        this.width = width;
+        this.height = height;
+        this.maxFrames = maxFrames;
+        this.parallelism = parallelism;
+    }
+
+    public BatchRunner(int width, int height, long maxFrames) {
+        this(width, height, maxFrames, Runtime.getRuntime().availableProcessors());
+    }
+
+    // also append every finished game to a score store (null to stop)
+    public void setStore(ScoreStore store) {
+        this.store = store;
+    }
+
+    // also export every position of every game as training data (null to stop)
+    public void setTrainingWriter(TrainingWriter positions) {
+        this.positions = positions;
+    }
+
+    public static long[] seeds(long baseSeed, int count) {
+        SplittableRandom root = new SplittableRandom(baseSeed);
+        long[] seeds = new long[count];
+        for (int i = 0; i < count; i++) seeds[i] = root.nextLong();
+        return seeds;
+    }
+
+    // policies receives each game's seed so stateful policies can be seeded too
+    public GameResult[] runGames(LongFunction<? extends Policy> policies, int count, long baseSeed) {
+        long[] seeds = seeds(baseSeed, count);
+        GameResult[] results = new GameResult[count];
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new Slice(policies, seeds, results, 0, count));
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    public BatchStats run(LongFunction<? extends Policy> policies, int count, long baseSeed) {
+        long start = System.nanoTime();
+        GameResult[] results = runGames(policies, count, baseSeed);
+        return new BatchStats(results, System.nanoTime() - start, parallelism);
+    }
+
+    private GameResult playOne(Policy policy, long seed) {
+        Game game = new Game(width, height, seed);
+        PositionRecorder recorder = null;
+        if (positions != null) {
+            recorder = new PositionRecorder(positions);
+            game.addListener(recorder);
+        }
+        GameResult result = SimRunner.play(new Simulator(game), policy, maxFrames);
+        if (recorder != null) recorder.finish(game);
+        if (store != null) store.record(result);
+        return result;
+    }
+
+    @SuppressWarnings("serial") // ForkJoinTask is Serializable, but slices never get serialized
+    private final class Slice extends RecursiveAction {
+        private final LongFunction<? extends Policy> policies;
+        private final long[] seeds;
+        private final GameResult[] results;
+        private final int from;
+        private final int to;
+
+        Slice(LongFunction<? extends Policy> policies, long[] seeds, GameResult[] results, int from, int to) {
+            this.policies = policies;
+            this.seeds = seeds;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_GAMES) {
+                for (int i = from; i < to; i++) {
+                    results[i] = playOne(policies.apply(seeds[i]), seeds[i]);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Slice(policies, seeds, results, from, mid),
+                      new Slice(policies, seeds, results, mid, to));
+        }
+    }
+
+    // throughput report: same batch on 1 thread and on every core;
+    // -Dtetris.scores=<file> also records the measured games in a ScoreStore (once: the
+    // multi-core run replays the same seeds)
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long baseSeed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // warm-up so the first report isn't mostly JIT time
+        new BatchRunner(10, 20, 100_000, cores).run(RandomPolicy::new, games / 10 + 1, baseSeed);
+
+        String scores = System.getProperty("tetris.scores");
+        ScoreStore store = (scores != null) ? ScoreStore.open(Path.of(scores)) : null;
+        try {
+            BatchRunner one = new BatchRunner(10, 20, 100_000, 1);
+            one.setStore(store);
+            BatchStats single = one.run(RandomPolicy::new, games, baseSeed);
+            System.out.print(single.report());
+            if (cores > 1) {
+                BatchRunner many = new BatchRunner(10, 20, 100_000, cores);
+                BatchStats all = many.run(RandomPolicy::new, games, baseSeed);
+                System.out.print(all.report());
+                System.out.printf("  speedup   %.2fx on %d cores%n",
+                        all.gamesPerSecond() / single.gamesPerSecond(), cores);
+            }
+        } finally {
+            if (store != null) {
+                System.out.printf("  %,d games in %s%n", store.size(), scores);
+                store.close();
+            }
+        }
+    }
+}
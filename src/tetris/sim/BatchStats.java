@@ -0,0 +1,65 @@
+package tetris.sim;
+
+import java.util.LongSummaryStatistics;
+
+// Aggregate of a batch of headless games plus the wall-clock time it took.
+public final class BatchStats {
+    private final LongSummaryStatistics score = new LongSummaryStatistics();
+    private final LongSummaryStatistics lines = new LongSummaryStatistics();
+    private final LongSummaryStatistics level = new LongSummaryStatistics();
+    private final LongSummaryStatistics frames = new LongSummaryStatistics();
+    private final LongSummaryStatistics pieces = new LongSummaryStatistics();
+    private final long elapsedNanos;
+    private final int parallelism;
+
+    public BatchStats(GameResult[] results, long elapsedNanos, int parallelism) {
+        for (GameResult r : results) {
+            score.accept(r.getScore());
+            lines.accept(r.getLines());
+            level.accept(r.getLevel());
+            frames.accept(r.getFrames());
+            pieces.accept(r.getPieces());
+        }
+        this.elapsedNanos = elapsedNanos;
+        this.parallelism = parallelism;
+    }
+
+    public LongSummaryStatistics getScore() { return score; }
+    public LongSummaryStatistics getLines() { return lines; }
+    public LongSummaryStatistics getLevel() { return level; }
+    public LongSummaryStatistics getFrames() { return frames; }
+    public LongSummaryStatistics getPieces() { return pieces; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public int getParallelism() { return parallelism; }
+
+    public long getGames() { return score.getCount(); }
+
+    public double gamesPerSecond() {
+        return getGames() / seconds();
+    }
+
+    public double placementsPerSecond() {
+        return pieces.getSum() / seconds();
+    }
+
+    private double seconds() {
+        return Math.max(elapsedNanos, 1) / 1e9;
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d games on %d threads in %.3fs%n", getGames(), parallelism, seconds()));
+        sb.append(String.format("  throughput  %.0f games/s, %.0f placements/s%n",
+                gamesPerSecond(), placementsPerSecond()));
+        line(sb, "score", score);
+        line(sb, "lines", lines);
+        line(sb, "level", level);
+        line(sb, "frames", frames);
+        line(sb, "pieces", pieces);
+        return sb.toString();
+    }
+
+    private static void line(StringBuilder sb, String name, LongSummaryStatistics s) {
+        sb.append(String.format("  %-10s min %-8d mean %-10.1f max %d%n", name, s.getMin(), s.getAverage(), s.getMax()));
+    }
+}
@@ -0,0 +1,41 @@
+package tetris.sim;
+
+import tetris.core.Game;
+import tetris.core.ScoreManager;
+
+public final class GameResult {
+    private final long seed;
+    private final int score;
+    private final int lines;
+    private final int level;
+    private final long frames;
+    private final int pieces;
+
+    public GameResult(long seed, int score, int lines, int level, long frames, int pieces) {
+        this.seed = seed;
+        this.score = score;
+        this.lines = lines;
+        this.level = level;
+        this.frames = frames;
+        this.pieces = pieces;
+    }
+
+    public static GameResult of(Game game) {
+        ScoreManager s = game.getScore();
+        return new GameResult(game.getSeed(), s.getScore(), s.getLines(), s.getLevel(),
+                game.getFrame(), game.getPiecesPlaced());
+    }
+
+    public long getSeed() { return seed; }
+    public int getScore() { return score; }
+    public int getLines() { return lines; }
+    public int getLevel() { return level; }
+    public long getFrames() { return frames; }
+    public int getPieces() { return pieces; }
+
+    @Override
+    public String toString() {
+        return "seed=" + seed + " score=" + score + " lines=" + lines + " level=" + level
+                + " frames=" + frames + " pieces=" + pieces;
+    }
+}
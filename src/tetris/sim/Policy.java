@@ -0,0 +1,9 @@
+package tetris.sim;
+
+import tetris.core.Game;
+
+@FunctionalInterface
+public interface Policy {
+    // action for the coming frame, or null to just let the frame pass
+    Action nextAction(Game game);
+}
@@ -0,0 +1,22 @@
+package tetris.sim;
+
+import tetris.core.Game;
+
+import java.util.SplittableRandom;
+
+// Baseline bot: presses a random key now and then. Handy for smoke and throughput runs.
+public class RandomPolicy implements Policy {
+    private static final Action[] ACTIONS = Action.values();
+
+    private final SplittableRandom rng;
+
+    public RandomPolicy(long seed) {
+        this.rng = new SplittableRandom(seed);
+    }
+
+    @Override
+    public Action nextAction(Game game) {
+        int roll = rng.nextInt(ACTIONS.length * 2);
+        return roll < ACTIONS.length ? ACTIONS[roll] : null;
+    }
+}
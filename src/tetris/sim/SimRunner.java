@@ -0,0 +1,32 @@
+package tetris.sim;
+
+import tetris.core.Game;
+
+// Plays whole games headlessly at CPU speed.
+public final class SimRunner {
+    private SimRunner() {}
+
+    // play until game over or maxFrames, whichever comes first
+    public static GameResult play(Simulator sim, Policy policy, long maxFrames) {
+        while (!sim.isGameOver() && sim.getGame().getFrame() < maxFrames) {
+            sim.step(policy.nextAction(sim.getGame()));
+        }
+        return GameResult.of(sim.getGame());
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long maxFrames = 1_000_000;
+
+        long frames = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            GameResult r = play(new Simulator(new Game(10, 20, i)), new RandomPolicy(i), maxFrames);
+            frames += r.getFrames();
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games, %d frames in %.2fs (%.0f games/s, %.0f frames/s)%n",
+                games, frames, secs, games / secs, frames / secs);
+    }
+}
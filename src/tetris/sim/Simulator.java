@@ -0,0 +1,37 @@
+package tetris.sim;
+
+import tetris.core.Game;
+
+// Drives a Game frame by frame without Swing: no KeyEvent, no Timer, no wall clock.
+public class Simulator {
+    private final Game game;
+
+    public Simulator(Game game) {
+        this.game = game;
+    }
+
+    public Simulator(int w, int h) {
+        this(new Game(w, h));
+    }
+
+    public Game getGame() { return game; }
+
+    // apply one action (null = no input) and advance one frame;
+    // returns false once the game is over
+    public boolean step(Action action) {
+        if (action != null) game.onCommand(action.command());
+        game.advanceFrame();
+        return !game.isGameOver();
+    }
+
+    public boolean advanceFrames(int n) {
+        for (int i = 0; i < n && !game.isGameOver(); i++) {
+            game.advanceFrame();
+        }
+        return !game.isGameOver();
+    }
+
+    public boolean isGameOver() {
+        return game.isGameOver();
+    }
+}
@@ -1,5 +1,6 @@
 package tetris.states;
 
+import tetris.core.Command;
 import tetris.core.Game;
 
 public class GameOverState implements GameState {
@@ -14,8 +15,8 @@ public class GameOverState implements GameState {
     }
 
     @Override
-    public void onKeyPressed(int keyCode) {
-        game.handleGameOverKey(keyCode);
+    public void onCommand(Command command) {
+        game.handleGameOverCommand(command);
     }
 
     @Override
@@ -1,7 +1,9 @@
 package tetris.states;
 
+import tetris.core.Command;
+
 public interface GameState {
     void tick();
-    void onKeyPressed(int keyCode);
+    void onCommand(Command command);
     String name();
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package tetris.states;
 
+import tetris.core.Command;
 import tetris.core.Game;
 
 public class PausedState implements GameState {
@@ -14,8 +15,8 @@ public class PausedState implements GameState {
     }
 
     @Override
-    public void onKeyPressed(int keyCode) {
-        game.handlePausedKey(keyCode);
+    public void onCommand(Command command) {
+        game.handlePausedCommand(command);
     }
 
     @Override
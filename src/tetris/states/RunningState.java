@@ -1,5 +1,6 @@
 package tetris.states;
 
+import tetris.core.Command;
 import tetris.core.Game;
 
 public class RunningState implements GameState {
@@ -15,8 +16,8 @@ public class RunningState implements GameState {
     }
 
     @Override
-    public void onKeyPressed(int keyCode) {
-        game.handleRunningKey(keyCode);
+    public void onCommand(Command command) {
+        game.handleRunningCommand(command);
     }
 
     @Override
@@ -0,0 +1,120 @@
+package tetris.stream;
+
+import tetris.core.Board;
+import tetris.core.ShapeType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Rebuilds a game's visible state from DeltaEncoder frames: a Board with the same cells
+// (and so the same hash and column features) as the source, plus the falling and next
+// piece, score fields and state. Deltas only apply on top of the frame they were made
+// against or a later one; after a gap apply() refuses the frame and the receiver should
+// acknowledge 0 to get a keyframe.
+public final class DeltaDecoder {
+    private static final ShapeType[] TYPES = ShapeType.values();
+
+    private final int width;
+    private final int height;
+    private final Board board;
+    private final int[] row;
+
+    private long seq; // last frame applied, 0 = none
+    private int activeType = -1;
+    private int activeRotation;
+    private int activeX;
+    private int activeY;
+    private int nextType = -1;
+    private int score;
+    private int lines;
+    private int level;
+    private int state;
+
+    public DeltaDecoder(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.board = new Board(width, height);
+        this.row = new int[width];
+    }
+
+    // Applies one frame from in (positioned at its length prefix; the whole frame must be
+    // there). Returns false without changing anything if it's a delta this decoder can't
+    // use: one for a frame it hasn't reached, or one older than what it already has.
+    public boolean apply(ByteBuffer in) throws IOException {
+        int len = in.getShort() & 0xFFFF;
+        int end = in.position() + len;
+        if (end > in.limit()) throw new IOException("truncated frame");
+
+        int flags = in.get();
+        long frameSeq = getVarint(in);
+        boolean key = (flags & DeltaEncoder.KEY) != 0;
+        if (!key) {
+            long base = getVarint(in);
+            if (base > seq || frameSeq <= seq) {
+                in.position(end);
+                return false;
+            }
+        }
+
+        if ((flags & DeltaEncoder.ROWS) != 0 || key) {
+            long rows = (flags & DeltaEncoder.ROWS) != 0 ? getVarint(in) : 0;
+            for (int y = 0; y < height; y++) {
+                if ((rows & (1L << y)) != 0) {
+                    for (int x = 0; x < width; x += 2) {
+                        int b = in.get() & 0xFF;
+                        row[x] = b & 0xF;
+                        if (x + 1 < width) row[x + 1] = b >>> 4;
+                    }
+                    board.setRow(y, row);
+                } else if (key && board.getRowMask(y) != 0) {
+                    Arrays.fill(row, 0);
+                    board.setRow(y, row);
+                }
+            }
+        }
+        if ((flags & DeltaEncoder.ACTIVE) != 0) {
+            int tr = in.get() & 0xFF;
+            activeType = tr >>> 2;
+            activeRotation = tr & 3;
+            activeX = in.get();
+            activeY = in.get();
+        }
+        if ((flags & DeltaEncoder.NEXT) != 0) nextType = in.get();
+        if ((flags & DeltaEncoder.SCORE) != 0) {
+            score = (int) getVarint(in);
+            lines = (int) getVarint(in);
+            level = (int) getVarint(in);
+        }
+        if ((flags & DeltaEncoder.STATE) != 0) state = in.get();
+
+        if (in.position() != end) throw new IOException("frame length mismatch");
+        seq = frameSeq;
+        return true;
+    }
+
+    public long getSeq() { return seq; }
+    public Board getBoard() { return board; }
+
+    public ShapeType getActiveType() { return activeType < 0 ? null : TYPES[activeType]; }
+    public int getActiveRotation() { return activeRotation; }
+    public int getActiveX() { return activeX; }
+    public int getActiveY() { return activeY; }
+    public ShapeType getNextType() { return nextType < 0 ? null : TYPES[nextType]; }
+
+    public int getScore() { return score; }
+    public int getLines() { return lines; }
+    public int getLevel() { return level; }
+    public int getState() { return state; } // DeltaEncoder.stateCode()
+
+    static long getVarint(ByteBuffer buf) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!buf.hasRemaining()) throw new IOException("truncated varint");
+            byte b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IOException("malformed varint");
+    }
+}
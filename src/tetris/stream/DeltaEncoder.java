@@ -0,0 +1,239 @@
+package tetris.stream;
+
+import tetris.core.Board;
+import tetris.core.Game;
+import tetris.core.Tetromino;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Turns a live Game into a stream of frames for remote renderers and spectators.
+// capture() records the game's state as frame number getSeq(); encode() then writes
+// that frame relative to the last frame a receiver acknowledged, carrying only what
+// changed since then. Each field remembers the seq of its last change, so a delta
+// against any acknowledged frame is one pass over the rows, with no per-receiver history.
+//
+// Frame layout (big-endian):
+//
+//   u16 payload length
+//   u8  flags                     KEY | ROWS | ACTIVE | NEXT | SCORE | STATE
+//   varint seq
+//   varint base                   frame this delta applies to (absent in keyframes)
+//   ROWS:   varint row bitmap (bit y = row y), then for each row (width + 1) / 2
+//           bytes of 4-bit cell colors, low nibble first. A keyframe lists only
+//           non-empty rows; every other row is empty.
+//   ACTIVE: u8 type << 2 | rotation, i8 x, i8 y
+//   NEXT:   u8 type
+//   SCORE:  varint score, varint lines, varint level
+//   STATE:  u8 0 running, 1 paused, 2 game over (always the last byte when present)
+//
+// A keyframe is sent when the receiver has acknowledged nothing, when its ack is older
+// than the latest periodic keyframe, or every keyframeInterval frames otherwise, so
+// receivers that join late or drop frames recover without a round trip.
+public final class DeltaEncoder {
+    public static final int ROWS = 1;
+    public static final int ACTIVE = 2;
+    public static final int NEXT = 4;
+    public static final int SCORE = 8;
+    public static final int STATE = 16;
+    public static final int KEY = 0x80;
+
+    public static final int MAX_HEIGHT = 64;
+
+    // encodings of the current frame kept for reuse, keyed by base seq (fan-out to many receivers)
+    private static final int CACHE = 4;
+
+    private final int width;
+    private final int height;
+    private final int rowBytes;
+    private final int keyframeInterval; // 0 = only when a receiver needs one
+
+    private long seq;
+    private long keyframeSeq;
+
+    private final int[] cells;           // row-major, as of seq
+    private final int[] seenVersions;    // Board row versions already copied
+    private final long[] rowSeq;         // frame in which each row last changed
+    private int active = -1;
+    private long activeSeq;
+    private int next = -1;
+    private long nextSeq;
+    private int score, lines, level;
+    private long scoreSeq;
+    private int state = -1;
+    private long stateSeq;
+
+    private final byte[][] cached = new byte[CACHE][];
+    private final int[] cachedLength = new int[CACHE];
+    private final long[] cachedBase = new long[CACHE];
+    private int cacheUsed;
+    private int cacheNext;
+    private final ByteBuffer scratch;
+
+    public DeltaEncoder(int width, int height, int keyframeInterval) {
+        if (height > MAX_HEIGHT) throw new IllegalArgumentException("height > " + MAX_HEIGHT);
+        this.width = width;
+        this.height = height;
+        this.rowBytes = (width + 1) / 2;
+        this.keyframeInterval = keyframeInterval;
+        this.cells = new int[width * height];
+        this.seenVersions = new int[height];
+        this.rowSeq = new long[height];
+        Arrays.fill(seenVersions, -1);
+        for (int i = 0; i < CACHE; i++) cached[i] = new byte[maxFrameBytes()];
+        this.scratch = ByteBuffer.allocate(maxFrameBytes());
+    }
+
+    public long getSeq() { return seq; }
+
+    // largest frame for this board size, length prefix included
+    public int maxFrameBytes() {
+        return 2 + 1 + 10 + 10 + 10 + height * rowBytes + 3 + 1 + 15 + 1;
+    }
+
+    public static int stateCode(Game game) {
+        if (game.isRunning()) return 0;
+        return game.isGameOver() ? 2 : 1;
+    }
+
+    // record the game as the next frame
+    public void capture(Game game) {
+        seq++;
+        if (seq == 1 || (keyframeInterval > 0 && seq - keyframeSeq >= keyframeInterval)) keyframeSeq = seq;
+        cacheUsed = 0;
+
+        Board board = game.getBoard();
+        int[][] grid = board.getGrid();
+        for (int y = 0; y < height; y++) {
+            int v = board.getRowVersion(y);
+            if (v == seenVersions[y]) continue;
+            seenVersions[y] = v;
+            // a new version doesn't always mean new contents (rows shifted into an identical row)
+            int[] row = grid[y];
+            int base = y * width;
+            boolean changed = false;
+            for (int x = 0; x < width; x++) {
+                if (cells[base + x] != row[x]) {
+                    cells[base + x] = row[x];
+                    changed = true;
+                }
+            }
+            if (changed) rowSeq[y] = seq;
+        }
+
+        Tetromino a = game.getActive();
+        int act = (a.getType().ordinal() << 18) | (a.getRotation() << 16) | ((a.getX() & 0xFF) << 8) | (a.getY() & 0xFF);
+        if (act != active) {
+            active = act;
+            activeSeq = seq;
+        }
+        int nxt = game.getNext().getType().ordinal();
+        if (nxt != next) {
+            next = nxt;
+            nextSeq = seq;
+        }
+        int sc = game.getScore().getScore(), ln = game.getScore().getLines(), lv = game.getScore().getLevel();
+        if (sc != score || ln != lines || lv != level) {
+            score = sc;
+            lines = ln;
+            level = lv;
+            scoreSeq = seq;
+        }
+        int st = stateCode(game);
+        if (st != state) {
+            state = st;
+            stateSeq = seq;
+        }
+    }
+
+    // Appends the current frame for a receiver that has applied frame ackSeq (0 = none);
+    // out needs maxFrameBytes() free. Returns false, writing nothing, if the receiver is current.
+    public boolean encode(long ackSeq, ByteBuffer out) {
+        if (seq == 0 || ackSeq >= seq) return false;
+        boolean key = ackSeq <= 0 || ackSeq < keyframeSeq;
+        long base = key ? 0 : ackSeq;
+
+        long rows = 0;
+        for (int y = 0; y < height; y++) {
+            if (key ? !rowEmpty(y) : rowSeq[y] > base) rows |= 1L << y;
+        }
+        int flags = 0;
+        if (key) flags = KEY | ACTIVE | NEXT | SCORE | STATE;
+        if (activeSeq > base) flags |= ACTIVE;
+        if (nextSeq > base) flags |= NEXT;
+        if (scoreSeq > base) flags |= SCORE;
+        if (stateSeq > base) flags |= STATE;
+        if (rows != 0) flags |= ROWS;
+        if (flags == 0) return false; // captured again but nothing moved
+
+        int start = out.position();
+        out.putShort((short) 0); // patched below
+        out.put((byte) flags);
+        putVarint(out, seq);
+        if (!key) putVarint(out, base);
+
+        if (rows != 0) {
+            putVarint(out, rows);
+            for (int y = 0; y < height; y++) {
+                if ((rows & (1L << y)) == 0) continue;
+                int b = y * width;
+                for (int x = 0; x < width; x += 2) {
+                    int hi = (x + 1 < width) ? cells[b + x + 1] : 0;
+                    out.put((byte) (cells[b + x] | hi << 4));
+                }
+            }
+        }
+        if ((flags & ACTIVE) != 0) {
+            out.put((byte) (active >>> 18 << 2 | (active >>> 16 & 3)));
+            out.put((byte) (active >>> 8));
+            out.put((byte) active);
+        }
+        if ((flags & NEXT) != 0) out.put((byte) next);
+        if ((flags & SCORE) != 0) {
+            putVarint(out, score);
+            putVarint(out, lines);
+            putVarint(out, level);
+        }
+        if ((flags & STATE) != 0) out.put((byte) state);
+
+        out.putShort(start, (short) (out.position() - start - 2));
+        return true;
+    }
+
+    // Same as encode(), but the bytes for each distinct ackSeq are produced once per frame
+    // and copied for every later receiver at that ack: fanning one game out to many
+    // spectators costs one encode per distinct ack plus a copy each.
+    public boolean writeTo(long ackSeq, ByteBuffer out) {
+        for (int i = 0; i < cacheUsed; i++) {
+            if (cachedBase[i] == ackSeq) {
+                out.put(cached[i], 0, cachedLength[i]);
+                return cachedLength[i] > 0;
+            }
+        }
+
+        scratch.clear();
+        encode(ackSeq, scratch);
+        int slot = cacheUsed < CACHE ? cacheUsed++ : (cacheNext++ % CACHE);
+        System.arraycopy(scratch.array(), 0, cached[slot], 0, scratch.position());
+        cachedLength[slot] = scratch.position();
+        cachedBase[slot] = ackSeq;
+        out.put(cached[slot], 0, cachedLength[slot]);
+        return cachedLength[slot] > 0;
+    }
+
+    private boolean rowEmpty(int y) {
+        int b = y * width;
+        for (int x = 0; x < width; x++) {
+            if (cells[b + x] != 0) return false;
+        }
+        return true;
+    }
+
+    static void putVarint(ByteBuffer buf, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+}
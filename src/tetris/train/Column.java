@@ -0,0 +1,45 @@
+package tetris.train;
+
+// The columns of a training chunk, in file order. Each holds one fixed-size value per
+// position; multi-byte values are little-endian.
+public enum Column {
+    // the board before the move, one bit per cell (bit y * width + x, y = 0 the top row),
+    // padded to whole longs so every position is a fixed-stride tensor
+    BOARD,
+    // column heights (rows from the floor up to the topmost block), one byte per column
+    HEIGHTS,
+    // shorts: aggregate height, holes, bumpiness, max height, max well depth
+    FEATURES,
+    ACTIVE,       // ShapeType ordinal of the piece being placed
+    NEXT,         // ShapeType ordinal of the preview piece
+    ROTATION,     // where the piece locked: rotation, x and y (signed bytes)
+    X,
+    Y,
+    CLEARED,      // lines the move cleared
+    PIECES_LEFT,  // i32: pieces until the game topped out, this one included; -1 if it never did
+    FINAL_SCORE,  // i32: the game's score when its positions were exported
+    PIECE,        // i32: pieces placed in the game before this one
+    SEED;         // i64: the game's seed, which together with PIECE identifies the position
+
+    public static final int FEATURE_COUNT = 5;
+
+    private static final Column[] VALUES = values();
+
+    static Column[] all() { return VALUES; }
+
+    // bytes per position
+    public int size(int width, int height) {
+        return switch (this) {
+            case BOARD -> boardLongs(width, height) * 8;
+            case HEIGHTS -> width;
+            case FEATURES -> FEATURE_COUNT * 2;
+            case PIECES_LEFT, FINAL_SCORE, PIECE -> 4;
+            case SEED -> 8;
+            default -> 1;
+        };
+    }
+
+    public static int boardLongs(int width, int height) {
+        return (width * height + 63) / 64;
+    }
+}
@@ -0,0 +1,100 @@
+package tetris.train;
+
+import tetris.core.Board;
+import tetris.core.BoardFeatures;
+import tetris.core.Tetromino;
+
+import java.util.Arrays;
+
+// Positions of one game, column by column, waiting for the game's outcome before they
+// go to a TrainingWriter. Arrays grow as needed and are reused after clear().
+final class PositionBatch {
+    private final int width;
+    private final int height;
+    private final int boardLongs;
+
+    long[] boards;
+    byte[] heights;
+    short[] features;
+    byte[] active;
+    byte[] next;
+    byte[] rotation;
+    byte[] x;
+    byte[] y;
+    byte[] cleared;
+    int[] piecesLeft;
+    int[] finalScore;
+    int[] piece;
+    long[] seed;
+    private int size;
+
+    PositionBatch(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.boardLongs = Column.boardLongs(width, height);
+        allocate(256);
+    }
+
+    private void allocate(int capacity) {
+        boards = Arrays.copyOf(boards != null ? boards : new long[0], capacity * boardLongs);
+        heights = Arrays.copyOf(heights != null ? heights : new byte[0], capacity * width);
+        features = Arrays.copyOf(features != null ? features : new short[0], capacity * Column.FEATURE_COUNT);
+        active = grow(active, capacity);
+        next = grow(next, capacity);
+        rotation = grow(rotation, capacity);
+        x = grow(x, capacity);
+        y = grow(y, capacity);
+        cleared = grow(cleared, capacity);
+        piecesLeft = Arrays.copyOf(piecesLeft != null ? piecesLeft : new int[0], capacity);
+        finalScore = Arrays.copyOf(finalScore != null ? finalScore : new int[0], capacity);
+        piece = Arrays.copyOf(piece != null ? piece : new int[0], capacity);
+        seed = Arrays.copyOf(seed != null ? seed : new long[0], capacity);
+    }
+
+    private static byte[] grow(byte[] a, int capacity) {
+        return Arrays.copyOf(a != null ? a : new byte[0], capacity);
+    }
+
+    int getWidth() { return width; }
+    int getHeight() { return height; }
+    int size() { return size; }
+
+    void clear() { size = 0; }
+
+    // stages a position: the board as it is, and the piece about to lock on it
+    void add(Board board, Tetromino p, Tetromino preview, int pieceIndex, long gameSeed) {
+        if (size == active.length) allocate(size * 2);
+        int i = size++;
+
+        // rows top to bottom, each `width` bits, packed across long boundaries
+        int base = i * boardLongs;
+        Arrays.fill(boards, base, base + boardLongs, 0L);
+        int bit = 0;
+        for (int row = 0; row < height; row++, bit += width) {
+            long mask = board.getRowMask(row);
+            if (mask == 0) continue;
+            int w = base + (bit >>> 6);
+            int shift = bit & 63;
+            boards[w] |= mask << shift;
+            if (shift != 0 && shift + width > 64) boards[w + 1] |= mask >>> (64 - shift);
+        }
+
+        BoardFeatures f = board.getFeatures();
+        for (int c = 0; c < width; c++) heights[i * width + c] = (byte) f.columnHeight(c);
+        int fi = i * Column.FEATURE_COUNT;
+        features[fi] = (short) f.aggregateHeight();
+        features[fi + 1] = (short) f.holes();
+        features[fi + 2] = (short) f.bumpiness();
+        features[fi + 3] = (short) f.maxHeight();
+        features[fi + 4] = (short) f.maxWellDepth();
+
+        active[i] = (byte) p.getType().ordinal();
+        next[i] = (byte) preview.getType().ordinal();
+        rotation[i] = (byte) p.getRotation();
+        x[i] = (byte) p.getX();
+        y[i] = (byte) p.getY();
+        cleared[i] = 0;
+        piece[i] = pieceIndex;
+        seed[i] = gameSeed;
+    }
+}
@@ -0,0 +1,66 @@
+package tetris.train;
+
+import tetris.core.Game;
+import tetris.core.GameListener;
+import tetris.core.Tetromino;
+
+// Turns one game's locks into training positions. Every lock stages the board and the
+// move; the labels that need the game's outcome are filled in when it tops out, and
+// then the whole game goes to the writer in one append. Games cut short by a frame
+// limit are handed over by finish(), labelled as never topping out.
+//
+// One recorder per game (it is called on the game's thread); the writer is shared.
+public class PositionRecorder implements GameListener {
+    private final TrainingWriter writer;
+    private final PositionBatch batch;
+    private int linesBefore; // the game's lines when the last staged piece was about to lock
+    private int scoreBefore; // and its score
+
+    public PositionRecorder(TrainingWriter writer) {
+        this.writer = writer;
+        this.batch = new PositionBatch(writer.getWidth(), writer.getHeight());
+    }
+
+    @Override
+    public void onLock(Game game, Tetromino piece) {
+        // a reset game starts over without topping out; what the last piece of the old
+        // game cleared is lost with its score, so it stays 0
+        if (game.getPiecesPlaced() == 0 && batch.size() > 0) submit(scoreBefore, false);
+
+        settleLast(game);
+        scoreBefore = game.getScore().getScore();
+        batch.add(game.getBoard(), piece, game.getNext(), game.getPiecesPlaced(), game.getSeed());
+    }
+
+    @Override
+    public void onGameOver(Game game) {
+        settleLast(game);
+        submit(game.getScore().getScore(), true);
+    }
+
+    // hands over the positions of a game that stopped without topping out
+    public void finish(Game game) {
+        if (game.isGameOver()) return;
+        settleLast(game);
+        submit(game.getScore().getScore(), false);
+    }
+
+    // the lines the last staged piece cleared are known once the game has moved on
+    private void settleLast(Game game) {
+        int lines = game.getScore().getLines();
+        if (batch.size() > 0) batch.cleared[batch.size() - 1] = (byte) (lines - linesBefore);
+        linesBefore = lines;
+    }
+
+    private void submit(int score, boolean toppedOut) {
+        int n = batch.size();
+        if (n == 0) return;
+        for (int i = 0; i < n; i++) {
+            batch.piecesLeft[i] = toppedOut ? n - i : -1;
+            batch.finalScore[i] = score;
+        }
+        writer.append(batch);
+        batch.clear();
+        linesBefore = 0;
+    }
+}
@@ -0,0 +1,48 @@
+package tetris.train;
+
+import tetris.ai.BeamSearchPolicy;
+import tetris.ai.HeuristicEvaluator;
+import tetris.sim.BatchRunner;
+import tetris.sim.BatchStats;
+import tetris.sim.RandomPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Plays a batch of headless games and exports every position to a training file.
+//
+//   java tetris.train.TrainingExport <file> [games] [random|beam] [seed]
+// random games are short and cheap, good for throughput runs; beam games (the beam-search
+// autoplayer, one ply) are the positions worth training on.
+public final class TrainingExport {
+    private TrainingExport() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: TrainingExport <file> [games] [random|beam] [seed]");
+            System.exit(2);
+        }
+        Path file = Path.of(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        boolean beam = args.length > 2 && args[2].equals("beam");
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+
+        BatchRunner runner = new BatchRunner(10, 20, 100_000);
+        long start = System.nanoTime();
+        long rows;
+        long stalls;
+        try (TrainingWriter writer = TrainingWriter.open(file, 10, 20)) {
+            runner.setTrainingWriter(writer);
+            BatchStats stats = beam
+                    ? runner.run(s -> new BeamSearchPolicy(10, 20, 8, 1, new HeuristicEvaluator()), games, seed)
+                    : runner.run(RandomPolicy::new, games, seed);
+            System.out.print(stats.report());
+            rows = writer.getRows();
+            stalls = writer.getStalls();
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.printf("  %,d positions, %,d bytes in %.2fs (%.1fM positions/min), %d writer stalls%n",
+                rows, Files.size(file), secs, rows / secs * 60 / 1e6, stalls);
+    }
+}
@@ -0,0 +1,46 @@
+package tetris.train;
+
+import java.nio.ByteBuffer;
+
+// Layout shared by TrainingWriter and TrainingReader. Everything is little-endian so
+// the columns can be mapped straight into numpy or torch tensors.
+//
+//   file header (32 bytes): "TTRN" | version i32 | width i32 | height i32 |
+//                           piece types i32 | columns i32 | 0 i64
+//   chunks, back to back:
+//     chunk header (16 bytes): "TCHK" | rows i32 | chunk bytes i64 (header included)
+//     one block per Column, in Column order: rows values, zero-padded to 8 bytes
+// A chunk is only ever appended whole; a reader stops at the first chunk that is cut
+// short or doesn't check out, so a crash loses at most the chunk being written.
+final class TrainingFormat {
+    static final int MAGIC = 0x4E525454;       // "TTRN" as little-endian bytes
+    static final int CHUNK_MAGIC = 0x4B484354; // "TCHK"
+    static final int VERSION = 1;
+
+    static final int HEADER = 32;
+    static final int CHUNK_HEADER = 16;
+
+    private TrainingFormat() {}
+
+    static void putHeader(ByteBuffer b, int width, int height, int pieceTypes) {
+        b.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, width).putInt(12, height)
+                .putInt(16, pieceTypes).putInt(20, Column.all().length).putLong(24, 0);
+    }
+
+    static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    // offset of each column's block in a chunk of `rows` positions, then the chunk's length
+    static long[] offsets(int width, int height, int rows) {
+        Column[] cols = Column.all();
+        long[] off = new long[cols.length + 1];
+        long at = CHUNK_HEADER;
+        for (Column c : cols) {
+            off[c.ordinal()] = at;
+            at += align(rows * c.size(width, height));
+        }
+        off[cols.length] = at;
+        return off;
+    }
+}
@@ -0,0 +1,200 @@
+package tetris.train;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Reads a TrainingWriter file without copying: opening only walks the chunk headers,
+// and each chunk's columns are views of a read-only mapping of that chunk.
+//
+//   java tetris.train.TrainingReader <file>   prints a summary of the positions
+public final class TrainingReader implements Closeable {
+    private final Path file;
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int pieceTypes;
+
+    private long[] chunkOffsets = new long[16];
+    private int[] chunkRows = new int[16];
+    private int chunks;
+    private long rows;
+    private long ignored; // trailing bytes that don't form a whole, valid chunk
+
+    private TrainingReader(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+
+        ByteBuffer h = read(0, TrainingFormat.HEADER);
+        if (h == null || h.getInt(0) != TrainingFormat.MAGIC) throw new IOException(file + ": not a training file");
+        if (h.getInt(4) != TrainingFormat.VERSION) throw new IOException(file + ": unsupported training file version " + h.getInt(4));
+        if (h.getInt(20) != Column.all().length) throw new IOException(file + ": unexpected column count " + h.getInt(20));
+        this.width = h.getInt(8);
+        this.height = h.getInt(12);
+        this.pieceTypes = h.getInt(16);
+
+        long size = channel.size();
+        long at = TrainingFormat.HEADER;
+        while (at < size) {
+            ByteBuffer c = read(at, TrainingFormat.CHUNK_HEADER);
+            if (c == null || c.getInt(0) != TrainingFormat.CHUNK_MAGIC) break;
+            int n = c.getInt(4);
+            long bytes = c.getLong(8);
+            if (n < 1 || bytes != TrainingFormat.offsets(width, height, n)[Column.all().length] || at + bytes > size) break;
+            if (chunks == chunkOffsets.length) {
+                chunkOffsets = Arrays.copyOf(chunkOffsets, chunks * 2);
+                chunkRows = Arrays.copyOf(chunkRows, chunks * 2);
+            }
+            chunkOffsets[chunks] = at;
+            chunkRows[chunks++] = n;
+            rows += n;
+            at += bytes;
+        }
+        this.ignored = size - at;
+    }
+
+    public static TrainingReader open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new TrainingReader(file, ch);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    // ShapeType.count() of the piece set the positions were played with
+    public int getPieceTypes() { return pieceTypes; }
+
+    public int getChunkCount() { return chunks; }
+    public long getRows() { return rows; }
+
+    // bytes after the last whole chunk (a write cut short by a crash), skipped
+    public long getIgnoredBytes() { return ignored; }
+
+    public Chunk chunk(int i) throws IOException {
+        if (i < 0 || i >= chunks) throw new IndexOutOfBoundsException("chunk " + i + " of " + chunks);
+        long[] off = TrainingFormat.offsets(width, height, chunkRows[i]);
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, chunkOffsets[i], off[off.length - 1]);
+        return new Chunk(map, off, chunkRows[i]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // `len` bytes at `pos`, or null past the end of the file
+    private ByteBuffer read(long pos, int len) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (channel.read(b, pos + b.position()) < 0) return null;
+        }
+        return b.flip();
+    }
+
+    // the positions of one chunk; every accessor reads the mapping in place
+    public final class Chunk {
+        private final ByteBuffer map;
+        private final long[] off;
+        private final int rows;
+        private final int boardLongs = Column.boardLongs(width, height);
+
+        private Chunk(ByteBuffer map, long[] off, int rows) {
+            this.map = map.order(ByteOrder.LITTLE_ENDIAN);
+            this.off = off;
+            this.rows = rows;
+        }
+
+        public int rows() { return rows; }
+
+        // the column's rows * size bytes, little-endian
+        public ByteBuffer column(Column c) {
+            return map.slice((int) off[c.ordinal()], rows * c.size(width, height)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        public LongBuffer boards() { return column(Column.BOARD).asLongBuffer(); }
+        public ShortBuffer features() { return column(Column.FEATURES).asShortBuffer(); }
+
+        public boolean filled(int row, int x, int y) {
+            int bit = y * width + x;
+            long word = map.getLong((int) off[Column.BOARD.ordinal()] + (row * boardLongs + (bit >>> 6)) * 8);
+            return (word >>> (bit & 63) & 1) != 0;
+        }
+
+        public int columnHeight(int row, int x) { return byteAt(Column.HEIGHTS, row * width + x); }
+        public int feature(int row, int f) { return map.getShort((int) off[Column.FEATURES.ordinal()] + (row * Column.FEATURE_COUNT + f) * 2); }
+        public int active(int row) { return byteAt(Column.ACTIVE, row); }
+        public int next(int row) { return byteAt(Column.NEXT, row); }
+        public int rotation(int row) { return byteAt(Column.ROTATION, row); }
+        public int x(int row) { return map.get((int) off[Column.X.ordinal()] + row); }
+        public int y(int row) { return map.get((int) off[Column.Y.ordinal()] + row); }
+        public int cleared(int row) { return byteAt(Column.CLEARED, row); }
+        public int piecesLeft(int row) { return intAt(Column.PIECES_LEFT, row); }
+        public int finalScore(int row) { return intAt(Column.FINAL_SCORE, row); }
+        public int piece(int row) { return intAt(Column.PIECE, row); }
+        public long seed(int row) { return map.getLong((int) off[Column.SEED.ordinal()] + row * 8); }
+
+        private int byteAt(Column c, int i) {
+            return map.get((int) off[c.ordinal()] + i) & 0xFF;
+        }
+
+        private int intAt(Column c, int row) {
+            return map.getInt((int) off[c.ordinal()] + row * 4);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: TrainingReader <file>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        try (TrainingReader r = open(Path.of(args[0]))) {
+            System.out.printf("%dx%d, %d piece types: %,d positions in %d chunks, opened in %.1f ms%n",
+                    r.getWidth(), r.getHeight(), r.getPieceTypes(), r.getRows(), r.getChunkCount(),
+                    (System.nanoTime() - start) / 1e6);
+            if (r.getIgnoredBytes() > 0) System.out.printf("  %,d trailing bytes ignored%n", r.getIgnoredBytes());
+
+            // one pass over a few columns, to show what reading in place costs
+            start = System.nanoTime();
+            long[] clears = new long[5];
+            long cells = 0;
+            long finished = 0;
+            long left = 0;
+            for (int i = 0; i < r.getChunkCount(); i++) {
+                Chunk c = r.chunk(i);
+                LongBuffer boards = c.boards();
+                while (boards.hasRemaining()) cells += Long.bitCount(boards.get());
+                ByteBuffer cleared = c.column(Column.CLEARED);
+                while (cleared.hasRemaining()) clears[Math.min(cleared.get(), 4)]++;
+                IntBuffer pl = c.column(Column.PIECES_LEFT).asIntBuffer();
+                while (pl.hasRemaining()) {
+                    int p = pl.get();
+                    if (p >= 0) {
+                        finished++;
+                        left += p;
+                    }
+                }
+            }
+            double secs = (System.nanoTime() - start) / 1e9;
+            long n = Math.max(1, r.getRows());
+            System.out.printf("  %.1f filled cells per board, clears 0..4: %s%n", (double) cells / n, Arrays.toString(clears));
+            if (finished > 0) System.out.printf("  %.0f pieces to top-out on average (%,d positions from finished games)%n",
+                    (double) left / finished, finished);
+            System.out.printf("  scanned in %.2fs (%.0f positions/s)%n", secs, r.getRows() / secs);
+        }
+    }
+}
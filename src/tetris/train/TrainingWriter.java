@@ -0,0 +1,261 @@
+package tetris.train;
+
+import tetris.core.ShapeType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Streams training positions to a file in TrainingFormat. Games append into the chunk
+// being filled; a full chunk goes to a background thread that writes it while the
+// other chunk buffer fills, so simulation only waits on the disk when it falls a whole
+// chunk behind (counted by getStalls()). append() is safe from any thread.
+public final class TrainingWriter implements Closeable {
+    public static final int DEFAULT_CHUNK_ROWS = 1 << 16;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int chunkRows;
+
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(2);
+    private final BlockingQueue<Chunk> full = new ArrayBlockingQueue<>(2);
+    private final Chunk done = new Chunk(); // tells the writer thread to stop
+    private final Thread thread;
+    private Chunk filling;
+
+    private long rows;
+    private long chunks;
+    private long stalls;
+    private boolean closed;
+    private volatile IOException failure;
+
+    private TrainingWriter(Path file, FileChannel channel, int width, int height, int chunkRows) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.chunkRows = chunkRows;
+
+        ByteBuffer header = ByteBuffer.allocate(TrainingFormat.HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        TrainingFormat.putHeader(header, width, height, ShapeType.count());
+        while (header.hasRemaining()) channel.write(header);
+
+        long[] off = TrainingFormat.offsets(width, height, chunkRows);
+        this.filling = new Chunk(off);
+        free.add(new Chunk(off));
+        this.thread = new Thread(this::drain, "training-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // creates (or truncates) the file
+    public static TrainingWriter open(Path file, int width, int height) throws IOException {
+        return open(file, width, height, DEFAULT_CHUNK_ROWS);
+    }
+
+    public static TrainingWriter open(Path file, int width, int height, int chunkRows) throws IOException {
+        if (chunkRows < 1) throw new IllegalArgumentException("chunkRows must be positive, got " + chunkRows);
+        if (TrainingFormat.offsets(width, height, chunkRows)[Column.all().length] > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(chunkRows + " positions of " + width + "x" + height + " don't fit in a chunk");
+        }
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new TrainingWriter(file, ch, width, height, chunkRows);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() { return file; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    // positions appended so far, and full chunks handed to the writer thread
+    public synchronized long getRows() { return rows; }
+    public synchronized long getChunks() { return chunks; }
+
+    // times append() had to wait for the writer thread to free a chunk buffer
+    public synchronized long getStalls() { return stalls; }
+
+    // copies a game's positions into the chunk being filled, handing it off whenever it fills up
+    synchronized void append(PositionBatch batch) {
+        if (closed) throw new IllegalStateException("training writer is closed");
+        if (failure != null) throw new UncheckedIOException(file + ": write failed", failure);
+        if (batch.getWidth() != width || batch.getHeight() != height) {
+            throw new IllegalArgumentException("positions are " + batch.getWidth() + "x" + batch.getHeight()
+                    + ", the file is " + width + "x" + height);
+        }
+        int from = 0;
+        int n = batch.size();
+        while (from < n) {
+            int count = Math.min(n - from, chunkRows - filling.rows);
+            filling.copy(batch, from, count);
+            from += count;
+            rows += count;
+            if (filling.rows == chunkRows) handOff();
+        }
+    }
+
+    private void handOff() {
+        put(full, filling);
+        chunks++;
+        Chunk next = free.poll();
+        if (next == null) {
+            stalls++;
+            next = take(free);
+        }
+        filling = next;
+    }
+
+    // writes the partly filled chunk and waits for the file to reach the disk
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (filling.rows > 0) put(full, filling);
+        put(full, done);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (failure != null) throw new IOException(file + ": write failed", failure);
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    // writer thread: writes full chunks in order and recycles their buffers
+    private void drain() {
+        while (true) {
+            Chunk c = take(full);
+            if (c == done) return;
+            if (failure == null) {
+                try {
+                    c.write(channel);
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            c.rows = 0;
+            put(free, c);
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> q, T item) {
+        try {
+            q.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while queueing a training chunk", e);
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> q) {
+        try {
+            return q.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for a training chunk", e);
+        }
+    }
+
+    // one chunk buffer laid out for chunkRows positions; a short chunk is written with
+    // each column cut down to its rows, so the file never holds the unused space
+    private final class Chunk {
+        private final long[] off;
+        private final ByteBuffer buf;
+        private final LongBuffer boards;
+        private final ShortBuffer features;
+        private final IntBuffer piecesLeft;
+        private final IntBuffer finalScore;
+        private final IntBuffer piece;
+        private final LongBuffer seed;
+        int rows;
+
+        Chunk() {
+            off = null;
+            buf = null;
+            boards = null;
+            features = null;
+            piecesLeft = null;
+            finalScore = null;
+            piece = null;
+            seed = null;
+        }
+
+        Chunk(long[] off) {
+            this.off = off;
+            this.buf = ByteBuffer.allocateDirect((int) off[off.length - 1]).order(ByteOrder.LITTLE_ENDIAN);
+            this.boards = column(Column.BOARD).asLongBuffer();
+            this.features = column(Column.FEATURES).asShortBuffer();
+            this.piecesLeft = column(Column.PIECES_LEFT).asIntBuffer();
+            this.finalScore = column(Column.FINAL_SCORE).asIntBuffer();
+            this.piece = column(Column.PIECE).asIntBuffer();
+            this.seed = column(Column.SEED).asLongBuffer();
+        }
+
+        private ByteBuffer column(Column c) {
+            int start = (int) off[c.ordinal()];
+            return buf.slice(start, (int) off[c.ordinal() + 1] - start).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private int at(Column c) {
+            return (int) off[c.ordinal()];
+        }
+
+        void copy(PositionBatch b, int from, int count) {
+            int r = rows;
+            int longs = Column.boardLongs(width, height);
+            boards.put(r * longs, b.boards, from * longs, count * longs);
+            buf.put(at(Column.HEIGHTS) + r * width, b.heights, from * width, count * width);
+            features.put(r * Column.FEATURE_COUNT, b.features, from * Column.FEATURE_COUNT, count * Column.FEATURE_COUNT);
+            buf.put(at(Column.ACTIVE) + r, b.active, from, count);
+            buf.put(at(Column.NEXT) + r, b.next, from, count);
+            buf.put(at(Column.ROTATION) + r, b.rotation, from, count);
+            buf.put(at(Column.X) + r, b.x, from, count);
+            buf.put(at(Column.Y) + r, b.y, from, count);
+            buf.put(at(Column.CLEARED) + r, b.cleared, from, count);
+            piecesLeft.put(r, b.piecesLeft, from, count);
+            finalScore.put(r, b.finalScore, from, count);
+            piece.put(r, b.piece, from, count);
+            seed.put(r, b.seed, from, count);
+            rows += count;
+        }
+
+        // chunk header, then every column's first `rows` values, zero-padded to 8 bytes
+        void write(FileChannel ch) throws IOException {
+            Column[] cols = Column.all();
+            long[] packed = TrainingFormat.offsets(width, height, rows);
+            buf.putInt(0, TrainingFormat.CHUNK_MAGIC).putInt(4, rows).putLong(8, packed[cols.length]);
+
+            ByteBuffer[] parts = new ByteBuffer[cols.length + 1];
+            parts[0] = buf.slice(0, TrainingFormat.CHUNK_HEADER);
+            for (Column c : cols) {
+                int used = rows * c.size(width, height);
+                int padded = TrainingFormat.align(used);
+                for (int i = used; i < padded; i++) buf.put(at(c) + i, (byte) 0);
+                parts[c.ordinal() + 1] = buf.slice(at(c), padded);
+            }
+
+            long left = packed[cols.length];
+            while (left > 0) left -= ch.write(parts);
+        }
+    }
+}
@@ -1,40 +1,107 @@
 package tetris.ui;
 
+import tetris.core.Command;
 import tetris.core.Game;
-import tetris.core.ScoreManager;
-
-import javax.swing.JPanel;
-import javax.swing.Timer;
+import tetris.core.GameListener;
+import tetris.core.RenderFrame;
+import tetris.core.ShapeTable;
+import tetris.core.ShapeType;
+
+import tetris.loop.FrameExchange;
+import tetris.loop.GameLoop;
+import tetris.metrics.Metrics;
+import tetris.scores.ScoreStore;
+import tetris.sim.GameResult;
+
+import java.awt.Canvas;
 import java.awt.Dimension;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.Toolkit;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Active rendering: a GameLoop thread owns the Game, steps it at a fixed rate and
+// publishes a RenderFrame after each step. A render thread of this canvas draws the
+// latest frame into its BufferStrategy and never touches the Game itself. The EDT
+// only forwards key presses.
+public class GamePanel extends Canvas implements KeyListener {
 
-public class GamePanel extends JPanel implements KeyListener {
+    private static final long serialVersionUID = 1L;
 
-    // Board dimensions
-    private static final int BOARD_W = 10;
-    private static final int BOARD_H = 20;
+    // Board dimensions (-Dtetris.width / -Dtetris.height, up to 64 columns)
+    private static final int BOARD_W = Integer.getInteger("tetris.width", 10);
+    private static final int BOARD_H = Integer.getInteger("tetris.height", 20);
 
-    // Game Boy-ish pixels (chunky)
-    private static final int CELL = 18;
+    // Game Boy-ish pixels (chunky), shrunk so big boards still fit on screen
+    private static final int CELL = Math.max(4, Math.min(18, Math.min(720 / BOARD_W, 720 / BOARD_H)));
 
     private static final int SIDE_W = 140;
     private static final int PAD = 16;
+
+    // Layout
+    private static final int SCREEN_X = PAD;
+    private static final int SCREEN_Y = PAD;
+    private static final int SCREEN_W = BOARD_W * CELL;
+    private static final int SCREEN_H = BOARD_H * CELL;
+
+    private static final int HUD_X = SCREEN_X + SCREEN_W + PAD;
+    private static final int HUD_Y = PAD;
+    private static final int HUD_W = SIDE_W;
+    private static final int HUD_H = Math.max(SCREEN_H, 360); // room for the HUD on short boards
+    private static final int HUD_TEXT_X = HUD_X + 12;
+
+    private static final int SCORE_Y = HUD_Y + 46; // value baselines, each under its title
+    private static final int LINES_Y = HUD_Y + 90;
+    private static final int LEVEL_Y = HUD_Y + 134;
+    private static final int NEXT_TITLE_Y = HUD_Y + 162;
+
+    private static final int PREVIEW_X = HUD_X + 18;
+    private static final int PREVIEW_Y = NEXT_TITLE_Y + 20;
+    private static final int PREVIEW_SIZE = 70;
+    private static final int PREVIEW_CELL = Math.min(14, (PREVIEW_SIZE - 14) / ShapeTable.BOX);
+
+    private static final int PANEL_W = PAD + SCREEN_W + PAD + SIDE_W + PAD;
+    private static final int PANEL_H = PAD + HUD_H + PAD;
+
+    // render thread sleeps at most this long between frames when nothing is moving
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // and this long while the falling piece is sliding between two steps
+    private static final long SLIDE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
     private final Game game;
-    private Timer timer; 
+    private final GameLoop loop;
+    private final FrameExchange frames;
+    private volatile boolean rendering;
+    private Thread renderThread;
 
     // Game Boy style colors
     private static final Color FRAME_DARK = new Color(30, 36, 24);
     private static final Color FRAME_LIGHT = new Color(63, 74, 45);
+    private static final Color FRAME_SHADOW = new Color(0, 0, 0, 80);
+    private static final Color FRAME_LABEL = new Color(220, 220, 220, 90);
 
     private static final Color LCD_LIGHT = new Color(198, 216, 167);
     private static final Color LCD_MID   = new Color(142, 172, 105);
     private static final Color LCD_DARK  = new Color(54, 76, 41);
     private static final Color LCD_DEEP  = new Color(28, 42, 22);
 
+    private static final Color SCANLINE = new Color(0, 0, 0, 18);
+    private static final Color GRID_LINE = new Color(0, 0, 0, 25);
+    private static final Color HUD_BG = new Color(184, 204, 150);
+    private static final Color PREVIEW_BG = new Color(210, 225, 180);
+    private static final Color OVERLAY = new Color(0, 0, 0, 90);
+
     // “Blocks” are just different green shades (classic Game Boy vibe)
     // index 0 empty; 1..7 pieces
     private final Color[] colors = new Color[] {
@@ -48,83 +115,305 @@ public class GamePanel extends JPanel implements KeyListener {
             LCD_DARK    // L
     };
 
-    private final Font titleFont = new Font("Monospaced", Font.BOLD, 13);
-    private final Font valueFont = new Font("Monospaced", Font.PLAIN, 13);
-    private final Font stateFont = new Font("Monospaced", Font.BOLD, 16);
+    private static final Font TITLE_FONT = new Font("Monospaced", Font.BOLD, 13);
+    private static final Font VALUE_FONT = new Font("Monospaced", Font.PLAIN, 13);
+    private static final Font STATE_FONT = new Font("Monospaced", Font.BOLD, 16);
+    private static final Font LABEL_FONT = new Font("Monospaced", Font.BOLD, 12);
+    private static final Font INFO_FONT = new Font("Monospaced", Font.PLAIN, 11);
+
+    // Retained image of everything but the falling piece and the state overlay.
+    // updateCanvas() redraws only the board rows and HUD fields that changed into it;
+    // each presented frame blits it and draws the piece and overlay on top.
+    private BufferedImage canvas;
+    private final int[] drawnRowVersions = new int[BOARD_H];
+    private int drawnScore;
+    private int drawnLines;
+    private int drawnLevel;
+    private ShapeType drawnNext;
+    private String drawnState;
+
+    // falling piece interpolation: pixel position at the previous and the latest step
+    private long trackedPiece = -1;
+    private int trackedRotation;
+    private long trackedFrame = -1;
+    private int prevPx, prevPy, curPx, curPy;
+    private int shownPx = Integer.MIN_VALUE, shownPy;
+
+    private volatile boolean exposed = true; // the OS asked for a repaint
+    private long reportedInputNanos;         // metrics: input already counted as rendered
+
+    // EDT: keys currently down, so OS key repeat doesn't reach the game (it does its own)
+    private final boolean[] keysDown = new boolean[Command.values().length];
 
     public GamePanel() {
+        this(null);
+    }
+
+    // scores, if not null, gets a record of every finished game
+    public GamePanel(ScoreStore scores) {
         setFocusable(true);
         addKeyListener(this);
 
+        // no key releases arrive while unfocused, so let go of everything held
+        addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                for (Command c : Command.values()) {
+                    if (keysDown[c.ordinal()]) {
+                        keysDown[c.ordinal()] = false;
+                        loop.release(c);
+                    }
+                }
+            }
+        });
+
         this.game = new Game(BOARD_W, BOARD_H);
+        if (scores != null) {
+            // runs on the loop thread; the store's page writes are cheap, no sync to disk here
+            game.addListener(new GameListener() {
+                @Override
+                public void onGameOver(Game g) {
+                    scores.record(GameResult.of(g));
+                }
+            });
+        }
 
-        int screenW = BOARD_W * CELL;
-        int screenH = BOARD_H * CELL;
+        setPreferredSize(new Dimension(PANEL_W, PANEL_H));
 
-        int w = PAD + screenW + PAD + SIDE_W + PAD;
-        int h = PAD + screenH + PAD;
+        long report = TimeUnit.SECONDS.toNanos(Integer.getInteger("tetris.frameStatsSeconds", 0));
+        this.frames = new FrameExchange(BOARD_W, BOARD_H);
+        this.loop = new GameLoop(game, frames, report);
+    }
 
-        setPreferredSize(new Dimension(w, h));
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        createBufferStrategy(2);
+
+        rendering = true;
+        renderThread = new Thread(this::renderLoop, "render");
+        renderThread.setDaemon(true);
+        frames.setConsumer(renderThread);
+        renderThread.start();
+        loop.start();
+    }
 
-        this.timer = new Timer(game.getScore().getDelayMs(), e -> {
-            game.tick();
-            this.timer.setDelay(game.getScore().getDelayMs());
-            repaint();
-        });
-        this.timer.start();
+    @Override
+    public void removeNotify() {
+        loop.stop();
+
+        rendering = false;
+        frames.setConsumer(null);
+        LockSupport.unpark(renderThread);
+        try {
+            renderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        renderThread = null;
+        super.removeNotify();
+    }
+
+    // the render thread presents frames itself; an OS repaint only marks the frame stale
+    @Override
+    public void paint(Graphics g) {
+        exposed = true;
+        Thread t = renderThread;
+        if (t != null) LockSupport.unpark(t);
     }
 
     @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+    public void update(Graphics g) {
+        paint(g);
+    }
 
-        int screenX = PAD;
-        int screenY = PAD;
-        int screenW = BOARD_W * CELL;
-        int screenH = BOARD_H * CELL;
+    // render thread: draw whenever a frame is published, the window is exposed, or
+    // (more often) while the falling piece is between two cells
+    private void renderLoop() {
+        long stepNanos = loop.getStepNanos();
+        while (rendering) {
+            boolean sliding = render(frames.latest(), stepNanos);
+            if (!frames.hasFresh() && !exposed) {
+                LockSupport.parkNanos(sliding ? SLIDE_PARK_NANOS : IDLE_PARK_NANOS);
+            }
+        }
+    }
 
-        drawFrame(g);
+    // draw and present a frame if anything visible changed; true while still interpolating
+    private boolean render(RenderFrame frame, long stepNanos) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        if (canvas == null) buildCanvas(frame);
+        boolean changed = updateCanvas(frame);
+
+        trackActive(frame);
+        int px = curPx, py = curPy;
+        boolean sliding = false;
+        if (prevPx != curPx || prevPy != curPy) {
+            // how far time has moved into the step after this frame
+            double alpha = Math.min(1.0, (double) (System.nanoTime() - frame.getCapturedNanos()) / stepNanos);
+            px = (int) Math.round(prevPx + (curPx - prevPx) * alpha);
+            py = (int) Math.round(prevPy + (curPy - prevPy) * alpha);
+            sliding = alpha < 1.0;
+        }
+        if (px != shownPx || py != shownPy) changed = true;
+        if (exposed) {
+            exposed = false;
+            changed = true;
+        }
+        if (!changed) return sliding;
+
+        BufferStrategy bs = getBufferStrategy();
+        if (bs == null) return sliding;
+        do {
+            do {
+                Graphics g = bs.getDrawGraphics();
+                try {
+                    drawScene(g, frame, px, py);
+                } finally {
+                    g.dispose();
+                }
+            } while (bs.contentsRestored());
+            bs.show();
+        } while (bs.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+
+        if (Metrics.ENABLED) {
+            long end = System.nanoTime();
+            Metrics.RENDER.record(end - start);
+            long input = frame.getInputNanos();
+            if (input != 0 && input != reportedInputNanos) {
+                reportedInputNanos = input;
+                Metrics.INPUT_TO_RENDER.record(end - input);
+            }
+        }
 
-        g.setColor(LCD_LIGHT);
-        g.fillRect(screenX, screenY, screenW, screenH);
+        shownPx = px;
+        shownPy = py;
+        return sliding;
+    }
 
-        g.setColor(new Color(0, 0, 0, 18));
-        for (int y = screenY; y < screenY + screenH; y += 4) {
-            g.drawLine(screenX, y, screenX + screenW - 1, y);
+    private void drawScene(Graphics g, RenderFrame frame, int activePx, int activePy) {
+        g.drawImage(canvas, 0, 0, null);
+
+        // blocks on the board are drawn from the piece's interpolated origin,
+        // clipped so a block sliding in from above never covers the frame
+        int key = frame.activeShapeKey();
+        int color = frame.getActiveType().colorIndex();
+        g.setClip(SCREEN_X, SCREEN_Y, SCREEN_W + 1, SCREEN_H + 1);
+        for (int i = 0; i < ShapeTable.BLOCKS; i++) {
+            if (frame.getActiveY() + ShapeTable.cellY(key, i) < 0) continue;
+            drawCell(g, activePx, activePy, ShapeTable.cellX(key, i), ShapeTable.cellY(key, i), color);
         }
+        g.setClip(null);
 
-        int[][] grid = game.getBoard().getGrid();
-        for (int y = 0; y < BOARD_H; y++) {
-            for (int x = 0; x < BOARD_W; x++) {
-                drawCell(g, screenX, screenY, x, y, grid[y][x]);
+        String state = frame.getState();
+        if (!"RUNNING".equals(state)) {
+            drawStateOverlay(g, SCREEN_X, SCREEN_Y, SCREEN_W, SCREEN_H, state);
+        }
+    }
+
+    // Pixel origin of the falling piece at the previous and the latest step. Moves of at
+    // most one cell by the same piece are interpolated; spawns, rotations and hard drops snap.
+    private void trackActive(RenderFrame f) {
+        int px = SCREEN_X + f.getActiveX() * CELL;
+        int py = SCREEN_Y + f.getActiveY() * CELL;
+
+        long frame = f.getFrame();
+        boolean samePiece = f.getPieceSerial() == trackedPiece && f.getActiveRotation() == trackedRotation;
+        if (frame != trackedFrame || !samePiece) {
+            boolean slide = samePiece && Math.abs(px - curPx) <= CELL && Math.abs(py - curPy) <= CELL;
+            prevPx = slide ? curPx : px;
+            prevPy = slide ? curPy : py;
+        }
+        curPx = px;
+        curPy = py;
+        trackedFrame = frame;
+        trackedPiece = f.getPieceSerial();
+        trackedRotation = f.getActiveRotation();
+    }
+
+    // bring the canvas up to date with the frame; true if anything was redrawn
+    private boolean updateCanvas(RenderFrame frame) {
+        boolean changed = false;
+        Graphics2D g = canvas.createGraphics();
+        try {
+            for (int y = 0; y < BOARD_H; y++) {
+                int v = frame.getRowVersion(y);
+                if (v == drawnRowVersions[y]) continue;
+                drawnRowVersions[y] = v;
+                drawRow(g, frame, y);
+                changed = true;
+            }
+
+            if (frame.getScore() != drawnScore) {
+                drawnScore = drawValue(g, SCORE_Y, frame.getScore());
+                changed = true;
+            }
+            if (frame.getLines() != drawnLines) {
+                drawnLines = drawValue(g, LINES_Y, frame.getLines());
+                changed = true;
+            }
+            if (frame.getLevel() != drawnLevel) {
+                drawnLevel = drawValue(g, LEVEL_Y, frame.getLevel());
+                changed = true;
             }
+
+            if (frame.getNextType() != drawnNext) {
+                drawPreview(g, frame.getNextType());
+                changed = true;
+            }
+        } finally {
+            g.dispose();
         }
 
-        game.getActive().forEachBlock((bx, by, colorIdx) -> {
-            if (by >= 0) drawCell(g, screenX, screenY, bx, by, colorIdx);
-        });
+        String state = frame.getState();
+        if (!state.equals(drawnState)) {
+            drawnState = state;
+            changed = true;
+        }
+        return changed;
+    }
 
-        g.setColor(LCD_DEEP);
-        g.drawRect(screenX - 1, screenY - 1, screenW + 1, screenH + 1);
-        g.setColor(LCD_MID);
-        g.drawRect(screenX - 2, screenY - 2, screenW + 3, screenH + 3);
+    // full draw of the canvas, once
+    private void buildCanvas(RenderFrame frame) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        canvas = (gc != null)
+                ? gc.createCompatibleImage(PANEL_W, PANEL_H)
+                : new BufferedImage(PANEL_W, PANEL_H, BufferedImage.TYPE_INT_RGB);
 
-        int hudX = screenX + screenW + PAD;
-        int hudY = PAD;
-        int hudW = SIDE_W;
-        int hudH = screenH;
+        Graphics2D g = canvas.createGraphics();
+        try {
+            drawFrame(g);
 
-        drawHud(g, hudX, hudY, hudW, hudH);
+            g.setColor(LCD_LIGHT);
+            g.fillRect(SCREEN_X, SCREEN_Y, SCREEN_W, SCREEN_H);
 
-        String state = game.getStateName();
-        if (!"RUNNING".equals(state)) {
-            drawStateOverlay(g, screenX, screenY, screenW, screenH, state);
+            g.setColor(SCANLINE);
+            for (int y = SCREEN_Y; y < SCREEN_Y + SCREEN_H; y += 4) {
+                g.drawLine(SCREEN_X, y, SCREEN_X + SCREEN_W - 1, y);
+            }
+
+            for (int y = 0; y < BOARD_H; y++) {
+                drawnRowVersions[y] = frame.getRowVersion(y);
+                drawRow(g, frame, y);
+            }
+
+            g.setColor(LCD_DEEP);
+            g.drawRect(SCREEN_X - 1, SCREEN_Y - 1, SCREEN_W + 1, SCREEN_H + 1);
+            g.setColor(LCD_MID);
+            g.drawRect(SCREEN_X - 2, SCREEN_Y - 2, SCREEN_W + 3, SCREEN_H + 3);
+
+            drawHud(g, frame);
+        } finally {
+            g.dispose();
         }
+
+        drawnState = frame.getState();
     }
 
     private void drawFrame(Graphics g) {
-        int w = getWidth();
-        int h = getHeight();
+        int w = PANEL_W;
+        int h = PANEL_H;
 
         g.setColor(FRAME_DARK);
         g.fillRect(0, 0, w, h);
@@ -132,15 +421,25 @@ public class GamePanel extends JPanel implements KeyListener {
         g.setColor(FRAME_LIGHT);
         g.drawRect(6, 6, w - 13, h - 13);
 
-        g.setColor(new Color(0,0,0,80));
+        g.setColor(FRAME_SHADOW);
         g.drawRect(10, 10, w - 21, h - 21);
 
         // little “Game Boy” label vibe (simple)
-        g.setFont(new Font("Monospaced", Font.BOLD, 12));
-        g.setColor(new Color(220, 220, 220, 90));
+        g.setFont(LABEL_FONT);
+        g.setColor(FRAME_LABEL);
         g.drawString("TETRIS", PAD, 14);
     }
 
+    // one board row, clipped to its band: cell outlines spill a pixel into the next
+    // row, which the next row's own fill covers when the whole board is drawn
+    private void drawRow(Graphics2D g, RenderFrame frame, int y) {
+        g.setClip(SCREEN_X, SCREEN_Y + y * CELL, SCREEN_W, CELL);
+        for (int x = 0; x < BOARD_W; x++) {
+            drawCell(g, SCREEN_X, SCREEN_Y, x, y, frame.cell(x, y));
+        }
+        g.setClip(null);
+    }
+
     private void drawCell(Graphics g, int ox, int oy, int x, int y, int colorIdx) {
         int px = ox + x * CELL;
         int py = oy + y * CELL;
@@ -151,7 +450,7 @@ public class GamePanel extends JPanel implements KeyListener {
             g.fillRect(px, py, CELL, CELL);
 
             // faint grid
-            g.setColor(new Color(0, 0, 0, 25));
+            g.setColor(GRID_LINE);
             g.drawRect(px, py, CELL, CELL);
             return;
         }
@@ -167,81 +466,79 @@ public class GamePanel extends JPanel implements KeyListener {
         g.drawLine(px + 1, py + 1, px + 1, py + CELL - 2);
     }
 
-    private void drawHud(Graphics g, int x, int y, int w, int h) {
-        g.setColor(new Color(184, 204, 150));
-        g.fillRect(x, y, w, h);
+    // static parts of the HUD plus the current values
+    private void drawHud(Graphics g, RenderFrame frame) {
+        g.setColor(HUD_BG);
+        g.fillRect(HUD_X, HUD_Y, HUD_W, HUD_H);
 
         g.setColor(LCD_DEEP);
-        g.drawRect(x, y, w - 1, h - 1);
-
-        ScoreManager s = game.getScore();
+        g.drawRect(HUD_X, HUD_Y, HUD_W - 1, HUD_H - 1);
 
-        int tx = x + 12;
-        int ty = y + 28;
-
-        g.setColor(LCD_DEEP);
+        g.setFont(TITLE_FONT);
+        g.drawString("SCORE", HUD_TEXT_X, SCORE_Y - 18);
+        g.drawString("LINES", HUD_TEXT_X, LINES_Y - 18);
+        g.drawString("LEVEL", HUD_TEXT_X, LEVEL_Y - 18);
 
-        g.setFont(titleFont);
-        g.drawString("SCORE", tx, ty); ty += 18;
-
-        g.setFont(valueFont);
-        g.drawString(String.valueOf(s.getScore()), tx, ty); ty += 26;
-
-        g.setFont(titleFont);
-        g.drawString("LINES", tx, ty); ty += 18;
-
-        g.setFont(valueFont);
-        g.drawString(String.valueOf(s.getLines()), tx, ty); ty += 26;
+        // NEXT preview
+        g.drawString("NEXT", HUD_TEXT_X, NEXT_TITLE_Y);
+
+        int infoY = HUD_Y + HUD_H - 74;
+        g.setFont(INFO_FONT);
+        g.drawString("P PAUSE", HUD_TEXT_X, infoY); infoY += 14;
+        g.drawString("R RESTART", HUD_TEXT_X, infoY); infoY += 14;
+        g.drawString("↑ ROTATE", HUD_TEXT_X, infoY); infoY += 14;
+        g.drawString("SPACE DROP", HUD_TEXT_X, infoY); infoY += 14;
+        g.drawString("ERP Collective <3", HUD_TEXT_X, infoY);
+
+        drawnScore = drawValue(g, SCORE_Y, frame.getScore());
+        drawnLines = drawValue(g, LINES_Y, frame.getLines());
+        drawnLevel = drawValue(g, LEVEL_Y, frame.getLevel());
+        drawPreview(g, frame.getNextType());
+    }
 
-        g.setFont(titleFont);
-        g.drawString("LEVEL", tx, ty); ty += 18;
+    // clear one HUD value line and draw the new value
+    private int drawValue(Graphics g, int baseline, int value) {
+        FontMetrics fm = g.getFontMetrics(VALUE_FONT);
+        int top = baseline - fm.getAscent();
+        int h = fm.getAscent() + fm.getDescent();
 
-        g.setFont(valueFont);
-        g.drawString(String.valueOf(s.getLevel()), tx, ty); ty += 28;
+        g.setColor(HUD_BG);
+        g.fillRect(HUD_X + 1, top, HUD_W - 2, h);
 
-        // NEXT preview
-        g.setFont(titleFont);
-        g.drawString("NEXT", tx, ty); ty += 14;
-
-        int boxX = x + 18;
-        int boxY = ty + 6;
-        int boxSize = 70;
+        g.setFont(VALUE_FONT);
+        g.setColor(LCD_DEEP);
+        g.drawString(String.valueOf(value), HUD_TEXT_X, baseline);
+        return value;
+    }
 
-        g.setColor(new Color(210, 225, 180));
-        g.fillRect(boxX, boxY, boxSize, boxSize);
+    private void drawPreview(Graphics g, ShapeType next) {
+        g.setColor(PREVIEW_BG);
+        g.fillRect(PREVIEW_X, PREVIEW_Y, PREVIEW_SIZE, PREVIEW_SIZE);
         g.setColor(LCD_DEEP);
-        g.drawRect(boxX, boxY, boxSize, boxSize);
+        g.drawRect(PREVIEW_X, PREVIEW_Y, PREVIEW_SIZE, PREVIEW_SIZE);
 
-        int size = 14;
-        int px0 = boxX + 14;
-        int py0 = boxY + 14;
+        int px0 = PREVIEW_X + 14;
+        int py0 = PREVIEW_Y + 14;
 
-        game.getNext().forEachPreviewBlock((px, py, colorIdx) -> {
-            int ox = px0 + px * size;
-            int oy = py0 + py * size;
+        // spawn rotation, normalized into the box
+        drawnNext = next;
+        int key = ShapeTable.key(next, 0);
+        for (int i = 0; i < ShapeTable.BLOCKS; i++) {
+            int ox = px0 + (ShapeTable.cellX(key, i) - ShapeTable.minX(key)) * PREVIEW_CELL;
+            int oy = py0 + (ShapeTable.cellY(key, i) - ShapeTable.minY(key)) * PREVIEW_CELL;
 
             g.setColor(LCD_DARK);
-            g.fillRect(ox, oy, size, size);
+            g.fillRect(ox, oy, PREVIEW_CELL, PREVIEW_CELL);
             g.setColor(LCD_DEEP);
-            g.drawRect(ox, oy, size, size);
-        });
-
-        int infoY = y + h - 74;
-        g.setFont(new Font("Monospaced", Font.PLAIN, 11));
-        g.setColor(LCD_DEEP);
-        g.drawString("P PAUSE", tx, infoY); infoY += 14;
-        g.drawString("R RESTART", tx, infoY); infoY += 14;
-        g.drawString("↑ ROTATE", tx, infoY); infoY += 14;
-        g.drawString("SPACE DROP", tx, infoY); infoY += 14;
-        g.drawString("ERP Collective <3", tx, infoY);
-
+            g.drawRect(ox, oy, PREVIEW_CELL, PREVIEW_CELL);
+        }
     }
 
     private void drawStateOverlay(Graphics g, int x, int y, int w, int h, String state) {
-        g.setColor(new Color(0, 0, 0, 90));
+        g.setColor(OVERLAY);
         g.fillRect(x, y, w, h);
 
-        g.setFont(stateFont);
+        g.setFont(STATE_FONT);
         int msgW = g.getFontMetrics().stringWidth(state);
         int cx = x + (w - msgW) / 2;
         int cy = y + h / 2;
@@ -254,11 +551,37 @@ public class GamePanel extends JPanel implements KeyListener {
 
     @Override
     public void keyPressed(KeyEvent e) {
-        game.onKeyPressed(e.getKeyCode());
-        this.timer.setDelay(game.getScore().getDelayMs());
-        repaint();
+        Command command = toCommand(e.getKeyCode());
+        if (command == null) return;
+
+        if (keysDown[command.ordinal()]) return;
+        keysDown[command.ordinal()] = true;
+
+        // applied by the loop thread at its next step
+        loop.press(command);
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        Command command = toCommand(e.getKeyCode());
+        if (command == null || !keysDown[command.ordinal()]) return;
+
+        keysDown[command.ordinal()] = false;
+        loop.release(command);
+    }
+
+    private static Command toCommand(int keyCode) {
+        return switch (keyCode) {
+            case KeyEvent.VK_LEFT -> Command.LEFT;
+            case KeyEvent.VK_RIGHT -> Command.RIGHT;
+            case KeyEvent.VK_DOWN -> Command.SOFT_DROP;
+            case KeyEvent.VK_UP -> Command.ROTATE;
+            case KeyEvent.VK_SPACE -> Command.HARD_DROP;
+            case KeyEvent.VK_P -> Command.PAUSE;
+            case KeyEvent.VK_R -> Command.RESTART;
+            default -> null;
+        };
     }
 
-    @Override public void keyReleased(KeyEvent e) {}
     @Override public void keyTyped(KeyEvent e) {}
 }
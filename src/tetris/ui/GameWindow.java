@@ -1,15 +1,23 @@
 package tetris.ui;
 
+import tetris.scores.ScoreStore;
+
 import javax.swing.JFrame;
 
 public class GameWindow extends JFrame {
+    private static final long serialVersionUID = 1L;
+
     public GameWindow() {
+        this(null);
+    }
+
+    public GameWindow(ScoreStore scores) {
         setTitle("Classic Tetris (Java Swing)");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setResizable(false);
 
-        GamePanel panel = new GamePanel();
-        setContentPane(panel);
+        GamePanel panel = new GamePanel(scores);
+        add(panel);
         pack();
         setLocationRelativeTo(null);
 
@@ -0,0 +1,50 @@
+package tetris.versus;
+
+import tetris.sim.GameResult;
+
+// Outcome of a VersusMatch, per seat.
+public final class MatchResult {
+    private final int winner;
+    private final long frames;
+    private final GameResult[] games;
+    private final int[] sent;
+    private final int[] received;
+    private final int[] cancelled;
+    private final int[] places;
+
+    MatchResult(int winner, long frames, GameResult[] games, int[] sent, int[] received, int[] cancelled, int[] places) {
+        this.winner = winner;
+        this.frames = frames;
+        this.games = games;
+        this.sent = sent;
+        this.received = received;
+        this.cancelled = cancelled;
+        this.places = places;
+    }
+
+    // seat of the last player standing, or -1 for a draw or a match stopped by the frame limit
+    public int getWinner() { return winner; }
+    public long getFrames() { return frames; }
+    public int getPlayers() { return games.length; }
+    public GameResult getGame(int seat) { return games[seat]; }
+
+    // garbage rows the seat sent out, had rise under its stack, and cancelled with its own clears
+    public int getSent(int seat) { return sent[seat]; }
+    public int getReceived(int seat) { return received[seat]; }
+    public int getCancelled(int seat) { return cancelled[seat]; }
+
+    // 1 = winner; players out on the same frame share a place; 0 = still playing at the frame limit
+    public int getPlace(int seat) { return places[seat]; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("winner=").append(winner).append(" frames=").append(frames);
+        for (int p = 0; p < games.length; p++) {
+            sb.append(" | ").append(p).append(": place=").append(places[p])
+              .append(" sent=").append(sent[p]).append(" received=").append(received[p])
+              .append(" cancelled=").append(cancelled[p]).append(" lines=").append(games[p].getLines());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package tetris.versus;
+
+import tetris.ai.BeamSearchPolicy;
+import tetris.ai.HeuristicEvaluator;
+import tetris.sim.BatchRunner;
+import tetris.sim.Policy;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongFunction;
+
+// Runs many headless VersusMatches between bots over a ForkJoinPool. Match seeds are
+// derived up front from the base seed (as in BatchRunner) and every match owns its games
+// and policies, so results are the same whatever the thread count or scheduling.
+public class Tournament {
+    private static final int LEAF_MATCHES = 2;
+
+    private final int width;
+    private final int height;
+    private final long maxFrames;
+    private final int parallelism;
+
+    public Tournament(int width, int height, long maxFrames, int parallelism) {
+        this.width = width;
+        this.height = height;
+        this.maxFrames = maxFrames;
+        this.parallelism = parallelism;
+    }
+
+    // one match per seed; bots.get(i) makes seat i's policy from the match seed
+    public MatchResult[] run(List<LongFunction<? extends Policy>> bots, int matches, long baseSeed) {
+        long[] seeds = BatchRunner.seeds(baseSeed, matches);
+        MatchResult[] results = new MatchResult[matches];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new Slice(bots, seeds, results, 0, matches));
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    private MatchResult playOne(List<LongFunction<? extends Policy>> bots, long seed) {
+        Policy[] seats = new Policy[bots.size()];
+        for (int p = 0; p < seats.length; p++) seats[p] = bots.get(p).apply(seed + p);
+        return new VersusMatch(width, height, seed, seats).play(maxFrames);
+    }
+
+    @SuppressWarnings("serial")
+    private final class Slice extends RecursiveAction {
+        private final List<LongFunction<? extends Policy>> bots;
+        private final long[] seeds;
+        private final MatchResult[] results;
+        private final int from;
+        private final int to;
+
+        Slice(List<LongFunction<? extends Policy>> bots, long[] seeds, MatchResult[] results, int from, int to) {
+            this.bots = bots;
+            this.seeds = seeds;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_MATCHES) {
+                for (int i = from; i < to; i++) results[i] = playOne(bots, seeds[i]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Slice(bots, seeds, results, from, mid),
+                      new Slice(bots, seeds, results, mid, to));
+        }
+    }
+
+    // a greedy one-piece bot against the default two-piece beam search, every seed played
+    // once from each seat:  java tetris.versus.Tournament [matches] [seed] [maxFrames]
+    public static void main(String[] args) {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        long baseSeed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        long maxFrames = args.length > 2 ? Long.parseLong(args[2]) : 20_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        LongFunction<? extends Policy> greedy = s -> new BeamSearchPolicy(10, 20, 1, 1, new HeuristicEvaluator());
+        LongFunction<? extends Policy> beam = s -> new BeamSearchPolicy();
+        Tournament t = new Tournament(10, 20, maxFrames, cores);
+
+        // both halves play the same seeds with the seats swapped, so each seed is a pair of
+        // games that cancels any seat advantage
+        int pairs = (matches + 1) / 2;
+        long start = System.nanoTime();
+        MatchResult[] a = t.run(List.of(greedy, beam), pairs, baseSeed);
+        MatchResult[] b = t.run(List.of(beam, greedy), pairs, baseSeed);
+        double secs = (System.nanoTime() - start) / 1e9;
+
+        int[] wins = new int[2];   // greedy, beam
+        int[] sweeps = new int[2]; // pairs a bot won from both seats
+        int draws = 0;
+        long frames = 0;
+        long garbage = 0;
+        for (int i = 0; i < pairs; i++) {
+            int first = a[i].getWinner();                          // as greedy = 0, beam = 1
+            int second = (b[i].getWinner() < 0) ? -1 : 1 - b[i].getWinner();
+            for (int w : new int[] { first, second }) {
+                if (w < 0) draws++;
+                else wins[w]++;
+            }
+            if (first >= 0 && first == second) sweeps[first]++;
+            frames += a[i].getFrames() + b[i].getFrames();
+            garbage += a[i].getSent(0) + a[i].getSent(1) + b[i].getSent(0) + b[i].getSent(1);
+        }
+        int played = 2 * pairs;
+        System.out.printf("%d matches on %d threads in %.2fs (%.1f matches/s, %.0f frames/s)%n",
+                played, cores, secs, played / secs, frames / secs);
+        System.out.printf("  greedy %d  beam %d  draws %d   %.0f frames and %.1f garbage rows sent per match%n",
+                wins[0], wins[1], draws, (double) frames / played, (double) garbage / played);
+        System.out.printf("  seeds won from both seats (of %d): greedy %d  beam %d%n", pairs, sweeps[0], sweeps[1]);
+    }
+}
@@ -0,0 +1,250 @@
+package tetris.versus;
+
+import tetris.core.Game;
+import tetris.core.GameListener;
+import tetris.sim.GameResult;
+import tetris.sim.Policy;
+import tetris.sim.Simulator;
+
+import java.util.SplittableRandom;
+
+// N games advanced in lock-step on one frame clock, sending each other garbage.
+//
+// Every frame each live player gets one policy action and one frame. A lock that clears
+// lines makes an attack (attack()), which first cancels garbage still queued for the
+// attacker, oldest first; what is left goes out at the end of the frame to the next
+// live player in seat order. Queued garbage rises (up to MAX_RISE rows) after a lock
+// that clears nothing, each attack's rows sharing one random hole column.
+//
+// Within a frame players only touch their own state: attacks are held back until every
+// player has stepped, so the outcome doesn't depend on the order they step in, and a
+// match is reproducible from its seed. All players get the same piece sequence.
+// Per-player match state sits in flat arrays indexed by seat (garbage queue entries at
+// seat * QUEUE), and the games are allocated together, so a frame walks memory in order.
+public class VersusMatch {
+    private static final int QUEUE = 16;   // attacks waiting per player; more merge into the newest
+    private static final int MAX_RISE = 8; // garbage rows that can rise after one lock
+
+    private final int width;
+    private final int players;
+    private final Game[] games;
+    private final Simulator[] sims;
+    private final Policy[] policies;
+    private final SplittableRandom holes;
+
+    private final int[] queueLines;
+    private final int[] queueHoles;
+    private final int[] queueHead;
+    private final int[] queueSize;
+    private final int[] outgoing;      // attack made this frame, delivered at its end
+    private final boolean[] cleanLock; // locked a piece this frame without clearing
+    private final boolean[] alive;
+    private final int[] sent;
+    private final int[] received;
+    private final int[] cancelled;
+    private final int[] place;         // finishing place once out (1 = winner), 0 while playing
+    private final int[] rise = new int[MAX_RISE];
+    private int aliveCount;
+    private long frame;
+
+    // one policy per seat; policies must not be shared between seats or matches
+    public VersusMatch(int width, int height, long seed, Policy... policies) {
+        if (policies.length < 1) throw new IllegalArgumentException("a match needs at least one player");
+        this.width = width;
+        this.players = policies.length;
+        this.policies = policies.clone();
+        SplittableRandom rng = new SplittableRandom(seed);
+        long pieceSeed = rng.nextLong();
+        this.holes = rng.split();
+
+        this.games = new Game[players];
+        this.sims = new Simulator[players];
+        for (int p = 0; p < players; p++) {
+            games[p] = new Game(width, height, pieceSeed);
+            sims[p] = new Simulator(games[p]);
+            games[p].addListener(new Seat(p));
+        }
+
+        this.queueLines = new int[players * QUEUE];
+        this.queueHoles = new int[players * QUEUE];
+        this.queueHead = new int[players];
+        this.queueSize = new int[players];
+        this.outgoing = new int[players];
+        this.cleanLock = new boolean[players];
+        this.alive = new boolean[players];
+        this.sent = new int[players];
+        this.received = new int[players];
+        this.cancelled = new int[players];
+        this.place = new int[players];
+        for (int p = 0; p < players; p++) alive[p] = !games[p].isGameOver();
+        for (boolean a : alive) if (a) aliveCount++;
+    }
+
+    // garbage rows a clear sends: doubles and triples send one row less, bigger clears all of them
+    public static int attack(int cleared) {
+        return (cleared >= 4) ? cleared : Math.max(cleared - 1, 0);
+    }
+
+    public int getPlayers() { return players; }
+    public Game getGame(int seat) { return games[seat]; }
+    public long getFrame() { return frame; }
+    public int getAlive() { return aliveCount; }
+
+    // garbage rows queued for a seat and not yet risen
+    public int getPendingGarbage(int seat) {
+        int n = 0;
+        for (int i = 0; i < queueSize[seat]; i++) n += queueLines[seat * QUEUE + (queueHead[seat] + i) % QUEUE];
+        return n;
+    }
+
+    // a match with several players ends when at most one is left, a solo one when it tops out
+    public boolean isOver() {
+        return aliveCount == 0 || (players > 1 && aliveCount == 1);
+    }
+
+    // advances every live game by one frame, then settles garbage; false once the match is over
+    public boolean step() {
+        if (isOver()) return false;
+        frame++;
+        for (int p = 0; p < players; p++) {
+            if (alive[p]) sims[p].step(policies[p].nextAction(games[p]));
+        }
+
+        for (int p = 0; p < players; p++) {
+            if (cleanLock[p] && !games[p].isGameOver()) raise(p);
+            cleanLock[p] = false;
+        }
+
+        // players out this frame share the place after everyone still in
+        int out = 0;
+        for (int p = 0; p < players; p++) {
+            if (alive[p] && games[p].isGameOver()) out++;
+        }
+        if (out > 0) {
+            int shared = aliveCount - out + 1;
+            for (int p = 0; p < players; p++) {
+                if (alive[p] && games[p].isGameOver()) {
+                    alive[p] = false;
+                    place[p] = shared;
+                }
+            }
+            aliveCount -= out;
+        }
+
+        for (int p = 0; p < players; p++) {
+            if (outgoing[p] == 0) continue;
+            int target = target(p);
+            if (target >= 0) deliver(target, outgoing[p]);
+            sent[p] += outgoing[p];
+            outgoing[p] = 0;
+        }
+
+        if (isOver()) {
+            for (int p = 0; p < players; p++) {
+                if (alive[p]) place[p] = 1;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // plays until the match is over or maxFrames have passed (then nobody wins)
+    public MatchResult play(long maxFrames) {
+        while (frame < maxFrames && step()) {}
+        return result();
+    }
+
+    public MatchResult result() {
+        GameResult[] results = new GameResult[players];
+        for (int p = 0; p < players; p++) results[p] = GameResult.of(games[p]);
+        int winner = -1;
+        if (isOver()) {
+            for (int p = 0; p < players; p++) {
+                if (place[p] == 1 && alive[p]) winner = p;
+            }
+        }
+        return new MatchResult(winner, frame, results, sent.clone(), received.clone(), cancelled.clone(), place.clone());
+    }
+
+    // a clear's attack cancels queued garbage first; the rest goes out at the end of the frame
+    private void locked(int p, int cleared) {
+        if (cleared == 0) {
+            cleanLock[p] = true;
+            return;
+        }
+        int attack = attack(cleared);
+        int base = p * QUEUE;
+        while (attack > 0 && queueSize[p] > 0) {
+            int i = base + queueHead[p];
+            int c = Math.min(attack, queueLines[i]);
+            queueLines[i] -= c;
+            attack -= c;
+            cancelled[p] += c;
+            if (queueLines[i] == 0) {
+                queueHead[p] = (queueHead[p] + 1) % QUEUE;
+                queueSize[p]--;
+            }
+        }
+        outgoing[p] += attack;
+    }
+
+    // up to MAX_RISE queued rows rise, the oldest attack on top as if it had risen first
+    private void raise(int p) {
+        int base = p * QUEUE;
+        int rows = 0;
+        while (rows < MAX_RISE && queueSize[p] > 0) {
+            int i = base + queueHead[p];
+            int n = Math.min(MAX_RISE - rows, queueLines[i]);
+            for (int k = 0; k < n; k++) rise[rows++] = queueHoles[i];
+            queueLines[i] -= n;
+            if (queueLines[i] == 0) {
+                queueHead[p] = (queueHead[p] + 1) % QUEUE;
+                queueSize[p]--;
+            }
+        }
+        if (rows == 0) return;
+
+        // collected top down; Board wants them from the floor up
+        for (int lo = 0, hi = rows - 1; lo < hi; lo++, hi--) {
+            int t = rise[lo];
+            rise[lo] = rise[hi];
+            rise[hi] = t;
+        }
+        received[p] += rows;
+        games[p].addGarbage(Math.min(rows, games[p].getBoard().getHeight()), rise);
+    }
+
+    private void deliver(int target, int lines) {
+        int base = target * QUEUE;
+        if (queueSize[target] == QUEUE) {
+            queueLines[base + (queueHead[target] + QUEUE - 1) % QUEUE] += lines;
+            return;
+        }
+        int i = base + (queueHead[target] + queueSize[target]) % QUEUE;
+        queueLines[i] = lines;
+        queueHoles[i] = holes.nextInt(width);
+        queueSize[target]++;
+    }
+
+    // the next live player after p in seat order, or -1 if p is the only one left
+    private int target(int p) {
+        for (int k = 1; k < players; k++) {
+            int t = (p + k) % players;
+            if (alive[t]) return t;
+        }
+        return -1;
+    }
+
+    private final class Seat implements GameListener {
+        private final int seat;
+
+        Seat(int seat) {
+            this.seat = seat;
+        }
+
+        @Override
+        public void onLocked(Game game, int cleared) {
+            locked(seat, cleared);
+        }
+    }
+}